@@ -1,7 +1,4 @@
 
-import java.util.LinkedList;
-import java.util.List;
-
 /**
  * Animal.
  * 
@@ -12,9 +9,11 @@ import java.util.List;
  * is its lifeSpan,</li>
  * <li>An Animal can move,</li>
  * <li>An Animal can eat,</li>
- * <li>An Animal knows its children and its parents, and</li>
+ * <li>An Animal knows its parents through its World's Lineage, and</li>
  * <li>An Animal reproduces with a partner that is neither its child nor its parent.</li>
  * </ul>
+ * What an Animal eats, how far it senses and how long it lives are the
+ * SpeciesRules of its species, so one class serves every species of Animal.
  * </p>
  * 
  * @author Maxwell Babey
@@ -22,45 +21,79 @@ import java.util.List;
  */
 public class Animal extends Organism {
 
-    /** The maximum number of turns this Animal can exist. */
-    protected int lifeSpan;
-
     /** The number of turns this Animal has existed. */
     protected int age;
     
     /**
-     * Constructor. Creates an Animal.
+     * Constructor. Creates an Animal of a species with specified parents.
+     * 
+     * @param location - the cell which this Animal occupies
+     * @param species  - the species id, which must be an animal
+     * @param mother   - the lineage id of the first parent
+     * @param father   - the lineage id of the second parent
      */
-    public Animal() {
+    public Animal(Cell location, byte species, int mother, int father) {
+        this.currentCell = location;
+        this.rules = location.getWorld().getRules(species);
+        this.orgColour = this.rules.colour;
+        this.species = species;
+        this.lineageId = location.getWorld().getLineage().register(mother, father);
         this.age = 0;
     }
 
+    /**
+     * getAge. Gets the number of turns since this Animal was born or last ate.
+     * 
+     * @return the age
+     */
+    public int getAge() {
+        return this.age;
+    }
+
+    /**
+     * setAge. Sets the number of turns since this Animal was born or last ate.
+     * 
+     * @param age - the age
+     */
+    public void setAge(int age) {
+        this.age = age;
+    }
+
     /**
      * move. Moves this Animal to a Cell that does not contain an Animal already.
      */
     protected void move() {
-        List<Cell> neighbours = this.currentCell.getNeighbours(this.sensorDistance);
-        List<Cell> validNeighbours = new LinkedList<Cell>();
-        for (Cell neighbour : neighbours) {
-            if (isEdible(neighbour.getOrganism()) || (neighbour.getOrganism() == null)) {
-                validNeighbours.add(neighbour);
+        final World world = this.currentCell.getWorld();
+        final int[] neighbours = world.getNeighbourBuffer(this.rules.sensorDistance);
+        final int[] validNeighbours = world.getValidBuffer(this.rules.sensorDistance);
+        final int count = this.currentCell.getNeighbours(this.rules.sensorDistance, neighbours);
+        int validCount = 0;
+        for (int n = 0; n < count; n++) {
+            Organism neighbour = world.getCell(neighbours[n]).getOrganism();
+            if (isEdible(neighbour) || (neighbour == null)) {
+                validNeighbours[validCount++] = neighbours[n];
             }
         }
-        if (validNeighbours.size() > 0) {
-            takeStep(validNeighbours);
+        if (validCount > 0) {
+            takeStep(validNeighbours, validCount);
         }
     }
 
     /**
-     * takeStep. Helper method which moves the Omnivore to a new Cell. If the Cell
-     * is occupied by something OmnivoreEdible, the Omnivore will eat.
+     * takeStep. Helper method which moves the Animal to a new Cell. If the Cell
+     * is occupied by something edible, the Animal will eat.
      * 
-     * @param validNeighbours - List containing valid neighbouring Cells
+     * @param validNeighbours - indices of valid neighbouring Cells
+     * @param validCount      - the number of valid neighbouring Cells
      */
-    private void takeStep(List<Cell> validNeighbours) {
-        int randNum = RandomGenerator.nextNumber(validNeighbours.size());
-        Cell targetCell = validNeighbours.get(randNum);
+    private void takeStep(int[] validNeighbours, int validCount) {
+        int randNum = this.currentCell.getWorld().getRandom().nextNumber(validCount);
+        Cell targetCell = this.currentCell.getWorld().getCell(validNeighbours[randNum]);
+        final byte prey = Species.of(targetCell.getOrganism());
+        this.currentCell.getWorld().record(prey == Species.EMPTY ? Events.MOVE : Events.EAT, Species.of(this), prey,
+                this.currentCell.getIndex(), targetCell.getIndex());
         if (isEdible(targetCell.getOrganism())) {
+            targetCell.getOrganism().perish();
             this.eat();
         }
         targetCell.setOrganism(this);
@@ -87,28 +120,38 @@ public class Animal extends Organism {
     @Override
     protected void reproduce() {
         if (!this.hasMated) {
-            List<Cell> neighbours = this.currentCell.getNeighbours(this.sensorDistance);
-            List<Cell> validNeighbours = new LinkedList<Cell>();
+            final World world = this.currentCell.getWorld();
+            final SpeciesRules rules = this.rules;
+            final int[] neighbours = world.getNeighbourBuffer(rules.sensorDistance);
+            final int[] validNeighbours = world.getValidBuffer(rules.sensorDistance);
+            final int count = this.currentCell.getNeighbours(rules.sensorDistance, neighbours);
+            int validCount = 0;
             int neighbourCount = 0;
             int foodCount = 0;
             Organism partner = null;
-            for (Cell neighbour : neighbours) {
-                if (isSpecies(neighbour.getOrganism()) && !isIncest(neighbour.getOrganism())) {
+            for (int n = 0; n < count; n++) {
+                Organism neighbour = world.getCell(neighbours[n]).getOrganism();
+                if (isSpecies(neighbour) && !isIncest(neighbour)) {
                     neighbourCount++;
                     if (partner == null) {
-                        partner = neighbour.getOrganism();
+                        partner = neighbour;
                     }
                 }
-                if (isEdible(neighbour.getOrganism())) {
+                if (isEdible(neighbour)) {
                     foodCount++;
                 }
-                if (neighbour.getOrganism() == null) {
-                    validNeighbours.add(neighbour);
+                if (neighbour == null) {
+                    validNeighbours[validCount++] = neighbours[n];
                 }
             }
-            if (neighbourCount >= this.likeNbToRep && foodCount >= this.foodNbToRep
-                    && validNeighbours.size() >= this.emptyNbToRep) {
-                createLife(validNeighbours, partner);
+            if (neighbourCount < rules.likeNbToRep) {
+                world.countFailure(this, Counters.LIKE_NB);
+            } else if (foodCount < rules.foodNbToRep) {
+                world.countFailure(this, Counters.FOOD_NB);
+            } else if (validCount < rules.emptyNbToRep) {
+                world.countFailure(this, Counters.EMPTY_NB);
+            } else {
+                createLife(validNeighbours, validCount, partner);
             }
         }
     }
@@ -121,52 +164,60 @@ public class Animal extends Organism {
      * @return true if mating would be incestuous; false otherwise
      */
     private boolean isIncest(Organism neighbour) {
-        for (Organism parent : this.parents) {
-            if (neighbour == parent)
-                return true;
-        }
-        for (Organism child : this.children) {
-            if (neighbour == child)
-                return true;
-        }
-        return false;
+        return this.currentCell.getWorld().getLineage().isIncest(this.lineageId, neighbour.getLineageId());
     }
 
     /**
-     * createLife. Creates a child Organism with this Animal and the partner Animal
-     * as parents. Adds the baby to the List children of the parent Animals.
+     * createLife. Creates a child Animal of this species with this Animal and the
+     * partner Animal as parents, recorded in the World's Lineage.
      * 
-     * @param validNeighbours - list of empty neighbour cells
+     * @param validNeighbours - indices of empty neighbour cells
+     * @param validCount      - the number of empty neighbour cells
      * @param partner         - the partner to mate with
      */
-    protected void createLife(List<Cell> validNeighbours, Organism partner) {
-        Organism[] parentage = { this, partner };
-        int randNum = RandomGenerator.nextNumber(validNeighbours.size());
-        Organism baby = makeBaby(validNeighbours.get(randNum), parentage);
+    protected void createLife(int[] validNeighbours, int validCount, Organism partner) {
+        int randNum = this.currentCell.getWorld().getRandom().nextNumber(validCount);
+        Cell birthplace = this.currentCell.getWorld().getCell(validNeighbours[randNum]);
+        Organism baby = this.currentCell.getWorld().create(birthplace, this.species, this.lineageId,
+                partner.getLineageId());
         partner.setHasMated(true);
         this.setHasMated(true);
-        partner.addChild(baby);
-        this.addChild(baby);
-        validNeighbours.get(randNum).setOrganism(baby);
+        birthplace.setOrganism(baby);
+        this.currentCell.getWorld().record(Events.BIRTH, Species.of(baby), Species.EMPTY, birthplace.getIndex(),
+                birthplace.getIndex());
     }
 
     /**
-     * makeBaby. Makes a new Organism in a specified Cell and with a Parentage.
-     * Overridden in subclasses.
+     * perish. Releases this Animal's id in the World's Lineage.
+     */
+    @Override
+    protected void perish() {
+        this.currentCell.getWorld().getLineage().release(this.lineageId);
+        super.perish();
+    }
+
+    /**
+     * reuse. Resets a recycled Animal as a newborn with specified parents.
      * 
-     * @param birthplace - the Cell the Organism will be born in
-     * @param parentage  - the parents of the child
-     * @return null Organism - default
+     * @param location - the Cell this Animal will occupy
+     * @param mother   - the lineage id of the first parent
+     * @param father   - the lineage id of the second parent
      */
-    protected Organism makeBaby(Cell birthplace, Organism[] parentage) {
-        return new Organism();
+    @Override
+    protected void reuse(Cell location, int mother, int father) {
+        super.reuse(location, mother, father);
+        this.lineageId = location.getWorld().getLineage().register(mother, father);
+        this.age = 0;
     }
 
     /**
      * die. Kills this Animal if it is too old.
      */
     private void die() {
-        if (this.age > this.lifeSpan) {
+        if (this.age > this.rules.lifespan) {
+            this.currentCell.getWorld().record(Events.DEATH, Species.of(this), Species.EMPTY,
+                    this.currentCell.getIndex(), this.currentCell.getIndex());
+            this.perish();
             this.currentCell.annihilate();
         }
     }
@@ -0,0 +1,254 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BatchRunner.
+ * 
+ * <p>
+ * Runs the game headless: seeds a configured world, advances it a number of
+ * turns as fast as it can, and prints its throughput as it goes and a summary
+ * when it is done. No Display is created.
+ * </p>
+ * 
+ * <p>
+ * Usage: java BatchRunner [--turns=N] [--report=S] [--resume=file]
+ * [--checkpoint=file] [--every=T] [--log=file] [--compress] [--metrics[=M]]
+ * [--config=file] [key=value ...] - runs N
+ * turns (default 1000), reporting every S seconds (default 1, 0 for never).
+ * Every other argument configures the world as for Main.
+ * </p>
+ * 
+ * <p>
+ * With --resume, the world and its Config are restored from a Checkpoint
+ * instead of being seeded, and N more turns are run. With --checkpoint, a
+ * Checkpoint is saved every T turns (default 1000, 0 for only at the end) and
+ * when the run ends, so a crashed run can be resumed from the last one. A
+ * %d in the Checkpoint file is replaced by the turn, keeping every Checkpoint.
+ * </p>
+ * 
+ * <p>
+ * A MappedWorld with a mapped.file is synced when its run ends, and --resume
+ * may name that file instead of a Checkpoint: the world is then opened in
+ * place, without copying its grid, and the run goes on in the same file.
+ * </p>
+ * 
+ * <p>
+ * With --log, which needs --checkpoint, the changes made each turn are
+ * appended to a DeltaLog, deflated with --compress, and a Checkpoint is also
+ * saved before the first turn, so that Replay can reconstruct any turn.
+ * </p>
+ * 
+ * <p>
+ * With --metrics, the world's Metrics are printed when the run ends, and
+ * every M seconds as it goes if M is given.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class BatchRunner {
+
+    /** The number of turns run if none is given. */
+    public static final int DEFAULT_TURNS = 1000;
+
+    /** The seconds between progress reports if none is given. */
+    public static final double DEFAULT_REPORT_SECONDS = 1.0;
+
+    /** The turns between Checkpoints if none is given. */
+    public static final int DEFAULT_CHECKPOINT_TURNS = 1000;
+
+    private BatchRunner() {
+    }
+
+    /**
+     * Runs the batch.
+     * 
+     * @param args - --turns=N, --report=S, --resume=file, --checkpoint=file,
+     *             --every=T, --log=file, --compress, --metrics[=M],
+     *             --config=file and key=value settings
+     * @throws IOException if a config file or Checkpoint cannot be read, or a
+     *                     Checkpoint or the log cannot be written
+     */
+    public static void main(final String[] args) throws IOException {
+        int turns = DEFAULT_TURNS;
+        double reportSeconds = DEFAULT_REPORT_SECONDS;
+        Path resume = null;
+        Path checkpoint = null;
+        int checkpointTurns = DEFAULT_CHECKPOINT_TURNS;
+        Path log = null;
+        boolean compress = false;
+        double metricsSeconds = -1;
+        final List<String> configArgs = new ArrayList<String>();
+        for (String arg : args) {
+            if (arg.startsWith("--turns=")) {
+                turns = Integer.parseInt(arg.substring("--turns=".length()));
+            } else if (arg.startsWith("--report=")) {
+                reportSeconds = Double.parseDouble(arg.substring("--report=".length()));
+            } else if (arg.startsWith("--resume=")) {
+                resume = Paths.get(arg.substring("--resume=".length()));
+            } else if (arg.startsWith("--checkpoint=")) {
+                checkpoint = Paths.get(arg.substring("--checkpoint=".length()));
+            } else if (arg.startsWith("--every=")) {
+                checkpointTurns = Integer.parseInt(arg.substring("--every=".length()));
+            } else if (arg.startsWith("--log=")) {
+                log = Paths.get(arg.substring("--log=".length()));
+            } else if (arg.equals("--compress")) {
+                compress = true;
+            } else if (arg.equals("--metrics")) {
+                metricsSeconds = 0;
+            } else if (arg.startsWith("--metrics=")) {
+                metricsSeconds = Double.parseDouble(arg.substring("--metrics=".length()));
+                if (metricsSeconds <= 0) {
+                    throw new IllegalArgumentException("metrics cannot be <= 0 - got: " + metricsSeconds);
+                }
+            } else {
+                configArgs.add(arg);
+            }
+        }
+        if (turns < 0) {
+            throw new IllegalArgumentException("turns cannot be < 0 - got: " + turns);
+        }
+        if (reportSeconds < 0) {
+            throw new IllegalArgumentException("report cannot be < 0 - got: " + reportSeconds);
+        }
+        if (checkpointTurns < 0) {
+            throw new IllegalArgumentException("every cannot be < 0 - got: " + checkpointTurns);
+        }
+        if (log != null && checkpoint == null) {
+            throw new IllegalArgumentException("log cannot be given without --checkpoint - got: " + log);
+        }
+        final Ecosystem world;
+        if (resume != null) {
+            if (!configArgs.isEmpty()) {
+                throw new IllegalArgumentException("config cannot be given with --resume - got: " + configArgs);
+            }
+            world = MappedWorld.isMapped(resume) ? MappedWorld.open(resume) : Checkpoint.load(resume);
+        } else {
+            world = Config.fromArgs(configArgs.toArray(new String[0])).newEcosystem();
+            world.letThereBeLight();
+        }
+        try {
+            final Config config = world.getConfig();
+            System.out.printf("engine=%s random=%s seed=%d grid=%dx%d threads=%d turns=%d from=%d%n",
+                    config.get("engine"), config.get("random"), config.getSeed(), config.getGridX(), config.getGridY(),
+                    config.getThreads(), turns, world.getTurn());
+            final Metrics metrics = metricsSeconds >= 0 ? new Metrics() : null;
+            world.setMetrics(metrics);
+            final MetricsReporter reporter = metricsSeconds > 0 ? new MetricsReporter(metrics, System.out,
+                    metricsSeconds) : null;
+            try (DeltaLog deltas = log == null ? null : new DeltaLog(log, world.getRows(), world.getCols(), compress)) {
+                if (deltas != null) {
+                    Checkpoint.save(world, checkpointFile(checkpoint, world.getTurn()));
+                }
+                world.setTurnListener(deltas);
+                run(world, turns, (long) (reportSeconds * 1e9), checkpoint, checkpointTurns);
+            } finally {
+                world.setTurnListener(null);
+                if (reporter != null) {
+                    reporter.close();
+                }
+            }
+            if (metrics != null) {
+                System.out.println();
+                MetricsReporter.print(System.out, metrics.snapshot(), null);
+            }
+        } finally {
+            if (world instanceof Closeable) {
+                ((Closeable) world).close();
+            }
+        }
+    }
+
+    /**
+     * run. Advances a seeded world a number of turns, saving Checkpoints as it
+     * goes, then prints a summary.
+     * 
+     * @param world           - the seeded world
+     * @param turns           - the number of turns to run
+     * @param reportNanos     - nanoseconds between progress reports; 0 for never
+     * @param checkpoint      - the Checkpoint file, or null for none; a %d is
+     *                        replaced by the turn
+     * @param checkpointTurns - turns between Checkpoints; 0 for only at the end
+     * @throws IOException if a Checkpoint cannot be written
+     */
+    public static void run(final Ecosystem world, final int turns, final long reportNanos, final Path checkpoint,
+            final int checkpointTurns) throws IOException {
+        final long cells = (long) world.getRows() * world.getCols();
+        final long start = System.nanoTime();
+        long lastReport = start;
+        int lastTurn = 0;
+        for (int turn = 1; turn <= turns; turn++) {
+            world.twentyThreeHoursAndFiftySixMinutes();
+            if (checkpoint != null && checkpointTurns > 0 && turn % checkpointTurns == 0 && turn < turns) {
+                Checkpoint.save(world, checkpointFile(checkpoint, world.getTurn()));
+            }
+            if (reportNanos > 0) {
+                final long now = System.nanoTime();
+                if (now - lastReport >= reportNanos) {
+                    report("turn " + turn, turn - lastTurn, cells, now - lastReport);
+                    lastReport = now;
+                    lastTurn = turn;
+                }
+            }
+        }
+        final long elapsed = System.nanoTime() - start;
+        if (checkpoint != null) {
+            Checkpoint.save(world, checkpointFile(checkpoint, world.getTurn()));
+        }
+        System.out.println();
+        report("total " + turns + " turns", turns, cells, elapsed);
+        final long[] population = census(world);
+        final Config config = world.getConfig();
+        for (byte species = 1; species < config.getSpeciesCount(); species++) {
+            System.out.printf("%-10s %12d%n", config.getName(species), population[species]);
+        }
+        System.out.printf("%-10s %12d%n", config.getName(Species.EMPTY), population[Species.EMPTY]);
+    }
+
+    /**
+     * checkpointFile. Gets the file a Checkpoint of a turn is saved to.
+     * 
+     * @param checkpoint - the Checkpoint file, holding %d where the turn goes
+     * @param turn       - the number of turns the world has run
+     * @return the file
+     */
+    public static Path checkpointFile(final Path checkpoint, final long turn) {
+        final String name = checkpoint.toString();
+        return name.contains("%d") ? Paths.get(name.replace("%d", Long.toString(turn))) : checkpoint;
+    }
+
+    /**
+     * census. Counts the cells of each species in a world.
+     * 
+     * @param world - the world to count
+     * @return the number of cells of each species, indexed by species id
+     */
+    public static long[] census(final Ecosystem world) {
+        final long[] population = new long[world.getConfig().getSpeciesCount()];
+        for (int row = 0; row < world.getRows(); row++) {
+            for (int col = 0; col < world.getCols(); col++) {
+                population[world.getSpecies(col, row)]++;
+            }
+        }
+        return population;
+    }
+
+    /**
+     * report. Prints the throughput of a span of turns.
+     * 
+     * @param label - what the span is
+     * @param turns - the number of turns in the span
+     * @param cells - the number of cells in the world
+     * @param nanos - the length of the span in nanoseconds
+     */
+    private static void report(final String label, final int turns, final long cells, final long nanos) {
+        final double seconds = nanos / 1e9;
+        final double turnsPerSecond = seconds > 0 ? turns / seconds : 0;
+        System.out.printf("%-24s %10.3f s %12.1f turns/s %16.0f cells/s%n", label, seconds, turnsPerSecond,
+                turnsPerSecond * cells);
+    }
+}
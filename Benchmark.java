@@ -0,0 +1,440 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark.
+ * 
+ * <p>
+ * Throughput benchmarks for the world engines. Each benchmark is run for a
+ * number of warm-up iterations, then for a number of measured iterations
+ * whose results are averaged. Every iteration starts from freshly built state
+ * which is not timed. Reported per benchmark:
+ * <ul>
+ * <li>ops/s - operations per second (turns, cells or organism turns),</li>
+ * <li>ns/op - nanoseconds per operation,</li>
+ * <li>+/-ns/op - the standard deviation of ns/op across the measured
+ * iterations,</li>
+ * <li>B/op - bytes allocated per operation by the benchmark thread, and</li>
+ * <li>gc - garbage collections during the measured iterations.</li>
+ * </ul>
+ * Allocation is read from the benchmark thread only, so work done on the
+ * threads of a parallel GridWorld is not counted in B/op.
+ * </p>
+ * 
+ * <p>
+ * The project ships as plain sources with no build file, so this harness
+ * takes the place of a JMH module and follows its discipline: every trial
+ * folds its result into a volatile sink, so the JIT cannot discard the work
+ * measured, and with --forks each benchmark runs in fresh JVMs, one per
+ * fork, given the same JVM options as this one, so that profile pollution
+ * from earlier benchmarks does not skew later ones. Should a build be added,
+ * each measure call maps onto a @Benchmark method: its setup onto
+ * @Setup(Level.Iteration), tearDown onto @TearDown(Level.Iteration),
+ * GRID_SIZES, DENSITIES and SENSOR_DISTANCES onto @Params, and B/op and gc
+ * onto -prof gc.
+ * </p>
+ * 
+ * <p>
+ * Usage: java Benchmark [--forks=F] [filter] - runs the benchmarks whose
+ * names contain filter, or all of them, each in this JVM or, with F above 0,
+ * in F forked JVMs, printing a row per fork.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class Benchmark {
+
+    /** Un-timed iterations run before measuring, to let the JIT settle. */
+    public static final int WARMUP_ITERATIONS = 5;
+
+    /** Timed iterations averaged into the result. */
+    public static final int MEASURED_ITERATIONS = 10;
+
+    /** Side lengths of the square worlds measured. */
+    public static final int[] GRID_SIZES = { 100, 500, 1000 };
+
+    /** Percentages of the organisms placed by letThereBeLight which are kept. */
+    public static final int[] DENSITIES = { 25, 50, 100 };
+
+    /** Turns run per iteration of a turn benchmark. */
+    public static final int TURNS_PER_ITERATION = 5;
+
+    /** Side length of the world used by the neighbour and turnAction benchmarks. */
+    public static final int PROBE_GRID_SIZE = 200;
+
+    /** Sensory distances measured by the neighbour benchmarks. */
+    public static final int[] SENSOR_DISTANCES = { 1, 2, 4, 8 };
+
+    /** The seed of every world built by a benchmark. */
+    public static final long SEED = 20220101L;
+
+    /** Only benchmarks whose names contain this are run. */
+    private static String filter = "";
+
+    /** The one benchmark a fork runs, or null to run every one filter matches. */
+    private static String only;
+
+    /** The names of the benchmarks, when listing them rather than running them. */
+    private static List<String> listed;
+
+    /** Results are added here so the JIT cannot discard the work measured. */
+    private static volatile long sink;
+
+    /**
+     * Trial. One iteration of a benchmark, built before timing starts.
+     */
+    private interface Trial {
+
+        /**
+         * run. Does the timed work.
+         * 
+         * @return the number of operations done
+         */
+        long run();
+
+        /**
+         * tearDown. Releases what the iteration built, after timing stops.
+         */
+        default void tearDown() {
+        }
+    }
+
+    private Benchmark() {
+    }
+
+    /**
+     * Runs the benchmarks.
+     * 
+     * @param args - --forks=F and an optional name filter; a fork is given
+     *             --only=name instead
+     * @throws IOException          if a fork cannot be started or read
+     * @throws InterruptedException if interrupted waiting for a fork
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        int forks = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--forks=")) {
+                forks = Integer.parseInt(arg.substring("--forks=".length()));
+                if (forks < 0) {
+                    throw new IllegalArgumentException("forks cannot be < 0 - got: " + forks);
+                }
+            } else if (arg.startsWith("--only=")) {
+                only = arg.substring("--only=".length());
+            } else {
+                filter = arg;
+            }
+        }
+        if (only == null) {
+            System.out.printf("%-40s %14s %12s %12s %12s %6s%n", "benchmark", "ops/s", "ns/op", "+/-ns/op",
+                    "B/op", "gc");
+        }
+        if (forks == 0) {
+            runAll();
+            return;
+        }
+        listed = new ArrayList<String>();
+        runAll();
+        for (String name : listed) {
+            for (int fork = 0; fork < forks; fork++) {
+                fork(name);
+            }
+        }
+    }
+
+    /**
+     * runAll. Runs, or lists, every benchmark.
+     */
+    private static void runAll() {
+        turnBenchmarks();
+        seedBenchmarks();
+        neighbourBenchmarks();
+        turnActionBenchmarks();
+    }
+
+    /**
+     * fork. Runs one benchmark in a new JVM with this JVM's class path and
+     * options, and prints its row.
+     * 
+     * @param name - the name of the benchmark
+     * @throws IOException          if the JVM cannot be started or read
+     * @throws InterruptedException if interrupted waiting for the JVM
+     */
+    private static void fork(final String name) throws IOException, InterruptedException {
+        final List<String> command = new ArrayList<String>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Benchmark.class.getName());
+        command.add("--only=" + name);
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            for (String line = out.readLine(); line != null; line = out.readLine()) {
+                System.out.println(line);
+            }
+        }
+        final int status = process.waitFor();
+        if (status != 0) {
+            throw new IOException("fork of " + name + " failed - got exit status: " + status);
+        }
+    }
+
+    /**
+     * turnBenchmarks. Measures whole turns of each engine across grid sizes and
+     * densities. One operation is one turn; cells/s is ops/s times the grid
+     * area.
+     */
+    private static void turnBenchmarks() {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        for (final int size : GRID_SIZES) {
+            for (final int density : DENSITIES) {
+                final String suffix = "/" + size + "x" + size + "/" + density + "%";
+                measure("turn/World" + suffix, () -> turns(seeded(new World(size, size, new SplitMix64(SEED)),
+                        density)));
+                measure("turn/GridWorld" + suffix, () -> turns(seeded(new GridWorld(size, size,
+                        new SplitMix64(SEED), 1), density)));
+                measure("turn/SparseWorld" + suffix, () -> turns(seeded(new SparseWorld(Config.DEFAULT
+                        .with("grid.x", Integer.toString(size)).with("grid.y", Integer.toString(size)),
+                        new SplitMix64(SEED)), density)));
+                if (threads > 1) {
+                    measure("turn/GridWorld-" + threads + "t" + suffix, () -> turns(seeded(new GridWorld(size, size,
+                            new SplitMix64(SEED), threads), density)));
+                }
+            }
+        }
+    }
+
+    /**
+     * seedBenchmarks. Measures letThereBeLight on each engine. One operation is
+     * one cell seeded.
+     */
+    private static void seedBenchmarks() {
+        for (final int size : GRID_SIZES) {
+            measure("seed/World/" + size + "x" + size, () -> {
+                final Ecosystem world = new World(size, size, new SplitMix64(SEED));
+                return () -> {
+                    world.letThereBeLight();
+                    sink += digest(world);
+                    return (long) size * size;
+                };
+            });
+            measure("seed/GridWorld/" + size + "x" + size, () -> {
+                final Ecosystem world = new GridWorld(size, size, new SplitMix64(SEED), 1);
+                return () -> {
+                    world.letThereBeLight();
+                    sink += digest(world);
+                    return (long) size * size;
+                };
+            });
+        }
+    }
+
+    /**
+     * neighbourBenchmarks. Measures Cell.getNeighbours at several sensory
+     * distances, in its List form and its buffer form. One operation is one
+     * cell's neighbourhood.
+     */
+    private static void neighbourBenchmarks() {
+        for (final int distance : SENSOR_DISTANCES) {
+            measure("neighbours/list/d=" + distance, () -> {
+                final World world = seeded(new World(PROBE_GRID_SIZE, PROBE_GRID_SIZE, new SplitMix64(SEED)), 100);
+                return () -> {
+                    long found = 0;
+                    for (int i = 0; i < PROBE_GRID_SIZE * PROBE_GRID_SIZE; i++) {
+                        found += world.getCell(i).getNeighbours(distance).size();
+                    }
+                    sink += found;
+                    return PROBE_GRID_SIZE * PROBE_GRID_SIZE;
+                };
+            });
+            measure("neighbours/buffer/d=" + distance, () -> {
+                final World world = seeded(new World(PROBE_GRID_SIZE, PROBE_GRID_SIZE, new SplitMix64(SEED)), 100);
+                final int[] buffer = new int[Neighbourhood.capacity(distance)];
+                return () -> {
+                    long found = 0;
+                    for (int i = 0; i < PROBE_GRID_SIZE * PROBE_GRID_SIZE; i++) {
+                        found += world.getCell(i).getNeighbours(distance, buffer);
+                    }
+                    sink += found;
+                    return PROBE_GRID_SIZE * PROBE_GRID_SIZE;
+                };
+            });
+        }
+    }
+
+    /**
+     * turnActionBenchmarks. Measures Organism.turnAction for each species of a
+     * World on its own. One operation is one organism's turn.
+     */
+    private static void turnActionBenchmarks() {
+        for (final byte species : Config.DEFAULT.getTurnOrder()) {
+            measure("turnAction/" + Config.DEFAULT.getName(species), () -> {
+                final World world = seeded(new World(PROBE_GRID_SIZE, PROBE_GRID_SIZE, new SplitMix64(SEED)), 100);
+                final Roster roster = world.getRoster();
+                int count = 0;
+                for (int i = roster.next(species, 0); i >= 0; i = roster.next(species, i + 1)) {
+                    count++;
+                }
+                final Organism[] actors = new Organism[count];
+                count = 0;
+                for (int i = roster.next(species, 0); i >= 0; i = roster.next(species, i + 1)) {
+                    actors[count] = world.getCell(i).getOrganism();
+                    actors[count].setCanAct(true);
+                    actors[count].setHasMated(false);
+                    count++;
+                }
+                return () -> {
+                    for (Organism actor : actors) {
+                        actor.turnAction();
+                    }
+                    return actors.length;
+                };
+            });
+        }
+    }
+
+    /**
+     * turns. Builds a Trial which runs TURNS_PER_ITERATION turns of a world,
+     * then closes the world if it holds a thread pool or a file.
+     * 
+     * @param world - the seeded world
+     * @return the Trial
+     */
+    private static Trial turns(final Ecosystem world) {
+        return new Trial() {
+
+            @Override
+            public long run() {
+                for (int t = 0; t < TURNS_PER_ITERATION; t++) {
+                    world.twentyThreeHoursAndFiftySixMinutes();
+                }
+                sink += digest(world);
+                return TURNS_PER_ITERATION;
+            }
+
+            @Override
+            public void tearDown() {
+                if (world instanceof Closeable) {
+                    try {
+                        ((Closeable) world).close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * digest. Folds the species along the diagonal of a world into a number,
+     * so that the result of a trial is used. The diagonal is a small part of
+     * the grid, so reading it costs little beside a turn.
+     * 
+     * @param world - the world
+     * @return the digest
+     */
+    private static long digest(final Ecosystem world) {
+        long digest = world.getTurn();
+        for (int i = 0; i < Math.min(world.getRows(), world.getCols()); i++) {
+            digest = digest * 31 + world.getSpecies(i, i);
+        }
+        return digest;
+    }
+
+    /**
+     * seeded. Seeds a world with letThereBeLight, then empties cells at random
+     * until only a percentage of the organisms are left.
+     * 
+     * @param <E>     - the type of world
+     * @param world   - the world to seed
+     * @param density - the percentage of organisms to keep
+     * @return the world
+     */
+    private static <E extends Ecosystem> E seeded(final E world, final int density) {
+        world.letThereBeLight();
+        if (density < 100) {
+            final RandomSource thinning = new SplitMix64(SEED).split(density);
+            for (int row = 0; row < world.getRows(); row++) {
+                for (int col = 0; col < world.getCols(); col++) {
+                    if (world.getSpecies(col, row) != Species.EMPTY && thinning.nextNumber(100) >= density) {
+                        world.setSpecies(col, row, Species.EMPTY);
+                    }
+                }
+            }
+        }
+        return world;
+    }
+
+    /**
+     * measure. Runs a benchmark and prints its averaged results.
+     * 
+     * @param name  - the name of the benchmark
+     * @param setup - builds the state for one iteration
+     */
+    private static void measure(final String name, final Supplier<Trial> setup) {
+        if (only != null ? !name.equals(only) : !name.contains(filter)) {
+            return;
+        }
+        if (listed != null) {
+            listed.add(name);
+            return;
+        }
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        final long self = Thread.currentThread().getId();
+        long ops = 0;
+        long nanos = 0;
+        long bytes = 0;
+        long collections = 0;
+        final double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+        for (int iteration = 0; iteration < WARMUP_ITERATIONS + MEASURED_ITERATIONS; iteration++) {
+            final Trial trial = setup.get();
+            final long gcBefore = collectionCount();
+            final long bytesBefore = threads.getThreadAllocatedBytes(self);
+            final long start = System.nanoTime();
+            final long done = trial.run();
+            final long elapsed = System.nanoTime() - start;
+            final long allocated = threads.getThreadAllocatedBytes(self) - bytesBefore;
+            if (iteration >= WARMUP_ITERATIONS) {
+                ops += done;
+                nanos += elapsed;
+                bytes += allocated;
+                collections += collectionCount() - gcBefore;
+                nanosPerOp[iteration - WARMUP_ITERATIONS] = (double) elapsed / done;
+            }
+            trial.tearDown();
+        }
+        final double mean = (double) nanos / ops;
+        double squares = 0;
+        for (double sample : nanosPerOp) {
+            squares += (sample - mean) * (sample - mean);
+        }
+        System.out.printf("%-40s %14.1f %12.1f %12.1f %12.1f %6d%n", name, ops * 1e9 / nanos, mean,
+                Math.sqrt(squares / (MEASURED_ITERATIONS - 1)), (double) bytes / ops, collections);
+    }
+
+    /**
+     * collectionCount. Sums the collection counts of every garbage collector.
+     * 
+     * @return the number of collections so far
+     */
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+}
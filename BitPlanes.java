@@ -0,0 +1,264 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * BitPlanes.
+ * 
+ * <p>
+ * One bit plane per tracked species: bit x of word w of row y of a species'
+ * plane is set if the cell (64 * w + x, y) holds that species. The neighbours
+ * of 64 cells within sensory distance 1 are then counted at once, with shifts
+ * and bit-sliced adders on whole words, and compared against a threshold for
+ * all 64 in a few more word operations. The bits past the last column of
+ * each row are always clear, so the counts are those of a clipped grid.
+ * </p>
+ * 
+ * <p>
+ * A GridWorld keeps the planes up to date as cells change, so a mask read in
+ * the middle of a phase is exact; once a cell changes, masks read before are
+ * stale, and those of the cells after it have to be read again.
+ * </p>
+ * 
+ * <p>
+ * The Tiles of a parallel GridWorld do not share cells, but a word holds 64
+ * columns, so Tiles running at once can share words. Concurrent planes then
+ * set and clear bits with atomic read-modify-writes, so no update is lost,
+ * and read words atomically; a Tile only relies on the bits of its own cells
+ * and their neighbours, which no other Tile running at once changes.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class BitPlanes {
+
+    /** Atomic access to the words of a plane. */
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /** The number of rows and columns in the grid. */
+    private final int rows;
+    private final int cols;
+
+    /** The number of words in each row of a plane. */
+    private final int words;
+
+    /** The plane of each species, indexed by species id; null if not tracked. */
+    private final long[][] planes = new long[Species.MAX][];
+
+    /** True if several threads update the planes at once. */
+    private final boolean concurrent;
+
+    /**
+     * Constructor. Creates the planes of an empty grid.
+     * 
+     * @param rows       - the number of rows in the grid
+     * @param cols       - the number of columns in the grid
+     * @param tracked    - the species with planes, as a bit mask of species ids
+     * @param concurrent - true if several threads update the planes at once
+     */
+    public BitPlanes(int rows, int cols, int tracked, boolean concurrent) {
+        this.rows = rows;
+        this.cols = cols;
+        this.concurrent = concurrent;
+        this.words = (cols + Long.SIZE - 1) / Long.SIZE;
+        for (int species = 0; species < Species.MAX; species++) {
+            if ((tracked >>> species & 1) != 0) {
+                this.planes[species] = new long[rows * this.words];
+            }
+        }
+        this.clear();
+    }
+
+    /**
+     * getWords. Gets the number of words in each row of a plane.
+     * 
+     * @return the words per row
+     */
+    public int getWords() {
+        return this.words;
+    }
+
+    /**
+     * update. Records a cell changing species.
+     * 
+     * @param index - ypos * cols + xpos
+     * @param from  - the species id the cell held
+     * @param to    - the species id the cell now holds
+     */
+    public void update(int index, byte from, byte to) {
+        if (from == to) {
+            return;
+        }
+        final int y = index / this.cols;
+        final int x = index - y * this.cols;
+        final int word = y * this.words + (x >>> 6);
+        final long bit = 1L << x;
+        final long[] left = this.planes[from];
+        final long[] joined = this.planes[to];
+        if (this.concurrent) {
+            if (left != null) {
+                WORDS.getAndBitwiseAnd(left, word, ~bit);
+            }
+            if (joined != null) {
+                WORDS.getAndBitwiseOr(joined, word, bit);
+            }
+            return;
+        }
+        if (left != null) {
+            left[word] &= ~bit;
+        }
+        if (joined != null) {
+            joined[word] |= bit;
+        }
+    }
+
+    /**
+     * matches. Checks the planes against the species of every cell.
+     * 
+     * @param species - the species id of each cell, indexed ypos * cols + xpos
+     * @return true if every bit of every plane agrees with the cells
+     */
+    public boolean matches(byte[] species) {
+        for (int s = 0; s < Species.MAX; s++) {
+            final long[] plane = this.planes[s];
+            if (plane == null) {
+                continue;
+            }
+            for (int y = 0; y < this.rows; y++) {
+                for (int w = 0; w < this.words; w++) {
+                    long expected = 0L;
+                    for (int x = w * Long.SIZE; x < Math.min(this.cols, (w + 1) * Long.SIZE); x++) {
+                        expected |= species[y * this.cols + x] == s ? 1L << x : 0L;
+                    }
+                    if (this.read(plane, y * this.words + w) != expected) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * clear. Marks every cell empty, as after a reset.
+     */
+    public void clear() {
+        for (long[] plane : this.planes) {
+            if (plane != null) {
+                Arrays.fill(plane, 0L);
+            }
+        }
+        final long[] empty = this.planes[Species.EMPTY];
+        if (empty == null) {
+            return;
+        }
+        final int tail = this.cols - (this.words - 1) * Long.SIZE;
+        for (int y = 0; y < this.rows; y++) {
+            Arrays.fill(empty, y * this.words, (y + 1) * this.words, -1L);
+            empty[(y + 1) * this.words - 1] = tail == Long.SIZE ? -1L : (1L << tail) - 1;
+        }
+    }
+
+    /**
+     * word. Gets one word of the plane of a species.
+     * 
+     * @param species - a tracked species id
+     * @param y       - the row
+     * @param w       - the word within the row
+     * @return bit x is set if cell (64 * w + x, y) holds the species
+     */
+    public long word(byte species, int y, int w) {
+        return this.read(this.planes[species], y * this.words + w);
+    }
+
+    /**
+     * read. Reads one word of a plane, atomically if the planes are concurrent.
+     * 
+     * @param plane - the plane
+     * @param at    - the index of the word
+     * @return the word
+     */
+    private long read(long[] plane, int at) {
+        return this.concurrent ? (long) WORDS.getOpaque(plane, at) : plane[at];
+    }
+
+    /**
+     * ready. Finds the cells of a word whose eight neighbours include at least
+     * a number of one species and at least a number of empty cells.
+     * 
+     * @param species - a tracked species id
+     * @param y       - the row
+     * @param w       - the word within the row
+     * @param like    - the neighbours of the species needed
+     * @param empty   - the empty neighbours needed
+     * @return bit x is set if cell (64 * w + x, y) has enough of both
+     */
+    public long ready(byte species, int y, int w, int like, int empty) {
+        return this.atLeast(this.planes[species], y, w, like) & this.atLeast(this.planes[Species.EMPTY], y, w, empty);
+    }
+
+    /**
+     * atLeast. Counts the set neighbours of the 64 cells of a word in a plane,
+     * in four bit-sliced counters, and compares the counts with a threshold.
+     * 
+     * @param plane     - the plane
+     * @param y         - the row
+     * @param w         - the word within the row
+     * @param threshold - the count needed
+     * @return bit x is set if cell (64 * w + x, y) has at least threshold
+     */
+    private long atLeast(long[] plane, int y, int w, int threshold) {
+        if (threshold <= 0) {
+            return -1L;
+        }
+        if (threshold > 8) {
+            return 0L;
+        }
+        long c0 = 0;
+        long c1 = 0;
+        long c2 = 0;
+        long c3 = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            final int row = y + dy;
+            if (row < 0 || row >= this.rows) {
+                continue;
+            }
+            final int at = row * this.words + w;
+            final long mid = this.read(plane, at);
+            final long left = w > 0 ? this.read(plane, at - 1) : 0L;
+            final long right = w + 1 < this.words ? this.read(plane, at + 1) : 0L;
+            for (int dx = -1; dx <= 1; dx++) {
+                final long v;
+                if (dx < 0) {
+                    v = mid << 1 | left >>> 63;
+                } else if (dx > 0) {
+                    v = mid >>> 1 | right << 63;
+                } else if (dy != 0) {
+                    v = mid;
+                } else {
+                    continue;
+                }
+                long carry = c0 & v;
+                c0 ^= v;
+                final long carry1 = c1 & carry;
+                c1 ^= carry;
+                carry = c2 & carry1;
+                c2 ^= carry1;
+                c3 |= carry;
+            }
+        }
+        long greater = 0;
+        long equal = -1L;
+        for (int b = 3; b >= 0; b--) {
+            final long counter = b == 3 ? c3 : b == 2 ? c2 : b == 1 ? c1 : c0;
+            if ((threshold >>> b & 1) != 0) {
+                equal &= counter;
+            } else {
+                greater |= equal & counter;
+                equal &= ~counter;
+            }
+        }
+        return greater | equal;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * BitPlanesTest.
+ * 
+ * <p>
+ * Checks that the bit planes of a parallel GridWorld stay in step with the
+ * species of its cells. Each world is wide enough that Tiles running at once
+ * share plane words, and its planes are compared with every cell after each
+ * turn. Exits with status 1 on the first mismatch.
+ * </p>
+ * 
+ * <p>
+ * Usage: java BitPlanesTest
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class BitPlanesTest {
+
+    /** Thread counts checked. */
+    public static final int[] THREADS = { 2, 3, 4, 8 };
+
+    /** Grid sizes checked, as columns then rows; widths straddle word boundaries. */
+    public static final int[][] GRID_SIZES = { { 320, 200 }, { 517, 130 }, { 1000, 300 } };
+
+    /** Turns run per world. */
+    public static final int TURNS = 60;
+
+    /** The seed of every world checked. */
+    public static final long SEED = 20220101L;
+
+    private BitPlanesTest() {
+    }
+
+    /**
+     * Runs the checks.
+     * 
+     * @param args - unused
+     */
+    public static void main(final String[] args) {
+        for (final int threads : THREADS) {
+            for (final int[] size : GRID_SIZES) {
+                final String name = threads + "t/" + size[0] + "x" + size[1];
+                final Config config = Config.DEFAULT.with("grid.x", Integer.toString(size[0]))
+                        .with("grid.y", Integer.toString(size[1])).with("threads", Integer.toString(threads));
+                final GridWorld world = new GridWorld(config, new SplitMix64(SEED));
+                world.letThereBeLight();
+                for (int turn = 1; turn <= TURNS; turn++) {
+                    world.twentyThreeHoursAndFiftySixMinutes();
+                    if (!world.planesMatch()) {
+                        System.out.println("FAIL " + name + " - planes differ from cells after turn " + turn);
+                        System.exit(1);
+                    }
+                }
+                world.close();
+                System.out.println("ok   " + name);
+            }
+        }
+    }
+}
@@ -1,11 +0,0 @@
-
-/**
- * CarnivoreEdible.
- * 
- * Interface to be implemented on classes which are edible by Carnivores.
- * 
- * @author Maxwell Babey
- * @version 2022, 1.0
- */
-public interface CarnivoreEdible {
-}
@@ -1,11 +1,6 @@
-
-import java.awt.Color;
-import java.awt.Graphics;
 import java.util.LinkedList;
 import java.util.List;
 
-import javax.swing.JPanel;
-
 /**
  * Cell.
  * 
@@ -13,19 +8,15 @@ import javax.swing.JPanel;
  * A Cell is a position in a World 2D landMass array. A Cell either holds an
  * Organism or is empty (represented by organism = null). A Cell knows its own
  * position and is able to recognize its neighbouring Cells. <br>
- * A Cell is displayed on the Display as a coloured square. <br>
- * Colour Key:
- * <ul>
- * <li>White : Empty</li>
- * <li>Green : Plant</li>
- * <li>Yellow : Herbivore</li>
- * </ul>
+ * A Cell is plain data and holds no display state; a WorldView reads Cells to
+ * draw them, so a World can run without a display. A Cell reports every change
+ * of Organism to its World's Roster and neighbour counts.
  * </p>
  * 
  * @author Maxwell Babey
- * @version 2022, 1.0
+ * @version 2022, 2.0
  */
-public class Cell extends JPanel {
+public class Cell {
 
     /** The World this cell belongs to. Allows the cell to look around itself. */
     private final World world;
@@ -34,12 +25,12 @@ public class Cell extends JPanel {
     private final int xpos;
     private final int ypos;
 
+    /** The Cell's row-major index in the world, used to keep the Roster. */
+    private final int index;
+
     /** The Organism in this Cell. Null if there is no Organism. */
     private Organism organism;
 
-    /** The colour of an empty cell. */
-    public static final Color EMPTY_CELL_COLOUR = Color.WHITE;
-
     /**
      * Constructor. Creates a Cell object. Initializes Organism to null (empty).
      * 
@@ -50,8 +41,26 @@ public class Cell extends JPanel {
         this.world = w;
         this.xpos = x;
         this.ypos = y;
+        this.index = y * w.getCols() + x;
         this.organism = null;
-        this.colourCell(this.organism);
+    }
+
+    /**
+     * getWorld. Returns the World this Cell belongs to.
+     * 
+     * @return the World of this Cell
+     */
+    public World getWorld() {
+        return this.world;
+    }
+
+    /**
+     * getIndex. Returns the row-major index of this Cell in its World.
+     * 
+     * @return the index of this Cell
+     */
+    public int getIndex() {
+        return this.index;
     }
 
     /**
@@ -64,34 +73,27 @@ public class Cell extends JPanel {
     }
 
     /**
-     * setOrganism. Puts an Organism in this Cell and sets the colour.
+     * setOrganism. Puts an Organism in this Cell.
      * 
      * @param org - the Organism to put in this Cell.
      */
     public void setOrganism(Organism org) {
+        final Roster roster = this.world.getRoster();
+        final byte from = Species.of(this.organism);
+        roster.remove(from, this.index);
         this.organism = org;
-        this.colourCell(this.organism);
+        roster.add(Species.of(org), this.index);
+        this.world.cellChanged(this.index, from, Species.of(org));
     }
 
     /**
-     * annihilate. Removes the Organism in this Cell and resets the colour.
+     * annihilate. Removes the Organism in this Cell.
      */
     public void annihilate() {
+        final byte from = Species.of(this.organism);
+        this.world.getRoster().remove(from, this.index);
         this.organism = null;
-        this.colourCell(this.organism);
-    }
-
-    /**
-     * colourCell. Assigns a colour to this Cell based on the Organism within.
-     * 
-     * @param org - the Organism in this Cell.
-     */
-    private void colourCell(Organism org) {
-        if (org == null) {
-            this.setBackground(EMPTY_CELL_COLOUR);
-        } else {
-            this.setBackground(org.getColour());
-        }
+        this.world.cellChanged(this.index, from, Species.EMPTY);
     }
 
     /**
@@ -104,35 +106,26 @@ public class Cell extends JPanel {
      */
     public List<Cell> getNeighbours(int sensorDistance) {
         List<Cell> neighbours = new LinkedList<Cell>();
-        for (int row = -1 * sensorDistance; row <= sensorDistance; row++) {
-            for (int col = -1 * sensorDistance; col <= sensorDistance; col++) {
-                if (inBounds(row, col) && this.world.getCell(this.xpos + col, this.ypos + row) != this) {
-                    neighbours.add(this.world.getCell(this.xpos + col, this.ypos + row));
-                }
-            }
+        final int[] buffer = new int[Neighbourhood.capacity(sensorDistance)];
+        final int count = this.getNeighbours(sensorDistance, buffer);
+        for (int n = 0; n < count; n++) {
+            neighbours.add(this.world.getCell(buffer[n]));
         }
         return neighbours;
     }
 
     /**
-     * inBounds. Helper method for checking the array bounds during getNeighbours.
+     * getNeighbours. Writes the indices of the cells which are sensorDistance
+     * around this cell into a caller-owned buffer, in the same order as
+     * getNeighbours(int). Allocates nothing; use World.getCell(int) to reach the
+     * neighbours.
      * 
-     * @param row - the row integer in the current iteration
-     * @param col - the col integer in the current integer
-     * @return true if the Cell being checked falls within the 2D landMass array of
-     *         this Cell's world, false otherwise.
-     */
-    private boolean inBounds(int row, int col) {
-        return ((this.ypos + row) >= 0 && (this.xpos + col) >= 0 && (this.ypos + row) < this.world.getRows()
-                && (this.xpos + col) < this.world.getCols());
-    }
-
-    /**
-     * paint. Draws this Cell on the display.
+     * @param sensorDistance - the sensory distance of the organism in this cell
+     * @param buffer         - the buffer to fill, of at least
+     *                       Neighbourhood.capacity(sensorDistance) entries
+     * @return the number of neighbour indices written
      */
-    @Override
-    public void paint(final Graphics g) {
-        super.paint(g);
-        g.drawRect(0, 0, this.getWidth(), this.getHeight());
+    public int getNeighbours(int sensorDistance, int[] buffer) {
+        return this.world.getNeighbourhood(sensorDistance).collect(this.index, buffer);
     }
 }
@@ -0,0 +1,651 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Checkpoint.
+ * 
+ * <p>
+ * Saves the full state of an Ecosystem to a binary file, and restores it, so
+ * that a run can be resumed exactly where it stopped. A restored world evolves
+ * exactly as the saved one would have, provided it draws from the generator
+ * its Config describes. Any engine can restore a Checkpoint saved by any other
+ * of the same size.
+ * </p>
+ * 
+ * <p>
+ * A Checkpoint holds, in big-endian order:
+ * <ul>
+ * <li>a header: MAGIC, VERSION, the Config as key=value lines, the turn, the
+ * generator state, the rows and columns, the number of Animals and the width
+ * in bytes of an age (2 or 4),</li>
+ * <li>the age of every Animal, in row-major order,</li>
+ * <li>the mother and father of every Animal, as ints, and</li>
+ * <li>the species plane, run-length encoded as a species id byte followed by
+ * a run length in LEB128 variable-length form, covering every cell.</li>
+ * </ul>
+ * Animals are numbered 1, 2, 3 and so on in row-major order, and a parent is
+ * stored as its number, or 0 if it has died. A save makes two passes over the
+ * world: one to number the Animals, and one to write. The ages and lineage are
+ * sized by the count of Animals, so all three sections are written in the
+ * second pass through buffered channel writes at their own offsets. Files are written
+ * beside their destination and moved into place once complete, so a crash
+ * during a save leaves the last Checkpoint intact.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class Checkpoint {
+
+    /** The first four bytes of every Checkpoint: "GOLC". */
+    public static final int MAGIC = 0x474F4C43;
+
+    /** The version of the format written. */
+    public static final int VERSION = 1;
+
+    /** The most Animals a Checkpoint holds. */
+    private static final int MAX_ANIMALS = 1 << 30;
+
+    /** The size of the buffer of each section, in bytes. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private Checkpoint() {
+    }
+
+    /**
+     * save. Writes the full state of a world to a file, replacing it.
+     * 
+     * @param world - the world to save, between turns
+     * @param file  - the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(final Ecosystem world, final Path file) throws IOException {
+        final Census census = new Census(world.getConfig());
+        world.forEachOrganism(census);
+        census.sort();
+        final byte[] config = encode(world.getConfig());
+        final int ageBytes = census.maxAge <= 0xFFFF ? 2 : 4;
+        final long ageStart = headerSize(config.length);
+        final long lineageStart = ageStart + (long) census.count * ageBytes;
+        final long speciesStart = lineageStart + (long) census.count * 8;
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final Section header = Section.writing(channel, 0, (int) ageStart);
+            header.buffer.putInt(MAGIC).putInt(VERSION).putInt(config.length).put(config).putLong(world.getTurn())
+                    .putLong(world.getRandom().getState()).putInt(world.getRows()).putInt(world.getCols())
+                    .putLong(census.count).put((byte) ageBytes);
+            header.flush();
+            final Writer writer = new Writer(census, ageBytes, (long) world.getRows() * world.getCols(),
+                    Section.writing(channel, ageStart, BUFFER_SIZE),
+                    Section.writing(channel, lineageStart, BUFFER_SIZE),
+                    Section.writing(channel, speciesStart, BUFFER_SIZE));
+            world.forEachOrganism(writer);
+            writer.finish();
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(temp);
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * load. Creates the world a Checkpoint was saved from, as its Config
+     * describes, and restores its state. A MappedWorld is restored into a
+     * temporary file rather than the file its Config names, which may still be
+     * the file of the run the Checkpoint was saved from.
+     * 
+     * @param file - the Checkpoint
+     * @return the restored world
+     * @throws IOException if the file cannot be read or is not a Checkpoint
+     */
+    public static Ecosystem load(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final Header header = new Header(channel);
+            final Ecosystem world = header.config.with("mapped.file", "").newEcosystem();
+            restore(channel, header, world);
+            return world;
+        }
+    }
+
+    /**
+     * restore. Replaces the state of a world with that of a Checkpoint of the
+     * same size.
+     * 
+     * @param file  - the Checkpoint
+     * @param world - the world to restore into
+     * @throws IOException if the file cannot be read or is not a Checkpoint
+     */
+    public static void restore(final Path file, final Ecosystem world) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final Header header = new Header(channel);
+            if (header.rows != world.getRows() || header.cols != world.getCols()) {
+                throw new IllegalArgumentException("checkpoint grid cannot differ from the world's - got: "
+                        + header.cols + "x" + header.rows);
+            }
+            restore(channel, header, world);
+        }
+    }
+
+    /**
+     * turnOf. Reads the turn a Checkpoint was saved at, without restoring it.
+     * 
+     * @param file - the Checkpoint
+     * @return the number of turns the saved world had run
+     * @throws IOException if the file cannot be read or is not a Checkpoint
+     */
+    public static long turnOf(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Header(channel).turn;
+        }
+    }
+
+    /**
+     * restore. Reads the sections of an open Checkpoint into a world.
+     * 
+     * @param channel - the Checkpoint, its header read
+     * @param header  - the header
+     * @param world   - the world to restore into
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    private static void restore(final FileChannel channel, final Header header, final Ecosystem world)
+            throws IOException {
+        final long lineageStart = header.size + header.animals * header.ageBytes;
+        final Section ages = Section.reading(channel, header.size);
+        final Section lineage = Section.reading(channel, lineageStart);
+        final Section species = Section.reading(channel, lineageStart + header.animals * 8);
+        world.reset(header.turn);
+        world.getRandom().setState(header.randomState);
+        final Config config = world.getConfig();
+        final long cells = (long) header.rows * header.cols;
+        long index = 0;
+        int animal = 0;
+        while (index < cells) {
+            species.fill(1);
+            final byte kind = species.buffer.get();
+            final long length = species.getVarLong();
+            if (kind < 0 || kind >= config.getSpeciesCount() || length < 1 || length > cells - index) {
+                throw new IOException("corrupt checkpoint - run of " + length + " species " + kind + " at cell "
+                        + index);
+            }
+            if (kind == Species.EMPTY) {
+                index += length;
+                continue;
+            }
+            for (final long end = index + length; index < end; index++) {
+                if (config.isAnimal(kind)) {
+                    if (++animal > header.animals) {
+                        throw new IOException("corrupt checkpoint - more than " + header.animals + " animals");
+                    }
+                    ages.fill(header.ageBytes);
+                    final int age = header.ageBytes == 2 ? ages.buffer.getShort() & 0xFFFF : ages.buffer.getInt();
+                    lineage.fill(8);
+                    world.place(index, kind, age, animal, lineage.buffer.getInt(), lineage.buffer.getInt());
+                } else {
+                    world.place(index, kind, 0, 0, 0, 0);
+                }
+            }
+        }
+        if (animal != header.animals) {
+            throw new IOException("corrupt checkpoint - expected " + header.animals + " animals, got: " + animal);
+        }
+    }
+
+    /**
+     * encode. Writes a Config as sorted key=value lines.
+     * 
+     * @param config - the Config
+     * @return the lines in UTF-8
+     */
+    static byte[] encode(final Config config) {
+        final Properties properties = config.toProperties();
+        final StringBuilder text = new StringBuilder();
+        for (String key : new TreeSet<String>(properties.stringPropertyNames())) {
+            text.append(key).append('=').append(properties.getProperty(key)).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * decode. Reads a Config written by encode.
+     * 
+     * @param text - the lines in UTF-8
+     * @return the Config
+     * @throws IOException if the lines cannot be read
+     */
+    static Config decode(final byte[] text) throws IOException {
+        final Properties properties = new Properties();
+        properties.load(new StringReader(new String(text, StandardCharsets.UTF_8)));
+        return new Config(properties);
+    }
+
+    /**
+     * headerSize. Gets the size of a header holding a Config of some length.
+     * 
+     * @param configLength - the length of the encoded Config in bytes
+     * @return the size of the header in bytes
+     */
+    private static int headerSize(final int configLength) {
+        return 4 + 4 + 4 + configLength + 8 + 8 + 4 + 4 + 8 + 1;
+    }
+
+    /**
+     * Header.
+     * 
+     * The header of a Checkpoint, read from an open file.
+     */
+    private static final class Header {
+
+        /** The Config of the saved world. */
+        private final Config config;
+
+        /** The turn and generator state of the saved world. */
+        private final long turn;
+        private final long randomState;
+
+        /** The number of rows and columns in the saved world. */
+        private final int rows;
+        private final int cols;
+
+        /** The number of Animals in the saved world. */
+        private final long animals;
+
+        /** The width in bytes of each age. */
+        private final int ageBytes;
+
+        /** The size of the header in bytes. */
+        private final long size;
+
+        /**
+         * Constructor. Reads the header of a Checkpoint.
+         * 
+         * @param channel - the Checkpoint
+         * @throws IOException if the file cannot be read or is not a Checkpoint
+         */
+        private Header(final FileChannel channel) throws IOException {
+            final Section in = Section.reading(channel, 0);
+            in.fill(12);
+            final int magic = in.buffer.getInt();
+            if (magic != MAGIC) {
+                throw new IOException("not a checkpoint - got magic: " + Integer.toHexString(magic));
+            }
+            final int version = in.buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("unsupported checkpoint version - got: " + version);
+            }
+            final int configLength = in.buffer.getInt();
+            if (configLength < 0 || configLength > BUFFER_SIZE - headerSize(0)) {
+                throw new IOException("corrupt checkpoint - config of " + configLength + " bytes");
+            }
+            in.fill(headerSize(configLength) - 12);
+            final byte[] text = new byte[configLength];
+            in.buffer.get(text);
+            this.config = decode(text);
+            this.turn = in.buffer.getLong();
+            this.randomState = in.buffer.getLong();
+            this.rows = in.buffer.getInt();
+            this.cols = in.buffer.getInt();
+            this.animals = in.buffer.getLong();
+            this.ageBytes = in.buffer.get();
+            if (this.rows != this.config.getGridY() || this.cols != this.config.getGridX() || this.animals < 0
+                    || this.animals > MAX_ANIMALS || (this.ageBytes != 2 && this.ageBytes != 4)) {
+                throw new IOException("corrupt checkpoint - header does not match its config");
+            }
+            this.size = headerSize(configLength);
+        }
+    }
+
+    /**
+     * Section.
+     * 
+     * A buffered run of bytes at a fixed offset in a file, written or read
+     * with positional channel operations, so that several Sections of one
+     * file can be streamed at once.
+     */
+    private static final class Section {
+
+        /** The file. */
+        private final FileChannel channel;
+
+        /** The buffered bytes. */
+        private final ByteBuffer buffer;
+
+        /** The offset in the file of the next bytes to write or read. */
+        private long position;
+
+        /**
+         * Constructor. Creates a Section starting at an offset in a file.
+         * 
+         * @param channel  - the file
+         * @param position - the offset of the Section
+         * @param buffer   - the buffer
+         */
+        private Section(final FileChannel channel, final long position, final ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        /**
+         * writing. Creates a Section to be written, with an empty buffer.
+         * 
+         * @param channel  - the file
+         * @param position - the offset of the Section
+         * @param capacity - the size of the buffer in bytes
+         * @return the Section
+         */
+        private static Section writing(final FileChannel channel, final long position, final int capacity) {
+            return new Section(channel, position, ByteBuffer.allocateDirect(capacity));
+        }
+
+        /**
+         * reading. Creates a Section to be read, with nothing buffered yet.
+         * 
+         * @param channel  - the file
+         * @param position - the offset of the Section
+         * @return the Section
+         */
+        private static Section reading(final FileChannel channel, final long position) {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.limit(0);
+            return new Section(channel, position, buffer);
+        }
+
+        /**
+         * reserve. Makes room in a writing Section for some bytes, writing out
+         * the buffer if it is too full.
+         * 
+         * @param bytes - the number of bytes about to be put
+         * @throws IOException if the file cannot be written
+         */
+        private void reserve(final int bytes) throws IOException {
+            if (this.buffer.remaining() < bytes) {
+                this.flush();
+            }
+        }
+
+        /**
+         * flush. Writes out the bytes put so far.
+         * 
+         * @throws IOException if the file cannot be written
+         */
+        private void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.position += this.channel.write(this.buffer, this.position);
+            }
+            this.buffer.clear();
+        }
+
+        /**
+         * fill. Reads into a reading Section until some bytes are buffered.
+         * 
+         * @param bytes - the number of bytes about to be got
+         * @throws IOException if the file cannot be read or ends first
+         */
+        private void fill(final int bytes) throws IOException {
+            if (this.buffer.remaining() >= bytes) {
+                return;
+            }
+            this.buffer.compact();
+            while (this.buffer.position() < bytes) {
+                final int read = this.channel.read(this.buffer, this.position);
+                if (read < 0) {
+                    throw new EOFException("checkpoint ends early at byte " + this.position);
+                }
+                this.position += read;
+            }
+            this.buffer.flip();
+        }
+
+        /**
+         * putVarLong. Puts a non-negative long in LEB128 form: seven bits per
+         * byte, lowest first, with the top bit set on every byte but the last.
+         * 
+         * @param value - the value
+         * @throws IOException if the file cannot be written
+         */
+        private void putVarLong(long value) throws IOException {
+            this.reserve(10);
+            while ((value & ~0x7FL) != 0) {
+                this.buffer.put((byte) (value & 0x7F | 0x80));
+                value >>>= 7;
+            }
+            this.buffer.put((byte) value);
+        }
+
+        /**
+         * getVarLong. Gets a long put by putVarLong.
+         * 
+         * @return the value
+         * @throws IOException if the file cannot be read or is corrupt
+         */
+        private long getVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                this.fill(1);
+                final byte b = this.buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("corrupt checkpoint - run length longer than 64 bits");
+        }
+    }
+
+    /**
+     * Census.
+     * 
+     * The first pass of a save: counts the Animals, finds the oldest, and
+     * pairs each lineage id with the number of its Animal, sorted by id for
+     * binary search.
+     */
+    private static final class Census implements Ecosystem.OrganismVisitor {
+
+        /** The configuration of the world, telling Animals from Plants. */
+        private final Config config;
+
+        /** Each Animal's lineage id in the high half and number in the low. */
+        private long[] keys = new long[1024];
+
+        /** The number of Animals. */
+        private int count;
+
+        /** The largest age of any Animal. */
+        private int maxAge;
+
+        /**
+         * Constructor. Creates an empty Census.
+         * 
+         * @param config - the configuration of the world
+         */
+        private Census(final Config config) {
+            this.config = config;
+        }
+
+        @Override
+        public void visit(final long index, final byte species, final int age, final int id, final int mother,
+                final int father) {
+            if (!this.config.isAnimal(species)) {
+                return;
+            }
+            if (this.count == this.keys.length) {
+                if (this.count == MAX_ANIMALS) {
+                    throw new IllegalArgumentException("checkpoint cannot hold > " + MAX_ANIMALS + " animals");
+                }
+                this.keys = Arrays.copyOf(this.keys, Math.min(2 * this.keys.length, MAX_ANIMALS));
+            }
+            this.count++;
+            this.keys[this.count - 1] = (long) id << 32 | this.count;
+            this.maxAge = Math.max(this.maxAge, age);
+        }
+
+        /**
+         * sort. Orders the keys by lineage id, ready for numberOf.
+         */
+        private void sort() {
+            Arrays.parallelSort(this.keys, 0, this.count);
+        }
+
+        /**
+         * numberOf. Gets the number of the living Animal with a lineage id.
+         * 
+         * @param id - the lineage id
+         * @return the number, or 0 if no living Animal has the id
+         */
+        private int numberOf(final int id) {
+            if (id == Lineage.PROGENITOR) {
+                return 0;
+            }
+            int low = 0;
+            int high = this.count - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final long key = this.keys[mid] >> 32;
+                if (key < id) {
+                    low = mid + 1;
+                } else if (key > id) {
+                    high = mid - 1;
+                } else {
+                    return (int) this.keys[mid];
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Writer.
+     * 
+     * The second pass of a save: streams the ages, the lineage and the runs
+     * of the species plane into their Sections.
+     */
+    private static final class Writer implements Ecosystem.OrganismVisitor {
+
+        /** The Animal numbers of the first pass. */
+        private final Census census;
+
+        /** The width in bytes of each age. */
+        private final int ageBytes;
+
+        /** The number of cells in the world. */
+        private final long cells;
+
+        /** The Sections being written. */
+        private final Section ages;
+        private final Section lineage;
+        private final Section species;
+
+        /** The species and length of the run being built. */
+        private byte runSpecies;
+        private long runLength;
+
+        /** The index of the cell after the last one visited. */
+        private long next;
+
+        /**
+         * Constructor. Creates a Writer.
+         * 
+         * @param census   - the Animal numbers of the first pass
+         * @param ageBytes - the width in bytes of each age
+         * @param cells    - the number of cells in the world
+         * @param ages     - the Section of ages
+         * @param lineage  - the Section of parents
+         * @param species  - the Section of species runs
+         */
+        private Writer(final Census census, final int ageBytes, final long cells, final Section ages,
+                final Section lineage, final Section species) {
+            this.census = census;
+            this.ageBytes = ageBytes;
+            this.cells = cells;
+            this.ages = ages;
+            this.lineage = lineage;
+            this.species = species;
+        }
+
+        @Override
+        public void visit(final long index, final byte kind, final int age, final int id, final int mother,
+                final int father) {
+            try {
+                this.run(Species.EMPTY, index - this.next);
+                this.run(kind, 1);
+                this.next = index + 1;
+                if (this.census.config.isAnimal(kind)) {
+                    this.ages.reserve(this.ageBytes);
+                    if (this.ageBytes == 2) {
+                        this.ages.buffer.putShort((short) age);
+                    } else {
+                        this.ages.buffer.putInt(age);
+                    }
+                    this.lineage.reserve(8);
+                    this.lineage.buffer.putInt(this.census.numberOf(mother)).putInt(this.census.numberOf(father));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * run. Extends the run being built, or ends it and starts another.
+         * 
+         * @param kind   - the species of the cells
+         * @param length - the number of cells, possibly 0
+         * @throws IOException if the file cannot be written
+         */
+        private void run(final byte kind, final long length) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            if (kind != this.runSpecies) {
+                this.endRun();
+                this.runSpecies = kind;
+            }
+            this.runLength += length;
+        }
+
+        /**
+         * endRun. Writes the run being built, if any.
+         * 
+         * @throws IOException if the file cannot be written
+         */
+        private void endRun() throws IOException {
+            if (this.runLength > 0) {
+                this.species.reserve(1);
+                this.species.buffer.put(this.runSpecies);
+                this.species.putVarLong(this.runLength);
+                this.runLength = 0;
+            }
+        }
+
+        /**
+         * finish. Ends the species plane with the empty cells after the last
+         * organism, and writes out every Section.
+         * 
+         * @throws IOException if the file cannot be written
+         */
+        private void finish() throws IOException {
+            this.run(Species.EMPTY, this.cells - this.next);
+            this.endRun();
+            this.ages.flush();
+            this.lineage.flush();
+            this.species.flush();
+        }
+    }
+}
@@ -0,0 +1,653 @@
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Config.
+ * 
+ * <p>
+ * The typed configuration of a run: world dimensions, engine, generator, spawn
+ * densities and the rule parameters of every species. A Config is read from a
+ * properties file and/or key=value arguments, validated once, and resolved
+ * into primitive fields and SpeciesRules which the engines read directly.
+ * Every key has a default, so an empty Config reproduces the built-in game.
+ * </p>
+ * 
+ * <p>
+ * Keys:
+ * <ul>
+ * <li>grid.x, grid.y - the dimensions of the world,</li>
+ * <li>engine - object (World), grid (GridWorld), sparse (SparseWorld) or
+ * mapped (MappedWorld),</li>
+ * <li>topology - clipped, toroidal or reflective; see Topology,</li>
+ * <li>threads - the parallelism of a GridWorld; other engines run on one
+ * thread,</li>
+ * <li>pool - true for a World to recycle the Organisms which die instead of
+ * allocating one for every birth; other engines have no Organisms,</li>
+ * <li>planes - true for a GridWorld to count the neighbours of Plants sensing
+ * one cell 64 cells at a time, from BitPlanes; the turns are the same either
+ * way,</li>
+ * <li>mapped.file - the file a MappedWorld keeps its grid in; a temporary
+ * file if blank,</li>
+ * <li>fps - the most frames the Display draws per second,</li>
+ * <li>tps - the turns run per second while playing; 0 for flat out,</li>
+ * <li>random - splitmix (SplitMix64) or table (RandomGenerator),</li>
+ * <li>seed - the seed of the generator,</li>
+ * <li>species - the names of the species, which are given ids from 1 in
+ * this order; by default plant, herbivore, carnivore, omnivore,</li>
+ * <li>turn.order - the order the species take their turns in,</li>
+ * <li>spawn.order - the order the faces of the spawn die are handed out in,
+ * from the top,</li>
+ * <li>spawn.&lt;species&gt; - how many faces of the 99-sided die rolled for
+ * each cell by letThereBeLight place that species; the remaining faces leave
+ * the cell empty,</li>
+ * <li>&lt;species&gt;.kind - plant or animal,</li>
+ * <li>&lt;species&gt;.colour - the colour drawn, as #RRGGBB,</li>
+ * <li>&lt;species&gt;.eats - the names of the species eaten, comma
+ * separated, and</li>
+ * <li>&lt;species&gt;.lifespan, .sensor, .like, .food, .empty and .chance -
+ * see SpeciesRules; lifespan is at most MAX_LIFESPAN.</li>
+ * </ul>
+ * &lt;species&gt; is any name declared by the species key. The built-in
+ * species default to the built-in game and any other to a generic animal.
+ * Both orders must name every species once; when species is changed and an
+ * order is not, that order is the order of declaration.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class Config {
+
+    /** The default X-dimension of the World grid. */
+    public static final int DEFAULT_GRID_X = 25;
+
+    /** The default Y-dimension of the World grid. */
+    public static final int DEFAULT_GRID_Y = 25;
+
+    /**
+     * The longest lifespan of a species. The array engines keep ages in 16
+     * bits, and an Animal lives to lifespan + 1 turns without eating.
+     */
+    public static final int MAX_LIFESPAN = Short.MAX_VALUE - 1;
+
+    /** The number of faces of the die rolled for each cell by letThereBeLight. */
+    public static final int SPAWN_DIE = 99;
+
+    /** The keys every species has, after its name and a dot. */
+    private static final String[] SPECIES_KEYS = { "kind", "colour", "eats", "lifespan", "sensor", "like", "food",
+            "empty", "chance" };
+
+    /** The default value of every key. */
+    private static final Map<String, String> DEFAULTS = new TreeMap<String, String>();
+
+    /** The default values of a species which is not built in, by key after its name. */
+    private static final Map<String, String> GENERIC = new TreeMap<String, String>();
+
+    static {
+        DEFAULTS.put("grid.x", Integer.toString(DEFAULT_GRID_X));
+        DEFAULTS.put("grid.y", Integer.toString(DEFAULT_GRID_Y));
+        DEFAULTS.put("engine", "object");
+        DEFAULTS.put("topology", "clipped");
+        DEFAULTS.put("threads", "1");
+        DEFAULTS.put("pool", "false");
+        DEFAULTS.put("planes", "true");
+        DEFAULTS.put("mapped.file", "");
+        DEFAULTS.put("fps", "30");
+        DEFAULTS.put("tps", "10");
+        DEFAULTS.put("random", "splitmix");
+        DEFAULTS.put("seed", Long.toString(SplitMix64.DEFAULT_SEED));
+        DEFAULTS.put("species", "plant,herbivore,carnivore,omnivore");
+        DEFAULTS.put("turn.order", "plant,herbivore,carnivore,omnivore");
+        DEFAULTS.put("spawn.order", "herbivore,plant,carnivore,omnivore");
+        defaults("plant", "plant", "#00FF00", "", 0, 1, 2, 0, 3, 100, 20);
+        defaults("herbivore", "animal", "#FFFF00", "plant", 5, 1, 1, 2, 2, 0, 19);
+        defaults("carnivore", "animal", "#FF0000", "herbivore,omnivore", 5, 1, 1, 2, 3, 0, 10);
+        defaults("omnivore", "animal", "#0000FF", "plant,herbivore,carnivore", 5, 1, 1, 1, 3, 0, 5);
+        for (String key : SPECIES_KEYS) {
+            GENERIC.put(key, DEFAULTS.get("herbivore." + key));
+        }
+        GENERIC.put("colour", "#808080");
+        GENERIC.put("eats", "");
+        GENERIC.put("food", "0");
+    }
+
+    /** The Config with every key at its default. */
+    public static final Config DEFAULT = new Config(new Properties());
+
+    /** The raw values, defaults included. */
+    private final Map<String, String> values;
+
+    /** The resolved values. */
+    private final int gridX;
+    private final int gridY;
+    private final int threads;
+    private final boolean pool;
+    private final boolean planes;
+    private final int fps;
+    private final int tps;
+    private final long seed;
+    private final String engine;
+    private final String mappedFile;
+    private final String random;
+    private final Topology topology;
+
+    /** The rules of each species, indexed by species id. EMPTY has none. */
+    private final SpeciesRules[] rules;
+
+    /** The species ids in the order they take their turns. */
+    private final byte[] turnOrder;
+
+    /** The species placed by each face of the spawn die. */
+    private final byte[] spawnTable = new byte[SPAWN_DIE];
+
+    /**
+     * Constructor. Creates a Config from a set of values, validating them.
+     * 
+     * @param overrides - values replacing the defaults
+     */
+    public Config(final Properties overrides) {
+        this.values = new TreeMap<String, String>(DEFAULTS);
+        final String[] names = split("species", overrides.getProperty("species", DEFAULTS.get("species")));
+        if (names.length < 1 || names.length >= Species.MAX) {
+            throw new IllegalArgumentException("species cannot number < 1 or > " + (Species.MAX - 1) + " - got: "
+                    + names.length);
+        }
+        for (String name : names) {
+            if (!name.matches("[a-z][a-z0-9_]*") || name.equals("empty") || name.equals("spawn")
+                    || name.equals("turn")) {
+                throw new IllegalArgumentException("species name must be a lower case word - got: " + name);
+            }
+            if (!DEFAULTS.containsKey(name + ".kind")) {
+                for (Map.Entry<String, String> generic : GENERIC.entrySet()) {
+                    this.values.put(name + "." + generic.getKey(), generic.getValue());
+                }
+                this.values.put("spawn." + name, "0");
+            }
+        }
+        for (String key : overrides.stringPropertyNames()) {
+            if (!this.values.containsKey(key)) {
+                throw new IllegalArgumentException("unknown config key - got: " + key);
+            }
+            this.values.put(key, overrides.getProperty(key).trim());
+        }
+        this.gridX = this.positive("grid.x");
+        this.gridY = this.positive("grid.y");
+        this.threads = this.positive("threads");
+        this.pool = this.oneOf("pool", "false", "true").equals("true");
+        this.planes = this.oneOf("planes", "false", "true").equals("true");
+        this.fps = this.positive("fps");
+        this.tps = this.atLeast("tps", 0);
+        try {
+            this.seed = Long.parseLong(this.values.get("seed"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("seed must be an integer - got: " + this.values.get("seed"), e);
+        }
+        this.engine = this.oneOf("engine", "object", "grid", "sparse", "mapped");
+        this.mappedFile = this.values.get("mapped.file");
+        this.random = this.oneOf("random", "splitmix", "table");
+        this.topology = Topology.valueOf(
+                this.oneOf("topology", "clipped", "toroidal", "reflective").toUpperCase(Locale.ROOT));
+        this.rules = new SpeciesRules[names.length + 1];
+        for (int n = 0; n < names.length; n++) {
+            this.rules[n + 1] = this.resolveRules((byte) (n + 1), names);
+        }
+        final boolean builtIn = Arrays.equals(names, split("species", DEFAULTS.get("species")));
+        this.turnOrder = this.order("turn.order", names, builtIn);
+        int face = SPAWN_DIE;
+        for (byte species : this.order("spawn.order", names, builtIn)) {
+            final int faces = this.atLeast("spawn." + names[species - 1], 0);
+            if (faces > face) {
+                throw new IllegalArgumentException("spawn faces cannot total > " + SPAWN_DIE + " - got: "
+                        + (SPAWN_DIE - face + faces));
+            }
+            Arrays.fill(this.spawnTable, face - faces, face, species);
+            face -= faces;
+        }
+    }
+
+    /**
+     * load. Reads a Config from a properties file.
+     * 
+     * @param file - the file to read
+     * @return the Config
+     * @throws IOException if the file cannot be read
+     */
+    public static Config load(final Path file) throws IOException {
+        final Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        return new Config(properties);
+    }
+
+    /**
+     * fromArgs. Reads a Config from command-line arguments. An argument
+     * --config=file loads a properties file; every other argument is a
+     * key=value pair overriding the file.
+     * 
+     * @param args - the arguments
+     * @return the Config
+     * @throws IOException if a config file cannot be read
+     */
+    public static Config fromArgs(final String[] args) throws IOException {
+        final Properties properties = new Properties();
+        final Properties overrides = new Properties();
+        for (String arg : args) {
+            final int equals = arg.indexOf('=');
+            if (equals < 0) {
+                throw new IllegalArgumentException("argument must be key=value - got: " + arg);
+            }
+            final String key = arg.substring(0, equals);
+            final String value = arg.substring(equals + 1);
+            if (key.equals("--config")) {
+                try (Reader reader = Files.newBufferedReader(Paths.get(value))) {
+                    properties.load(reader);
+                }
+            } else {
+                overrides.setProperty(key, value);
+            }
+        }
+        properties.putAll(overrides);
+        return new Config(properties);
+    }
+
+    /**
+     * with. Creates a copy of this Config with one value replaced.
+     * 
+     * @param key   - the key to replace
+     * @param value - the new value
+     * @return the new Config
+     */
+    public Config with(final String key, final String value) {
+        final Properties properties = this.toProperties();
+        properties.setProperty(key, value);
+        return new Config(properties);
+    }
+
+    /**
+     * toProperties. Gets every value of this Config, defaults included.
+     * 
+     * @return the values as Properties
+     */
+    public Properties toProperties() {
+        final Properties properties = new Properties();
+        properties.putAll(this.values);
+        return properties;
+    }
+
+    /**
+     * get. Gets the raw value of a key.
+     * 
+     * @param key - the key
+     * @return the value
+     */
+    public String get(final String key) {
+        return this.values.get(key);
+    }
+
+    /**
+     * getGridX. Gets the X-dimension of the World grid.
+     * 
+     * @return the number of columns
+     */
+    public int getGridX() {
+        return this.gridX;
+    }
+
+    /**
+     * getGridY. Gets the Y-dimension of the World grid.
+     * 
+     * @return the number of rows
+     */
+    public int getGridY() {
+        return this.gridY;
+    }
+
+    /**
+     * getTopology. Gets how the edges of the world behave.
+     * 
+     * @return the Topology
+     */
+    public Topology getTopology() {
+        return this.topology;
+    }
+
+    /**
+     * getThreads. Gets the parallelism of a GridWorld.
+     * 
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * isPooled. Determines whether a World recycles its Organisms.
+     * 
+     * @return true if Organisms which die are kept for reuse
+     */
+    public boolean isPooled() {
+        return this.pool;
+    }
+
+    /**
+     * isBitPlanes. Determines whether a GridWorld counts the neighbours of
+     * Plants sensing one cell from BitPlanes.
+     * 
+     * @return true if those counts are word-parallel
+     */
+    public boolean isBitPlanes() {
+        return this.planes;
+    }
+
+    /**
+     * getMappedFile. Gets the file a MappedWorld keeps its grid in.
+     * 
+     * @return the path, or an empty string for a temporary file
+     */
+    public String getMappedFile() {
+        return this.mappedFile;
+    }
+
+    /**
+     * getFps. Gets the most frames the Display draws per second.
+     * 
+     * @return the frame rate cap
+     */
+    public int getFps() {
+        return this.fps;
+    }
+
+    /**
+     * getTps. Gets the turns run per second while playing.
+     * 
+     * @return the target turn rate; 0 for flat out
+     */
+    public int getTps() {
+        return this.tps;
+    }
+
+    /**
+     * getSeed. Gets the seed of the generator.
+     * 
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * getRules. Gets the rules of a species.
+     * 
+     * @param species - the species id
+     * @return the SpeciesRules of the species
+     */
+    public SpeciesRules getRules(final byte species) {
+        return this.rules[species];
+    }
+
+    /**
+     * getSpeciesCount. Gets the number of species ids in use, including
+     * Species.EMPTY; every id is below this.
+     * 
+     * @return the number of species plus one
+     */
+    public int getSpeciesCount() {
+        return this.rules.length;
+    }
+
+    /**
+     * getName. Gets the display name of a species.
+     * 
+     * @param species - the species id, possibly Species.EMPTY
+     * @return the name
+     */
+    public String getName(final byte species) {
+        return species == Species.EMPTY ? "Empty" : this.rules[species].name;
+    }
+
+    /**
+     * isAnimal. Determines whether a species is an Animal, with an age and a
+     * lineage.
+     * 
+     * @param species - the species id, possibly Species.EMPTY
+     * @return true if the species is declared an animal
+     */
+    public boolean isAnimal(final byte species) {
+        return species != Species.EMPTY && !this.rules[species].plant;
+    }
+
+    /**
+     * getTurnOrder. Gets the order the species take their turns in.
+     * 
+     * @return the species ids, in turn order
+     */
+    public byte[] getTurnOrder() {
+        return this.turnOrder.clone();
+    }
+
+    /**
+     * spawn. Gets the species placed by a roll of the spawn die.
+     * 
+     * @param roll - a roll from 0 to SPAWN_DIE - 1
+     * @return the species id to place, possibly Species.EMPTY
+     */
+    public byte spawn(final int roll) {
+        return this.spawnTable[roll];
+    }
+
+    /**
+     * newRandom. Creates a generator of the configured kind and seed.
+     * 
+     * @return a new RandomSource
+     */
+    public RandomSource newRandom() {
+        if (this.random.equals("table")) {
+            return new RandomGenerator((int) this.seed);
+        }
+        return new SplitMix64(this.seed);
+    }
+
+    /**
+     * newEcosystem. Creates a world of the configured engine.
+     * 
+     * @return a new, unpopulated Ecosystem
+     */
+    public Ecosystem newEcosystem() {
+        if (this.engine.equals("grid")) {
+            return new GridWorld(this);
+        }
+        if (this.engine.equals("sparse")) {
+            return new SparseWorld(this);
+        }
+        if (this.engine.equals("mapped")) {
+            return new MappedWorld(this);
+        }
+        return new World(this);
+    }
+
+    /**
+     * defaults. Records the default values of a built-in species.
+     */
+    private static void defaults(final String name, final String kind, final String colour, final String eats,
+            final int lifespan, final int sensor, final int like, final int food, final int empty, final int chance,
+            final int spawn) {
+        DEFAULTS.put(name + ".kind", kind);
+        DEFAULTS.put(name + ".colour", colour);
+        DEFAULTS.put(name + ".eats", eats);
+        DEFAULTS.put(name + ".lifespan", Integer.toString(lifespan));
+        DEFAULTS.put(name + ".sensor", Integer.toString(sensor));
+        DEFAULTS.put(name + ".like", Integer.toString(like));
+        DEFAULTS.put(name + ".food", Integer.toString(food));
+        DEFAULTS.put(name + ".empty", Integer.toString(empty));
+        DEFAULTS.put(name + ".chance", Integer.toString(chance));
+        DEFAULTS.put("spawn." + name, Integer.toString(spawn));
+    }
+
+    /**
+     * split. Splits a comma separated list of species names.
+     * 
+     * @param key   - the key the list was read from
+     * @param value - the list
+     * @return the names, trimmed; none for a blank list
+     */
+    private static String[] split(final String key, final String value) {
+        final List<String> names = new ArrayList<String>();
+        for (String name : value.split(",")) {
+            final String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                if (names.contains(trimmed)) {
+                    throw new IllegalArgumentException(key + " cannot name a species twice - got: " + trimmed);
+                }
+                names.add(trimmed);
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    /**
+     * idOf. Looks up the id of a species by name.
+     * 
+     * @param key   - the key the name was read from
+     * @param name  - the name
+     * @param names - the declared species, in id order from 1
+     * @return the species id
+     */
+    private static byte idOf(final String key, final String name, final String[] names) {
+        for (int n = 0; n < names.length; n++) {
+            if (names[n].equals(name)) {
+                return (byte) (n + 1);
+            }
+        }
+        throw new IllegalArgumentException(key + " must name declared species - got: " + name);
+    }
+
+    /**
+     * order. Reads an order of every species.
+     * 
+     * @param key     - the key
+     * @param names   - the declared species, in id order from 1
+     * @param builtIn - false to take the order of declaration when the key is
+     *                at its default
+     * @return the species ids, in order
+     */
+    private byte[] order(final String key, final String[] names, final boolean builtIn) {
+        final byte[] order = new byte[names.length];
+        if (!builtIn && this.values.get(key).equals(DEFAULTS.get(key))) {
+            for (int n = 0; n < names.length; n++) {
+                order[n] = (byte) (n + 1);
+            }
+            return order;
+        }
+        final String[] listed = split(key, this.values.get(key));
+        if (listed.length != names.length) {
+            throw new IllegalArgumentException(key + " must name every species once - got: " + this.values.get(key));
+        }
+        for (int n = 0; n < listed.length; n++) {
+            order[n] = idOf(key, listed[n], names);
+        }
+        return order;
+    }
+
+    /**
+     * resolveRules. Builds the SpeciesRules of a species from its keys.
+     * 
+     * @param species - the species id
+     * @param names   - the declared species, in id order from 1
+     * @return the SpeciesRules
+     */
+    private SpeciesRules resolveRules(final byte species, final String[] names) {
+        final String name = names[species - 1];
+        final String prefix = name + ".";
+        final boolean plant = this.oneOf(prefix + "kind", "plant", "animal").equals("plant");
+        final Color colour;
+        try {
+            colour = Color.decode(this.values.get(prefix + "colour"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(prefix + "colour must be #RRGGBB - got: "
+                    + this.values.get(prefix + "colour"), e);
+        }
+        int prey = 0;
+        for (String eaten : split(prefix + "eats", this.values.get(prefix + "eats"))) {
+            prey |= 1 << idOf(prefix + "eats", eaten, names);
+        }
+        return new SpeciesRules(species, Character.toUpperCase(name.charAt(0)) + name.substring(1), colour, plant,
+                prey, this.between(prefix + "lifespan", 0, MAX_LIFESPAN), this.atLeast(prefix + "sensor", 0),
+                this.atLeast(prefix + "like", 0), this.atLeast(prefix + "food", 0), this.atLeast(prefix + "empty", 0),
+                this.atLeast(prefix + "chance", 0));
+    }
+
+    /**
+     * atLeast. Parses an int value which must not be below a minimum.
+     * 
+     * @param key     - the key
+     * @param minimum - the smallest valid value
+     * @return the value
+     */
+    private int atLeast(final String key, final int minimum) {
+        final int value;
+        try {
+            value = Integer.parseInt(this.values.get(key));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be an integer - got: " + this.values.get(key), e);
+        }
+        if (value < minimum) {
+            throw new IllegalArgumentException(key + " cannot be < " + minimum + " - got: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * between. Parses an int value which must lie within a range.
+     * 
+     * @param key     - the key
+     * @param minimum - the smallest valid value
+     * @param maximum - the largest valid value
+     * @return the value
+     */
+    private int between(final String key, final int minimum, final int maximum) {
+        final int value = this.atLeast(key, minimum);
+        if (value > maximum) {
+            throw new IllegalArgumentException(key + " cannot be > " + maximum + " - got: " + value);
+        }
+        return value;
+    }
+
+    /**
+     * positive. Parses an int value which must be at least 1.
+     * 
+     * @param key - the key
+     * @return the value
+     */
+    private int positive(final String key) {
+        return this.atLeast(key, 1);
+    }
+
+    /**
+     * oneOf. Reads a value which must be one of a set of choices.
+     * 
+     * @param key     - the key
+     * @param choices - the valid values
+     * @return the value
+     */
+    private String oneOf(final String key, final String... choices) {
+        final String value = this.values.get(key);
+        for (String choice : choices) {
+            if (choice.equals(value)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(key + " must be one of " + Arrays.toString(choices) + " - got: " + value);
+    }
+}
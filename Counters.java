@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+/**
+ * Counters.
+ * 
+ * <p>
+ * The counts an Ecosystem keeps of what happened during one turn, for its
+ * Metrics: births, moves, starvations, eats by predator and prey, failed
+ * reproductions by reason, organisms placed or removed from outside the
+ * turns, Organism objects allocated or reused, and the wall time of each
+ * phase. Every count is a long in one flat
+ * array, so counting is a single increment and merging the Counters of
+ * several threads is a single loop. A Counters is used by one thread at a
+ * time.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class Counters {
+
+    /** A reproduction failed for want of potential mates. */
+    public static final int LIKE_NB = 0;
+
+    /** A reproduction failed for want of food. */
+    public static final int FOOD_NB = 1;
+
+    /** A reproduction failed for want of empty cells. */
+    public static final int EMPTY_NB = 2;
+
+    /** The number of reasons a reproduction can fail. */
+    public static final int REASONS = 3;
+
+    /** The offsets of each count in the array, each indexed by species id. */
+    static final int BIRTHS = 0;
+    static final int MOVES = BIRTHS + Species.MAX;
+    static final int STARVED = MOVES + Species.MAX;
+    static final int PLACED = STARVED + Species.MAX;
+    static final int PHASE_NANOS = PLACED + Species.MAX;
+    static final int ALLOCATED = PHASE_NANOS + Species.MAX;
+    static final int REUSED = ALLOCATED + Species.MAX;
+    static final int EATS = REUSED + Species.MAX;
+    static final int FAILURES = EATS + Species.MAX * Species.MAX;
+    static final int SIZE = FAILURES + Species.MAX * REASONS;
+
+    /** The counts. */
+    final long[] values = new long[SIZE];
+
+    /**
+     * count. Counts an event of a turn: a BIRTH, a MOVE, an EAT, which is
+     * also a MOVE, or a DEATH, which is a starvation.
+     * 
+     * @param type    - the Events type
+     * @param species - the species id of the organism
+     * @param prey    - the species id eaten, or Species.EMPTY
+     */
+    public void count(final byte type, final byte species, final byte prey) {
+        switch (type) {
+        case Events.BIRTH:
+            this.values[BIRTHS + species]++;
+            break;
+        case Events.EAT:
+            this.values[EATS + species * Species.MAX + prey]++;
+            this.values[MOVES + species]++;
+            break;
+        case Events.MOVE:
+            this.values[MOVES + species]++;
+            break;
+        default:
+            this.values[STARVED + species]++;
+            break;
+        }
+    }
+
+    /**
+     * failed. Counts a reproduction which failed. Only the first condition
+     * which failed, in the order LIKE_NB, FOOD_NB, EMPTY_NB, is counted.
+     * 
+     * @param species - the species id of the Animal
+     * @param reason  - LIKE_NB, FOOD_NB or EMPTY_NB
+     */
+    public void failed(final byte species, final int reason) {
+        this.values[FAILURES + species * REASONS + reason]++;
+    }
+
+    /**
+     * place. Counts organisms added to, or removed from, the grid other than
+     * by the turns, as by setSpecies or a restore.
+     * 
+     * @param species - the species id
+     * @param delta   - +1 for each added, -1 for each removed
+     */
+    public void place(final byte species, final int delta) {
+        this.values[PLACED + species] += delta;
+    }
+
+    /**
+     * created. Counts an Organism object created for a birth or a placement,
+     * either newly allocated or reused from a pool.
+     * 
+     * @param species - the species id
+     * @param reused  - true if the object came from a pool
+     */
+    public void created(final byte species, final boolean reused) {
+        this.values[(reused ? REUSED : ALLOCATED) + species]++;
+    }
+
+    /**
+     * time. Adds to the wall time of a phase.
+     * 
+     * @param phase - the species id taking its turn
+     * @param nanos - the nanoseconds it took
+     */
+    public void time(final byte phase, final long nanos) {
+        this.values[PHASE_NANOS + phase] += nanos;
+    }
+
+    /**
+     * addTo. Adds every count to those of other Counters.
+     * 
+     * @param total - the Counters to add to
+     */
+    public void addTo(final Counters total) {
+        final long[] from = this.values;
+        final long[] to = total.values;
+        for (int n = 0; n < SIZE; n++) {
+            to[n] += from[n];
+        }
+    }
+
+    /**
+     * clear. Zeroes every count.
+     */
+    public void clear() {
+        Arrays.fill(this.values, 0);
+    }
+}
@@ -0,0 +1,386 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * DeltaLog.
+ * 
+ * <p>
+ * A TurnListener which appends the changes an Ecosystem makes each turn to a
+ * compact binary file, for replay and analysis. Turns are encoded on the
+ * thread running the turns into a batch of about BATCH_SIZE bytes; full
+ * batches are handed through a short queue to a writer thread, which
+ * optionally deflates them and appends them to the file as frames. The
+ * simulation only waits for the writer if QUEUE_DEPTH batches are already
+ * waiting to be written.
+ * </p>
+ * 
+ * <p>
+ * A DeltaLog holds, in big-endian order:
+ * <ul>
+ * <li>a header: MAGIC, VERSION, the rows and columns, and whether frames are
+ * deflated (1) or not (0), and</li>
+ * <li>frames, each its stored length, its length once inflated, the CRC32 of
+ * the stored bytes, and the stored bytes.</li>
+ * </ul>
+ * A frame holds whole turns, each the turn number and the number of events in
+ * LEB128 variable-length form, then the events. An event is a byte holding
+ * its type in the high four bits and its species in the low four; for an EAT,
+ * a byte holding the species eaten; the index of the cell it starts in; and,
+ * for a MOVE or an EAT, the zigzag-encoded distance to the cell it ends in.
+ * </p>
+ * 
+ * <p>
+ * Reopening a DeltaLog appends to it, after dropping any frame left partly
+ * written by a crash. A run resumed from a Checkpoint repeats the turns logged
+ * since that Checkpoint; DeltaReader readers see them twice, and Replay uses
+ * the first.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class DeltaLog implements TurnListener, Closeable {
+
+    /** The first four bytes of every DeltaLog: "GOLD". */
+    public static final int MAGIC = 0x474F4C44;
+
+    /** The version of the format written. */
+    public static final int VERSION = 1;
+
+    /** The size of the header in bytes. */
+    static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 1;
+
+    /** The size of the header of each frame in bytes. */
+    static final int FRAME_HEADER_SIZE = 4 + 4 + 4;
+
+    /** The number of bytes encoded before a batch is handed to the writer. */
+    private static final int BATCH_SIZE = 1 << 20;
+
+    /** The number of batches which may wait to be written. */
+    private static final int QUEUE_DEPTH = 4;
+
+    /** The most bytes one event takes: head, prey and two LEB128 longs. */
+    private static final int MAX_EVENT_SIZE = 1 + 1 + 10 + 10;
+
+    /** The file. */
+    private final FileChannel channel;
+
+    /** Whether frames are deflated. */
+    private final boolean compress;
+
+    /** Full batches waiting to be written, ended by an empty batch. */
+    private final BlockingQueue<Batch> full = new ArrayBlockingQueue<Batch>(QUEUE_DEPTH);
+
+    /** Written batches, ready to be reused. */
+    private final BlockingQueue<Batch> free = new ArrayBlockingQueue<Batch>(QUEUE_DEPTH + 1);
+
+    /** The thread writing frames. */
+    private final Thread writer;
+
+    /** The batch being encoded. */
+    private Batch batch = new Batch();
+
+    /** The first failure of the writer, or null. */
+    private volatile IOException failure;
+
+    /** Whether close has been called. */
+    private boolean closed;
+
+    /**
+     * Constructor. Opens a DeltaLog for appending, creating it if it does not
+     * exist, and starts its writer.
+     * 
+     * @param file     - the file to append to
+     * @param rows     - the number of rows in the world logged
+     * @param cols     - the number of columns in the world logged
+     * @param compress - true to deflate frames
+     * @throws IOException if the file cannot be opened, or holds the log of a
+     *                     different grid or compression
+     */
+    public DeltaLog(final Path file, final int rows, final int cols, final boolean compress) throws IOException {
+        if (rows < 1 || cols < 1) {
+            throw new IllegalArgumentException("grid cannot be < 1 - got: " + cols + "x" + rows);
+        }
+        this.compress = compress;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (this.channel.size() < HEADER_SIZE) {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).put((byte) (compress ? 1 : 0));
+                header.flip();
+                this.channel.truncate(0);
+                writeFully(this.channel, header, 0);
+                this.channel.position(HEADER_SIZE);
+            } else {
+                final DeltaReader.Header header = new DeltaReader.Header(this.channel);
+                if (header.rows != rows || header.cols != cols || header.compressed != compress) {
+                    throw new IOException("log cannot differ from the world - got: " + header.cols + "x"
+                            + header.rows + (header.compressed ? " deflated" : ""));
+                }
+                final long end = completeFrames(this.channel);
+                this.channel.truncate(end);
+                this.channel.position(end);
+            }
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+        this.writer = new Thread(this::drain, "delta-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * turnEnded. Encodes the changes made during a turn, handing the batch to
+     * the writer once full.
+     * 
+     * @param turn   - the number of turns the Ecosystem has now run
+     * @param events - the changes, in the order they were made
+     */
+    @Override
+    public void turnEnded(final long turn, final Events events) {
+        if (this.closed) {
+            throw new IllegalStateException("log cannot be written once closed");
+        }
+        final Batch out = this.batch;
+        out.ensure(10 + 5 + (long) events.size() * MAX_EVENT_SIZE);
+        out.putVarLong(turn);
+        out.putVarLong(events.size());
+        for (int n = 0; n < events.size(); n++) {
+            final byte type = events.getType(n);
+            out.put((byte) (type << 4 | events.getSpecies(n)));
+            if (type == Events.EAT) {
+                out.put(events.getPrey(n));
+            }
+            final long from = events.getFrom(n);
+            out.putVarLong(from);
+            if (type == Events.MOVE || type == Events.EAT) {
+                final long distance = events.getTo(n) - from;
+                out.putVarLong(distance << 1 ^ distance >> 63);
+            }
+        }
+        if (out.length >= BATCH_SIZE) {
+            this.handOff();
+        }
+    }
+
+    /**
+     * flush. Hands the turns encoded so far to the writer, without waiting for
+     * them to be written.
+     */
+    public void flush() {
+        if (this.batch.length > 0) {
+            this.handOff();
+        }
+    }
+
+    /**
+     * close. Writes every turn encoded, stops the writer and closes the file.
+     * 
+     * @throws IOException if the writer failed or the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.flush();
+        this.closed = true;
+        try {
+            this.full.put(new Batch());
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.writer.interrupt();
+            throw new InterruptedIOException("interrupted while closing the log");
+        } finally {
+            if (this.failure == null) {
+                this.channel.force(true);
+            }
+            this.channel.close();
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * handOff. Queues the batch being encoded for the writer and starts a new
+     * one, waiting if the queue is full.
+     */
+    private void handOff() {
+        if (this.failure != null) {
+            throw new UncheckedIOException(this.failure);
+        }
+        try {
+            this.full.put(this.batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("interrupted while logging"));
+        }
+        final Batch next = this.free.poll();
+        this.batch = next != null ? next : new Batch();
+    }
+
+    /**
+     * drain. Runs on the writer thread: writes each queued batch as a frame
+     * until the empty batch which ends the queue. After a failure, batches are
+     * discarded so the simulation is never blocked; the failure is reported by
+     * the next handOff or by close.
+     */
+    private void drain() {
+        final Deflater deflater = this.compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        final CRC32 crc = new CRC32();
+        byte[] deflated = new byte[0];
+        final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        try {
+            for (Batch next = this.full.take(); next.length > 0; next = this.full.take()) {
+                if (this.failure == null) {
+                    try {
+                        byte[] stored = next.bytes;
+                        int storedLength = next.length;
+                        if (deflater != null) {
+                            deflater.reset();
+                            deflater.setInput(next.bytes, 0, next.length);
+                            deflater.finish();
+                            storedLength = 0;
+                            while (!deflater.finished()) {
+                                if (storedLength == deflated.length) {
+                                    deflated = Arrays.copyOf(deflated,
+                                            Math.max(BATCH_SIZE, 2 * deflated.length));
+                                }
+                                storedLength += deflater.deflate(deflated, storedLength,
+                                        deflated.length - storedLength);
+                            }
+                            stored = deflated;
+                        }
+                        crc.reset();
+                        crc.update(stored, 0, storedLength);
+                        header.clear();
+                        header.putInt(storedLength).putInt(next.length).putInt((int) crc.getValue());
+                        header.flip();
+                        writeFully(this.channel, header, this.channel.position());
+                        writeFully(this.channel, ByteBuffer.wrap(stored, 0, storedLength),
+                                this.channel.position());
+                    } catch (IOException e) {
+                        this.failure = e;
+                    }
+                }
+                next.length = 0;
+                this.free.offer(next);
+            }
+        } catch (InterruptedException e) {
+            this.failure = new InterruptedIOException("log writer interrupted");
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    /**
+     * writeFully. Writes all of a buffer at a position in a file, leaving the
+     * file positioned after it.
+     * 
+     * @param channel  - the file
+     * @param buffer   - the bytes to write
+     * @param position - where to write them
+     * @throws IOException if the file cannot be written
+     */
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.position(position);
+    }
+
+    /**
+     * completeFrames. Finds the end of the last frame of a log written in
+     * full.
+     * 
+     * @param channel - the log, its header checked
+     * @return the offset just after the last complete frame
+     * @throws IOException if the file cannot be read
+     */
+    private static long completeFrames(final FileChannel channel) throws IOException {
+        final long size = channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        long end = HEADER_SIZE;
+        while (end + FRAME_HEADER_SIZE <= size) {
+            header.clear();
+            DeltaReader.readFully(channel, header, end);
+            final int stored = header.getInt(0);
+            final int raw = header.getInt(4);
+            if (stored < 0 || raw < 0 || end + FRAME_HEADER_SIZE + stored > size) {
+                break;
+            }
+            end += FRAME_HEADER_SIZE + stored;
+        }
+        return end;
+    }
+
+    /**
+     * Batch.
+     * 
+     * A growable run of encoded turns.
+     */
+    private static final class Batch {
+
+        /** The encoded bytes. */
+        private byte[] bytes = new byte[BATCH_SIZE + (BATCH_SIZE >> 2)];
+
+        /** The number of bytes encoded. */
+        private int length;
+
+        /**
+         * ensure. Makes room for a number of bytes more.
+         * 
+         * @param more - the number of bytes to make room for
+         */
+        private void ensure(final long more) {
+            final long needed = this.length + more;
+            if (needed > this.bytes.length) {
+                if (needed > Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("turn cannot be logged in one frame - got: " + needed
+                            + " bytes");
+                }
+                this.bytes = Arrays.copyOf(this.bytes, (int) Math.max(needed, 2L * this.bytes.length));
+            }
+        }
+
+        /**
+         * put. Appends a byte.
+         * 
+         * @param value - the byte
+         */
+        private void put(final byte value) {
+            this.bytes[this.length++] = value;
+        }
+
+        /**
+         * putVarLong. Appends a non-negative long in LEB128 form.
+         * 
+         * @param value - the long
+         */
+        private void putVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                this.bytes[this.length++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            this.bytes[this.length++] = (byte) value;
+        }
+    }
+}
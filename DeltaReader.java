@@ -0,0 +1,295 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * DeltaReader.
+ * 
+ * <p>
+ * Reads the turns of a DeltaLog back, one at a time, in the order they were
+ * written. A frame left partly written at the end of the log, as by a run
+ * which crashed or is still writing, ends the log.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class DeltaReader implements Closeable {
+
+    /** The log. */
+    private final FileChannel channel;
+
+    /** The header of the log. */
+    private final Header header;
+
+    /** Inflates frames, or null if they are stored as is. */
+    private final Inflater inflater;
+
+    /** The offset of the next frame. */
+    private long position;
+
+    /** The stored bytes of the current frame. */
+    private byte[] stored = new byte[0];
+
+    /** The turns of the current frame, positioned at the next turn. */
+    private ByteBuffer frame = ByteBuffer.allocate(0);
+
+    /** The turn read last. */
+    private long turn;
+
+    /** The events of the turn read last. */
+    private final Events events = new Events();
+
+    /**
+     * Constructor. Opens a DeltaLog for reading.
+     * 
+     * @param file - the log
+     * @throws IOException if the file cannot be read or is not a DeltaLog
+     */
+    public DeltaReader(final Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.header = new Header(this.channel);
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+        this.inflater = this.header.compressed ? new Inflater() : null;
+        this.position = DeltaLog.HEADER_SIZE;
+    }
+
+    /**
+     * getRows. Get the number of rows in the world logged.
+     * 
+     * @return number of rows - an int
+     */
+    public int getRows() {
+        return this.header.rows;
+    }
+
+    /**
+     * getCols. Get the number of columns in the world logged.
+     * 
+     * @return number of cols - an int
+     */
+    public int getCols() {
+        return this.header.cols;
+    }
+
+    /**
+     * next. Reads the next turn.
+     * 
+     * @return true if a turn was read; false at the end of the log
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    public boolean next() throws IOException {
+        if (!this.frame.hasRemaining() && !this.nextFrame()) {
+            return false;
+        }
+        final ByteBuffer in = this.frame;
+        this.turn = getVarLong(in);
+        final long count = getVarLong(in);
+        if (count > in.remaining()) {
+            throw new IOException("corrupt log - " + count + " events in turn " + this.turn);
+        }
+        this.events.clear();
+        for (long n = 0; n < count; n++) {
+            final int head = in.get() & 0xFF;
+            final byte type = (byte) (head >> 4);
+            final byte kind = (byte) (head & 0xF);
+            if (type >= Events.TYPES || kind >= Species.MAX) {
+                throw new IOException("corrupt log - event " + Integer.toHexString(head) + " in turn " + this.turn);
+            }
+            final byte prey = type == Events.EAT ? in.get() : Species.EMPTY;
+            final long from = getVarLong(in);
+            long to = from;
+            if (type == Events.MOVE || type == Events.EAT) {
+                final long zigzag = getVarLong(in);
+                to = from + (zigzag >>> 1 ^ -(zigzag & 1));
+            }
+            this.events.add(type, kind, prey, from, to);
+        }
+        return true;
+    }
+
+    /**
+     * getTurn. Gets the turn read last.
+     * 
+     * @return the number of turns the world had run at the end of the turn
+     */
+    public long getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * getEvents. Gets the changes made during the turn read last. The Events
+     * are reused by the next call to next.
+     * 
+     * @return the changes, in the order they were made
+     */
+    public Events getEvents() {
+        return this.events;
+    }
+
+    /**
+     * close. Closes the log.
+     * 
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.inflater != null) {
+            this.inflater.end();
+        }
+        this.channel.close();
+    }
+
+    /**
+     * nextFrame. Reads, checks and inflates the next frame.
+     * 
+     * @return true if a frame was read; false at the end of the log
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    private boolean nextFrame() throws IOException {
+        final long size = this.channel.size();
+        final ByteBuffer frameHeader = ByteBuffer.allocate(DeltaLog.FRAME_HEADER_SIZE);
+        if (this.position + DeltaLog.FRAME_HEADER_SIZE > size) {
+            return false;
+        }
+        readFully(this.channel, frameHeader, this.position);
+        final int storedLength = frameHeader.getInt(0);
+        final int rawLength = frameHeader.getInt(4);
+        final int checksum = frameHeader.getInt(8);
+        if (storedLength < 0 || rawLength < 0) {
+            throw new IOException("corrupt log - frame of " + storedLength + " bytes at " + this.position);
+        }
+        if (this.position + DeltaLog.FRAME_HEADER_SIZE + storedLength > size) {
+            return false;
+        }
+        if (this.stored.length < storedLength) {
+            this.stored = new byte[storedLength];
+        }
+        readFully(this.channel, ByteBuffer.wrap(this.stored, 0, storedLength),
+                this.position + DeltaLog.FRAME_HEADER_SIZE);
+        final CRC32 crc = new CRC32();
+        crc.update(this.stored, 0, storedLength);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("corrupt log - bad checksum in frame at " + this.position);
+        }
+        if (this.inflater == null) {
+            this.frame = ByteBuffer.wrap(this.stored, 0, storedLength);
+        } else {
+            final byte[] raw = this.frame.capacity() >= rawLength ? this.frame.array() : new byte[rawLength];
+            this.inflater.reset();
+            this.inflater.setInput(this.stored, 0, storedLength);
+            try {
+                int inflated = 0;
+                while (inflated < rawLength && !this.inflater.finished()) {
+                    final int n = this.inflater.inflate(raw, inflated, rawLength - inflated);
+                    if (n == 0 && (this.inflater.needsInput() || this.inflater.needsDictionary())) {
+                        break;
+                    }
+                    inflated += n;
+                }
+                if (inflated != rawLength) {
+                    throw new IOException("corrupt log - frame at " + this.position + " inflates to " + inflated
+                            + " bytes, expected " + rawLength);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("corrupt log - frame at " + this.position, e);
+            }
+            this.frame = ByteBuffer.wrap(raw, 0, rawLength);
+        }
+        this.position += DeltaLog.FRAME_HEADER_SIZE + storedLength;
+        return true;
+    }
+
+    /**
+     * getVarLong. Reads a long in LEB128 form.
+     * 
+     * @param in - the bytes to read from
+     * @return the long
+     * @throws IOException if the long is cut off or too long
+     */
+    private static long getVarLong(final ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new EOFException("corrupt log - number cut off");
+            }
+            final byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("corrupt log - number too long");
+    }
+
+    /**
+     * readFully. Fills a buffer from a position in a file.
+     * 
+     * @param channel  - the file
+     * @param buffer   - the buffer to fill
+     * @param position - where to read from
+     * @throws IOException if the file cannot be read or ends first
+     */
+    static void readFully(final FileChannel channel, final ByteBuffer buffer, final long position)
+            throws IOException {
+        final int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - start) < 0) {
+                throw new EOFException("log ended early at " + (position + buffer.position() - start));
+            }
+        }
+    }
+
+    /**
+     * Header.
+     * 
+     * The header of a DeltaLog, read from an open file.
+     */
+    static final class Header {
+
+        /** The number of rows and columns in the world logged. */
+        final int rows;
+        final int cols;
+
+        /** Whether frames are deflated. */
+        final boolean compressed;
+
+        /**
+         * Constructor. Reads the header of a DeltaLog.
+         * 
+         * @param channel - the log
+         * @throws IOException if the file cannot be read or is not a DeltaLog
+         */
+        Header(final FileChannel channel) throws IOException {
+            final ByteBuffer in = ByteBuffer.allocate(DeltaLog.HEADER_SIZE);
+            readFully(channel, in, 0);
+            in.flip();
+            final int magic = in.getInt();
+            if (magic != DeltaLog.MAGIC) {
+                throw new IOException("not a delta log - got magic: " + Integer.toHexString(magic));
+            }
+            final int version = in.getInt();
+            if (version < 1 || version > DeltaLog.VERSION) {
+                throw new IOException("unsupported delta log version - got: " + version);
+            }
+            this.rows = in.getInt();
+            this.cols = in.getInt();
+            final byte flags = in.get();
+            if (this.rows < 1 || this.cols < 1 || (flags != 0 && flags != 1)) {
+                throw new IOException("corrupt log - header of a " + this.cols + "x" + this.rows + " grid");
+            }
+            this.compressed = flags == 1;
+        }
+    }
+}
@@ -1,20 +1,14 @@
 
-import java.awt.Component;
-import java.awt.GridLayout;
+import java.awt.BorderLayout;
 import javax.swing.JFrame;
 
 /**
  * Display.
  * 
  * <p>
- * GUI for Game Of Life. Displays the 2D Cell array in a World as a square grid.
- * Each Cell is displayed as a coloured square. <br>
- * Colour Key:
- * <ul>
- * <li>White : Empty</li>
- * <li>Green : Plant</li>
- * <li>Yellow : Herbivore</li>
- * </ul>
+ * GUI for Game Of Life. Displays the 2D Cell array in a World as a square grid
+ * by hosting a WorldView, which redraws itself from the Snapshots of a
+ * Simulation at a capped frame rate. The World itself holds no Swing state.
  * </p>
  * 
  * @author Maxwell Babey
@@ -22,27 +16,32 @@ import javax.swing.JFrame;
  */
 public class Display extends JFrame {
 
-    /** The world assigned to this Display. */
-    private final World world;
+    /** The serial version; Swing components are Serializable. */
+    private static final long serialVersionUID = 1L;
+
+    /** The Simulation whose world this Display shows. */
+    private final Simulation simulation;
+
+    /** The most frames drawn per second. */
+    private final int fps;
 
     /**
      * Constructor. Creates a Display, and assigns it a world to display.
      * 
-     * @param w - the world to display
+     * @param sim - the Simulation running the world to display
+     * @param fps - the most frames drawn per second
      */
-    public Display(final World w) {
-        this.world = w;
+    public Display(final Simulation sim, final int fps) {
+        this.simulation = sim;
+        this.fps = fps;
     }
 
     /**
      * displayWorld. Displays the world assigned to this Display as a grid.
      */
     public void displayWorld() {
-        this.setLayout(new GridLayout(this.world.getRows(), this.world.getCols()));
-        for (int row = 0; row < this.world.getRows(); ++row) {
-            for (int col = 0; col < this.world.getCols(); ++col) {
-                this.add((Component) this.world.getCell(col, row));
-            }
-        }
+        this.setLayout(new BorderLayout());
+        this.add(new WorldView(this.simulation.getRows(), this.simulation.getCols(), this.simulation.getConfig(),
+                this.simulation::pollSnapshot, this.fps), BorderLayout.CENTER);
     }
 }
\ No newline at end of file
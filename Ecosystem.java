@@ -0,0 +1,153 @@
+/**
+ * Ecosystem.
+ * 
+ * Interface to be implemented by every world backend. An Ecosystem is a grid
+ * of cells which can be populated and advanced one turn at a time, and whose
+ * contents can be read by species id.
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public interface Ecosystem {
+
+    /**
+     * letThereBeLight. Populates the grid with randomly placed life.
+     */
+    void letThereBeLight();
+
+    /**
+     * twentyThreeHoursAndFiftySixMinutes. Runs one turn of the game.
+     */
+    void twentyThreeHoursAndFiftySixMinutes();
+
+    /**
+     * getConfig. Gets the configuration the grid was built from.
+     * 
+     * @return the Config
+     */
+    Config getConfig();
+
+    /**
+     * getRows. Get the number of rows in the grid.
+     * 
+     * @return number of rows - an int
+     */
+    int getRows();
+
+    /**
+     * getCols. Get the number of columns in the grid.
+     * 
+     * @return number of cols - an int
+     */
+    int getCols();
+
+    /**
+     * getSpecies. Gets the species id of the organism at a location.
+     * 
+     * @param xpos - x position of the cell
+     * @param ypos - y position of the cell
+     * @return the species id at (xpos, ypos), Species.EMPTY if there is none
+     */
+    byte getSpecies(int xpos, int ypos);
+
+    /**
+     * copySpecies. Copies the species id of every cell, row by row, into an
+     * array.
+     * 
+     * @param out - an array of at least getRows() * getCols() entries
+     */
+    void copySpecies(byte[] out);
+
+    /**
+     * setSpecies. Replaces whatever is at a location with a new organism of a
+     * species, or empties the location. A new organism first acts in the next
+     * turn. Only valid after letThereBeLight.
+     * 
+     * @param xpos    - x position of the cell
+     * @param ypos    - y position of the cell
+     * @param species - the species id to place, or Species.EMPTY to clear
+     */
+    void setSpecies(int xpos, int ypos, byte species);
+
+    /**
+     * getTurn. Gets the number of turns the grid has run.
+     * 
+     * @return the turn
+     */
+    long getTurn();
+
+    /**
+     * getRandom. Gets the generator the grid draws from.
+     * 
+     * @return the RandomSource
+     */
+    RandomSource getRandom();
+
+    /**
+     * forEachOrganism. Visits every organism in the grid, in row-major order.
+     * Lineage ids are those of this grid: equal ids are the same Animal, and a
+     * parent id matching no living Animal is a parent which has died.
+     * 
+     * @param visitor - called once per organism
+     */
+    void forEachOrganism(OrganismVisitor visitor);
+
+    /**
+     * reset. Empties the grid and sets its turn, ready for place.
+     * 
+     * @param turn - the number of turns the grid will have run
+     */
+    void reset(long turn);
+
+    /**
+     * place. Puts an organism with a full state into an empty cell after
+     * reset. Animals must be placed with the lineage ids 1, 2, 3 and so on, in
+     * order, and their parents given as those ids, or Lineage.PROGENITOR for a
+     * parent which is not in the grid. The organism may act in the next turn.
+     * 
+     * @param index   - ypos * getCols() + xpos
+     * @param species - the species id
+     * @param age     - the age of an Animal; ignored for a Plant
+     * @param id      - the lineage id of an Animal; ignored for a Plant
+     * @param mother  - the lineage id of the first parent of an Animal
+     * @param father  - the lineage id of the second parent of an Animal
+     */
+    void place(long index, byte species, int age, int id, int mother, int father);
+
+    /**
+     * setTurnListener. Starts or stops recording the changes made to the grid.
+     * While a listener is set, every change is recorded, and the listener is
+     * given them at the end of each turn.
+     * 
+     * @param listener - the listener, or null to stop recording
+     */
+    void setTurnListener(TurnListener listener);
+
+    /**
+     * setMetrics. Starts or stops counting what the turns do. The Metrics take
+     * a census of the grid, then receive the counts of each turn at its end.
+     * 
+     * @param metrics - the Metrics, or null to stop counting
+     */
+    void setMetrics(Metrics metrics);
+
+    /**
+     * OrganismVisitor.
+     * 
+     * Receives the state of the organisms of an Ecosystem.
+     */
+    interface OrganismVisitor {
+
+        /**
+         * visit. Receives the state of one organism.
+         * 
+         * @param index   - ypos * getCols() + xpos
+         * @param species - the species id
+         * @param age     - the age of an Animal; 0 for a Plant
+         * @param id      - the lineage id of an Animal; 0 for a Plant
+         * @param mother  - the lineage id of the first parent of an Animal
+         * @param father  - the lineage id of the second parent of an Animal
+         */
+        void visit(long index, byte species, int age, int id, int mother, int father);
+    }
+}
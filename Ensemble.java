@@ -0,0 +1,305 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ensemble.
+ * 
+ * <p>
+ * Runs many independent worlds headless in one JVM, so the JIT warms up once
+ * for the whole sweep: every combination of a set of swept settings, each
+ * with a number of seeds. The worlds run as tasks on a fixed pool of threads,
+ * one thread per world, and a summary of each is written as a CSV row as soon
+ * as it finishes.
+ * </p>
+ * 
+ * <p>
+ * Usage: java Ensemble [--turns=N] [--seeds=K] [--threads=P] [--sample=T]
+ * [--out=file] [--config=file] [key=value ...] [key=a|b|c ...] - runs every
+ * combination of the values given as a|b|c, K times each with the seeds
+ * seed, seed + 1, ..., for N turns (default 1000), on P threads (default one
+ * per processor), writing the summaries to file (default standard out).
+ * Every other argument configures the worlds as for Main; the species key
+ * cannot be swept. Mapped worlds each map a temporary file, whatever
+ * mapped.file names, since the runs would otherwise share one file.
+ * </p>
+ * 
+ * <p>
+ * Each row holds the run number, the seed, the swept values, the seconds the
+ * run took, and for each species its final population, its largest
+ * population and the turn it died out, or -1. Populations are counted every T
+ * turns (default 10) and at the end, so the peak and the turn of extinction
+ * are as of the first count which saw them.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class Ensemble {
+
+    /** The number of turns run if none is given. */
+    public static final int DEFAULT_TURNS = 1000;
+
+    /** The turns between population counts if none is given. */
+    public static final int DEFAULT_SAMPLE_TURNS = 10;
+
+    /** Separates the swept values of a key. */
+    private static final String SWEEP = "|";
+
+    private Ensemble() {
+    }
+
+    /**
+     * Runs the ensemble.
+     * 
+     * @param args - --turns=N, --seeds=K, --threads=P, --sample=T, --out=file,
+     *             --config=file, key=value settings and key=a|b|c sweeps
+     * @throws IOException          if a config file cannot be read or the
+     *                              results cannot be written
+     * @throws InterruptedException if interrupted while waiting for a run
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        int turns = DEFAULT_TURNS;
+        int seeds = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int sampleTurns = DEFAULT_SAMPLE_TURNS;
+        Path out = null;
+        final List<String> configArgs = new ArrayList<String>();
+        final List<String> keys = new ArrayList<String>();
+        final List<String[]> choices = new ArrayList<String[]>();
+        for (String arg : args) {
+            if (arg.startsWith("--turns=")) {
+                turns = Integer.parseInt(arg.substring("--turns=".length()));
+            } else if (arg.startsWith("--seeds=")) {
+                seeds = Integer.parseInt(arg.substring("--seeds=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--sample=")) {
+                sampleTurns = Integer.parseInt(arg.substring("--sample=".length()));
+            } else if (arg.startsWith("--out=")) {
+                out = Paths.get(arg.substring("--out=".length()));
+            } else if (!arg.startsWith("--") && arg.contains(SWEEP)) {
+                final int equals = arg.indexOf('=');
+                if (equals < 0) {
+                    throw new IllegalArgumentException("argument must be key=value - got: " + arg);
+                }
+                final String key = arg.substring(0, equals);
+                if (key.equals("species") || keys.contains(key)) {
+                    throw new IllegalArgumentException("key cannot be swept - got: " + key);
+                }
+                keys.add(key);
+                choices.add(arg.substring(equals + 1).split("\\|", -1));
+            } else {
+                configArgs.add(arg);
+            }
+        }
+        if (turns < 0) {
+            throw new IllegalArgumentException("turns cannot be < 0 - got: " + turns);
+        }
+        if (seeds < 1) {
+            throw new IllegalArgumentException("seeds cannot be < 1 - got: " + seeds);
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads cannot be < 1 - got: " + threads);
+        }
+        if (sampleTurns < 1) {
+            throw new IllegalArgumentException("sample cannot be < 1 - got: " + sampleTurns);
+        }
+        final List<Config> runs = sweep(Config.fromArgs(configArgs.toArray(new String[0])), keys, choices, seeds);
+        final long start = System.nanoTime();
+        if (out == null) {
+            run(runs, keys, threads, turns, sampleTurns, System.out);
+        } else {
+            try (PrintStream results = new PrintStream(Files.newOutputStream(out), false, StandardCharsets.UTF_8)) {
+                run(runs, keys, threads, turns, sampleTurns, results);
+            }
+            System.out.printf("%d runs of %d turns in %.3f s%n", runs.size(), turns, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * sweep. Builds the Config of every run: each combination of the swept
+     * values, in order with the last key varying fastest, each with a number
+     * of seeds counting up from the base seed. Every Config is validated here,
+     * before any run starts.
+     * 
+     * @param base    - the settings every run shares
+     * @param keys    - the swept keys
+     * @param choices - the values of each swept key
+     * @param seeds   - the number of seeds of each combination
+     * @return the Configs, in run order
+     */
+    public static List<Config> sweep(final Config base, final List<String> keys, final List<String[]> choices,
+            final int seeds) {
+        List<Config> runs = new ArrayList<Config>();
+        runs.add(base);
+        for (int k = 0; k < keys.size(); k++) {
+            final List<Config> next = new ArrayList<Config>();
+            for (Config config : runs) {
+                for (String value : choices.get(k)) {
+                    next.add(config.with(keys.get(k), value.trim()));
+                }
+            }
+            runs = next;
+        }
+        final List<Config> seeded = new ArrayList<Config>(runs.size() * seeds);
+        for (Config config : runs) {
+            for (int s = 0; s < seeds; s++) {
+                seeded.add(s == 0 ? config : config.with("seed", Long.toString(config.getSeed() + s)));
+            }
+        }
+        return seeded;
+    }
+
+    /**
+     * run. Runs every Config on a pool of threads, writing a CSV header and
+     * then one row per run, in the order the runs finish.
+     * 
+     * @param runs        - the Config of each run
+     * @param keys        - the swept keys, written as columns
+     * @param threads     - the number of runs at a time
+     * @param turns       - the number of turns of each run
+     * @param sampleTurns - the turns between population counts
+     * @param out         - where to write the rows
+     * @throws InterruptedException if interrupted while waiting for a run
+     */
+    public static void run(final List<Config> runs, final List<String> keys, final int threads, final int turns,
+            final int sampleTurns, final PrintStream out) throws InterruptedException {
+        if (runs.isEmpty()) {
+            return;
+        }
+        final Config first = runs.get(0);
+        final StringBuilder header = new StringBuilder("run,seed");
+        for (String key : keys) {
+            header.append(',').append(csv(key));
+        }
+        header.append(",seconds");
+        for (byte species = 1; species < first.getSpeciesCount(); species++) {
+            final String name = first.getName(species).toLowerCase(Locale.ROOT);
+            header.append(',').append(name).append(',').append(name).append(".peak,").append(name).append(".extinct");
+        }
+        out.println(header);
+        final AtomicInteger started = new AtomicInteger();
+        final ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            final Thread thread = new Thread(task, "ensemble-" + started.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final CompletionService<String> done = new ExecutorCompletionService<String>(pool);
+            for (int n = 0; n < runs.size(); n++) {
+                final int index = n;
+                done.submit(() -> simulate(index, runs.get(index), keys, turns, sampleTurns));
+            }
+            for (int n = 0; n < runs.size(); n++) {
+                try {
+                    out.println(done.take().get());
+                    out.flush();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new IllegalStateException("run failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * simulate. Seeds and runs one world, counting its populations as it goes.
+     * 
+     * @param index       - the number of the run
+     * @param config      - the configuration of the world
+     * @param keys        - the swept keys
+     * @param turns       - the number of turns to run
+     * @param sampleTurns - the turns between population counts
+     * @return the CSV row of the run
+     * @throws IOException if the world's file cannot be released
+     */
+    private static String simulate(final int index, final Config config, final List<String> keys, final int turns,
+            final int sampleTurns) throws IOException {
+        final long start = System.nanoTime();
+        final int kinds = config.getSpeciesCount();
+        final long[] peak = new long[kinds];
+        final long[] extinct = new long[kinds];
+        Arrays.fill(extinct, -1);
+        long[] population;
+        final Ecosystem world = config.with("mapped.file", "").newEcosystem();
+        try {
+            world.letThereBeLight();
+            population = count(world, 0, peak, extinct);
+            for (int turn = 1; turn <= turns; turn++) {
+                world.twentyThreeHoursAndFiftySixMinutes();
+                if (turn % sampleTurns == 0 || turn == turns) {
+                    population = count(world, turn, peak, extinct);
+                }
+            }
+        } finally {
+            if (world instanceof Closeable) {
+                ((Closeable) world).close();
+            }
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        final StringBuilder row = new StringBuilder();
+        row.append(index).append(',').append(config.getSeed());
+        for (String key : keys) {
+            row.append(',').append(csv(config.get(key)));
+        }
+        row.append(',').append(String.format(Locale.ROOT, "%.3f", seconds));
+        for (int species = 1; species < kinds; species++) {
+            row.append(',').append(population[species]).append(',').append(peak[species]).append(',')
+                    .append(extinct[species]);
+        }
+        return row.toString();
+    }
+
+    /**
+     * count. Counts the populations of a world, updating their peaks and the
+     * turns they died out.
+     * 
+     * @param world   - the world
+     * @param turn    - the number of turns it has run
+     * @param peak    - the largest population of each species so far
+     * @param extinct - the turn each species died out, or -1
+     * @return the population of each species
+     */
+    private static long[] count(final Ecosystem world, final int turn, final long[] peak, final long[] extinct) {
+        final long[] population = BatchRunner.census(world);
+        for (int species = 1; species < population.length; species++) {
+            peak[species] = Math.max(peak[species], population[species]);
+            if (population[species] == 0 && extinct[species] < 0) {
+                extinct[species] = turn;
+            }
+        }
+        return population;
+    }
+
+    /**
+     * csv. Quotes a CSV field if it holds a comma or a quote.
+     * 
+     * @param field - the field
+     * @return the field as written
+     */
+    private static String csv(final String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
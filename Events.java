@@ -0,0 +1,169 @@
+import java.util.Arrays;
+
+/**
+ * Events.
+ * 
+ * <p>
+ * The changes an Ecosystem made to its grid during one turn, in the order they
+ * were made: births, moves, moves onto food and deaths. Applying them in order
+ * to the species of every cell before the turn gives the species after it.
+ * Each event is held as three longs in one growable array, so recording an
+ * event allocates nothing once the array is large enough.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class Events {
+
+    /** An organism was born, or seeded, in an empty cell. */
+    public static final byte BIRTH = 0;
+
+    /** An Animal moved to an empty cell. */
+    public static final byte MOVE = 1;
+
+    /** An Animal moved onto food and ate it. */
+    public static final byte EAT = 2;
+
+    /** An organism died, or was removed, where it stood. */
+    public static final byte DEATH = 3;
+
+    /** The number of event types. */
+    public static final int TYPES = 4;
+
+    /** The longs held for each event. */
+    private static final int STRIDE = 3;
+
+    /**
+     * The events, three longs each: the type, species and prey packed into
+     * the first, then the cell the event starts in and the cell it ends in.
+     */
+    private long[] records = new long[STRIDE * 256];
+
+    /** The number of events held. */
+    private int size;
+
+    /**
+     * add. Records an event.
+     * 
+     * @param type    - BIRTH, MOVE, EAT or DEATH
+     * @param species - the species id of the organism
+     * @param prey    - the species id eaten, or Species.EMPTY
+     * @param from    - the index of the cell the event starts in
+     * @param to      - the index of the cell the event ends in, which is from
+     *                except for a MOVE or EAT
+     */
+    public void add(final byte type, final byte species, final byte prey, final long from, final long to) {
+        if (STRIDE * (this.size + 1) > this.records.length) {
+            this.records = Arrays.copyOf(this.records, 2 * this.records.length);
+        }
+        final int at = STRIDE * this.size++;
+        this.records[at] = type | species << 8 | prey << 16;
+        this.records[at + 1] = from;
+        this.records[at + 2] = to;
+    }
+
+    /**
+     * addAll. Records every event of another Events after those held.
+     * 
+     * @param other - the events to append
+     */
+    public void addAll(final Events other) {
+        if (STRIDE * (this.size + other.size) > this.records.length) {
+            this.records = Arrays.copyOf(this.records,
+                    Math.max(2 * this.records.length, STRIDE * (this.size + other.size)));
+        }
+        System.arraycopy(other.records, 0, this.records, STRIDE * this.size, STRIDE * other.size);
+        this.size += other.size;
+    }
+
+    /**
+     * clear. Forgets every event.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * size. Gets the number of events held.
+     * 
+     * @return the number of events
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * getType. Gets the type of an event.
+     * 
+     * @param n - the position of the event
+     * @return BIRTH, MOVE, EAT or DEATH
+     */
+    public byte getType(final int n) {
+        return (byte) this.records[STRIDE * n];
+    }
+
+    /**
+     * getSpecies. Gets the species of the organism of an event.
+     * 
+     * @param n - the position of the event
+     * @return the species id
+     */
+    public byte getSpecies(final int n) {
+        return (byte) (this.records[STRIDE * n] >> 8);
+    }
+
+    /**
+     * getPrey. Gets the species eaten in an event.
+     * 
+     * @param n - the position of the event
+     * @return the species id eaten, or Species.EMPTY
+     */
+    public byte getPrey(final int n) {
+        return (byte) (this.records[STRIDE * n] >> 16);
+    }
+
+    /**
+     * getFrom. Gets the cell an event starts in.
+     * 
+     * @param n - the position of the event
+     * @return the row-major index of the cell
+     */
+    public long getFrom(final int n) {
+        return this.records[STRIDE * n + 1];
+    }
+
+    /**
+     * getTo. Gets the cell an event ends in.
+     * 
+     * @param n - the position of the event
+     * @return the row-major index of the cell
+     */
+    public long getTo(final int n) {
+        return this.records[STRIDE * n + 2];
+    }
+
+    /**
+     * applyTo. Applies every event, in order, to the species of every cell.
+     * 
+     * @param species - the species id of every cell, row by row
+     */
+    public void applyTo(final byte[] species) {
+        for (int n = 0; n < this.size; n++) {
+            final int from = (int) this.getFrom(n);
+            switch (this.getType(n)) {
+            case BIRTH:
+                species[from] = this.getSpecies(n);
+                break;
+            case MOVE:
+            case EAT:
+                species[from] = Species.EMPTY;
+                species[(int) this.getTo(n)] = this.getSpecies(n);
+                break;
+            default:
+                species[from] = Species.EMPTY;
+                break;
+            }
+        }
+    }
+}
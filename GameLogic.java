@@ -1,16 +1,22 @@
 
 import java.awt.Dimension;
 import java.awt.Toolkit;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
 import javax.swing.JFrame;
+import javax.swing.KeyStroke;
 
 /**
  * GameLogic.
  * 
- * Controls the logic of the Game of Life. Creates a World of a certain size and
- * assigns it to a Display, then listens for mouse clicks on the Display to
- * iterate game turns.
+ * Controls the logic of the Game of Life. Creates a World as configured, runs
+ * it on a Simulation and assigns the Simulation to a Display. A mouse click
+ * on the Display runs one turn while paused; the space bar plays or pauses
+ * continuous turns at the configured rate.
  * 
  * @author Dennis Richards - original
  * @author Maxwell Babey - update
@@ -24,25 +30,34 @@ public class GameLogic {
     public final Display gameScreen;
 
     /** The World assigned to this GameLogic. */
-    public final World world;
+    public final Ecosystem world;
 
-    /** The X-dimension of the World grid. */
-    public static final int WORLD_GRID_X = 25;
+    /** The Simulation running the turns of the World. */
+    public final Simulation simulation;
 
-    /** The Y-dimension of the World grid. */
-    public static final int WORLD_GRID_Y = 25;
+    /** The name of the play/pause action of the Display. */
+    private static final String TOGGLE_PLAYING = "togglePlaying";
 
     static {
         TOOLKIT = Toolkit.getDefaultToolkit();
     }
 
     /**
-     * Constructor. Creates a GameLogic. Initializes the World and the Display.
+     * Constructor. Creates a GameLogic with the default Config.
      */
     public GameLogic() {
-        RandomGenerator.reset();
-        this.world = new World(WORLD_GRID_X, WORLD_GRID_Y);
-        this.gameScreen = new Display(this.world);
+        this(Config.DEFAULT);
+    }
+
+    /**
+     * Constructor. Creates a GameLogic. Initializes the World and the Display.
+     * 
+     * @param config - the configuration of the World
+     */
+    public GameLogic(final Config config) {
+        this.world = config.newEcosystem();
+        this.simulation = new Simulation(this.world, config.getTps());
+        this.gameScreen = new Display(this.simulation, config.getFps());
     }
 
     /**
@@ -50,9 +65,18 @@ public class GameLogic {
      */
     public void startGameOfLife() {
         this.world.letThereBeLight();
+        this.simulation.start();
         position(this.gameScreen);
         this.gameScreen.displayWorld();
         this.gameScreen.addMouseListener(new DisplayClickListener(this));
+        this.gameScreen.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(KeyEvent.VK_SPACE, 0), TOGGLE_PLAYING);
+        this.gameScreen.getRootPane().getActionMap().put(TOGGLE_PLAYING, new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                GameLogic.this.togglePlaying();
+            }
+        });
         this.gameScreen.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         this.gameScreen.setVisible(true);
     }
@@ -103,11 +127,19 @@ public class GameLogic {
     }
 
     /**
-     * gameTurn. Runs the methods which iterate the game by one turn (day).
+     * gameTurn. Iterates the game by one turn (day) on the Simulation's thread,
+     * if paused. The Display picks up the changes on a later frame.
      */
     public void gameTurn() {
-        this.world.twentyThreeHoursAndFiftySixMinutes();
-        this.gameScreen.repaint();
+        this.simulation.step();
+    }
+
+    /**
+     * togglePlaying. Starts continuous turns if paused, and pauses them if
+     * playing.
+     */
+    public void togglePlaying() {
+        this.simulation.togglePlaying();
     }
 
     /**
@@ -0,0 +1,1324 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * GridWorld.
+ * 
+ * <p>
+ * A World backend which stores its state in parallel primitive arrays indexed
+ * by y * cols + x instead of in Cell and Organism objects. Each cell costs a
+ * few bytes:
+ * <ul>
+ * <li>species - the species id in the cell (Species.EMPTY if none),</li>
+ * <li>age - the number of turns an Animal has gone without eating,</li>
+ * <li>flags - the canAct and hasMated bits of the organism, and</li>
+ * <li>id, parentA, parentB - the lineage of an Animal, used to reject
+ * incestuous mates.</li>
+ * </ul>
+ * Per-species rules (lifespan, sensor distance, reproduction thresholds) are
+ * resolved from the Config into arrays indexed by species id, held once per
+ * species rather than once per cell. The turn rules are the same
+ * as those of Plant and Animal, and draw random numbers in the same order, so
+ * a GridWorld and a World given identically seeded generators evolve
+ * identically.
+ * </p>
+ * 
+ * <p>
+ * A GridWorld created with a parallelism above 1 runs each phase on a
+ * ForkJoinPool. The grid is cut into square Tiles at least twice the largest
+ * sensory distance wide, and each phase runs as four sub-phases, one per
+ * colour of a 2x2 checkerboard of Tiles. Tiles of one colour are a whole Tile
+ * apart, so no two of them read or write a common cell. On a toroidal grid the
+ * last Tile of a row or column touches the first, so an odd last Tile takes a
+ * third colour, and up to nine sub-phases run. Each Tile scans its own
+ * cells in row-major order and draws from its own split of the world's
+ * RandomSource, keyed by the turn, the phase and the Tile. A parallel run is
+ * therefore reproducible for a seed and any thread count, though it differs
+ * from a sequential run, where the whole grid is one Tile drawing from the
+ * world's RandomSource itself. Animals born in a Tile are given their lineage
+ * ids in Tile order once the sub-phase ends, so the ids are reproducible too.
+ * Closing a parallel GridWorld shuts its pool down.
+ * </p>
+ * 
+ * <p>
+ * Only active chunks of the grid are scanned. The grid is cut into square
+ * chunks of CHUNK_SIZE cells, and a chunk is active for the rest of a turn and
+ * all of the next once anything happens in or near it:
+ * <ul>
+ * <li>a cell within a Plant's sensory distance of the chunk changes species,</li>
+ * <li>an Animal in the chunk takes its turn, or</li>
+ * <li>a Plant in the chunk draws a random number.</li>
+ * </ul>
+ * A Plant in a chunk which is not active failed to seed the last time it
+ * acted and has seen no change around it since, so it would fail again; empty
+ * cells never act, and every Animal's chunk is always active. Skipping
+ * inactive chunks therefore changes nothing, including the random numbers
+ * drawn, while settled regions of Plants and empty cells cost nothing.
+ * </p>
+ * 
+ * <p>
+ * A species of Plant sensing WindowCounts.MIN_DISTANCE or further reads the
+ * counts of its neighbours from WindowCounts, kept up to date as cells change,
+ * and looks at its neighbours one by one only to pick the cell it seeds. The
+ * strips of WindowCounts reach twice the sensory distance from a changed
+ * cell, so Tiles sized for counted species are at least four times that
+ * distance wide. A species of Plant sensing one cell is counted from
+ * BitPlanes instead, 64 cells at a time, unless the Config turns planes off.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public class GridWorld implements Ecosystem, Closeable {
+
+    /** The side of a Tile in cells, unless the sensory distances need more. */
+    public static final int TILE_SIZE = 64;
+
+    /** The side of an activity chunk in cells. Tiles are whole chunks. */
+    public static final int CHUNK_SIZE = 16;
+
+    /**
+     * The most cells a GridWorld holds, the length of the largest array the
+     * JVM allocates. SparseWorld and MappedWorld run larger grids.
+     */
+    public static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    /** log2 of CHUNK_SIZE. */
+    private static final int CHUNK_SHIFT = 4;
+
+    /** Flag set on an organism which has acted, or may not act, this turn. */
+    private static final byte ACTED = 1;
+
+    /** Flag set on an Animal which has mated this turn. */
+    private static final byte MATED = 2;
+
+    /** The configuration this world was built from. */
+    private final Config config;
+
+    /** Whether each species is a Plant, indexed by species id. */
+    private final boolean[] plant;
+
+    /** The species each species eats as a bit mask, indexed by species id. */
+    private final int[] prey;
+
+    /** The lifespan of each species in turns, indexed by species id. */
+    private final int[] lifespan;
+
+    /** The sensory distance of each species in Cells, indexed by species id. */
+    private final int[] sensor;
+
+    /** Like-species neighbours needed to reproduce, indexed by species id. */
+    private final int[] likeNb;
+
+    /** Food neighbours needed to reproduce, indexed by species id. */
+    private final int[] foodNb;
+
+    /** Empty neighbours needed to reproduce, indexed by species id. */
+    private final int[] emptyNb;
+
+    /** The chance that a Plant which may seed does seed, indexed by species id. */
+    private final int[] chance;
+
+    /** The species ids in the order they take their turns. */
+    private final byte[] turnOrder;
+
+    /** The largest sensory distance of any species of Plant. */
+    private final int plantReach;
+
+    /** The number of rows and columns in the grid. */
+    private final int rows;
+    private final int cols;
+
+    /** How the edges of the grid behave. */
+    private final Topology topology;
+
+    /** The species id in each cell. */
+    private final byte[] species;
+
+    /** The age of the Animal in each cell. */
+    private final short[] age;
+
+    /** The ACTED and MATED bits of the organism in each cell. */
+    private final byte[] flags;
+
+    /** The lineage id of the Animal in each cell, and the ids of its parents. */
+    private final int[] id;
+    private final int[] parentA;
+    private final int[] parentB;
+
+    /** The next lineage id to hand out. Id 0 stands for the progenitors. */
+    private int nextId = 1;
+
+    /** The Neighbourhood table of each species, indexed by species id. */
+    private final Neighbourhood[] neighbourhoods;
+
+    /** The neighbour counts of each species, indexed by species id; null if not counted. */
+    private final WindowCounts[] windows;
+
+    /** Each of the WindowCounts once, updated whenever a cell changes species. */
+    private final WindowCounts[] counted;
+
+    /** Whether each species is a Plant counted from the BitPlanes, indexed by species id. */
+    private final boolean[] planar;
+
+    /** The bit planes of the Plants sensing one cell and of empty cells, or null if none. */
+    private final BitPlanes planes;
+
+    /** The number of rows and columns of activity chunks. */
+    private final int chunkRows;
+    private final int chunkCols;
+
+    /** Non-zero for each chunk active since the start of the last turn. */
+    private byte[] activeLast;
+
+    /** Non-zero for each chunk active since the start of this turn. */
+    private byte[] activeNow;
+
+    /** The Tile covering the whole grid, used by a sequential turn. */
+    private final Tile wholeGrid;
+
+    /** The Tiles of a parallel turn, grouped by checkerboard colour. */
+    private final List<List<Tile>> tilesByColour = new ArrayList<List<Tile>>();
+
+    /** The generator this world draws from. */
+    private final RandomSource random;
+
+    /** The pool running parallel turns; null if turns are sequential. */
+    private final ForkJoinPool pool;
+
+    /** The number of turns this world has run. */
+    private long turn;
+
+    /** Follows the changes made to this world, or null. */
+    private TurnListener listener;
+
+    /** Receives the counts of each turn, or null. */
+    private Metrics metrics;
+
+    /**
+     * Constructor. Creates a sequential GridWorld with a grid of a certain size,
+     * drawing from a SplitMix64 with the default seed.
+     * 
+     * @param xLength - the x-dimension of the grid
+     * @param yLength - the y-dimension of the grid
+     */
+    public GridWorld(int xLength, int yLength) {
+        this(xLength, yLength, new SplitMix64(SplitMix64.DEFAULT_SEED), 1);
+    }
+
+    /**
+     * Constructor. Creates a GridWorld with a grid of a certain size and the
+     * default species rules, whose turns run on a number of threads.
+     * 
+     * @param xLength     - the x-dimension of the grid
+     * @param yLength     - the y-dimension of the grid
+     * @param random      - the generator this world draws from
+     * @param parallelism - the number of threads; 1 runs turns sequentially
+     */
+    public GridWorld(int xLength, int yLength, RandomSource random, int parallelism) {
+        this(Config.DEFAULT.with("grid.x", Integer.toString(xLength)).with("grid.y", Integer.toString(yLength))
+                .with("threads", Integer.toString(parallelism)), random);
+    }
+
+    /**
+     * Constructor. Creates a GridWorld as configured, drawing from the
+     * configured generator.
+     * 
+     * @param config - the configuration of the world
+     */
+    public GridWorld(Config config) {
+        this(config, config.newRandom());
+    }
+
+    /**
+     * Constructor. Creates a GridWorld as configured.
+     * 
+     * @param config - the configuration of the world
+     * @param random - the generator this world draws from
+     */
+    public GridWorld(Config config, RandomSource random) {
+        final int xLength = config.getGridX();
+        final int yLength = config.getGridY();
+        final int parallelism = config.getThreads();
+        if ((long) xLength * yLength > MAX_CELLS) {
+            throw new IllegalArgumentException("grid cannot be > " + MAX_CELLS + " cells - got: " + xLength + "x"
+                    + yLength);
+        }
+        this.config = config;
+        final int kinds = config.getSpeciesCount();
+        this.plant = new boolean[kinds];
+        this.prey = new int[kinds];
+        this.lifespan = new int[kinds];
+        this.sensor = new int[kinds];
+        this.likeNb = new int[kinds];
+        this.foodNb = new int[kinds];
+        this.emptyNb = new int[kinds];
+        this.chance = new int[kinds];
+        int plantReach = 0;
+        for (byte kind = 1; kind < kinds; kind++) {
+            final SpeciesRules rules = config.getRules(kind);
+            this.plant[kind] = rules.plant;
+            this.prey[kind] = rules.prey;
+            this.lifespan[kind] = rules.lifespan;
+            this.sensor[kind] = rules.sensorDistance;
+            this.likeNb[kind] = rules.likeNbToRep;
+            this.foodNb[kind] = rules.foodNbToRep;
+            this.emptyNb[kind] = rules.emptyNbToRep;
+            this.chance[kind] = rules.percentChanceToPropagate;
+            if (rules.plant) {
+                plantReach = Math.max(plantReach, rules.sensorDistance);
+            }
+        }
+        this.plantReach = plantReach;
+        this.turnOrder = config.getTurnOrder();
+        this.random = random;
+        this.topology = config.getTopology();
+        this.rows = yLength;
+        this.cols = xLength;
+        final int size = xLength * yLength;
+        this.species = new byte[size];
+        this.age = new short[size];
+        this.flags = new byte[size];
+        this.id = new int[size];
+        this.parentA = new int[size];
+        this.parentB = new int[size];
+        int maxSensor = 0;
+        this.neighbourhoods = new Neighbourhood[kinds];
+        for (int kind = 0; kind < kinds; kind++) {
+            this.neighbourhoods[kind] = new Neighbourhood(yLength, xLength, this.sensor[kind], this.topology);
+            maxSensor = Math.max(maxSensor, this.sensor[kind]);
+        }
+        this.windows = WindowCounts.forConfig(config);
+        this.counted = WindowCounts.distinct(this.windows);
+        this.planar = new boolean[kinds];
+        int tracked = 0;
+        for (byte kind = 1; kind < kinds; kind++) {
+            this.planar[kind] = config.isBitPlanes() && this.plant[kind] && this.sensor[kind] == 1;
+            tracked |= this.planar[kind] ? 1 << kind | 1 << Species.EMPTY : 0;
+        }
+        this.planes = tracked == 0 ? null : new BitPlanes(yLength, xLength, tracked, parallelism > 1);
+        int reach = maxSensor;
+        for (WindowCounts window : this.counted) {
+            reach = Math.max(reach, 2 * window.getDistance());
+        }
+        this.chunkRows = (yLength + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunkCols = (xLength + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.activeLast = new byte[this.chunkRows * this.chunkCols];
+        this.activeNow = new byte[this.chunkRows * this.chunkCols];
+        final int capacity = Neighbourhood.capacity(maxSensor);
+        this.wholeGrid = new Tile(0, 0, xLength, yLength, capacity, random);
+        if (parallelism == 1) {
+            this.pool = null;
+        } else {
+            this.pool = new ForkJoinPool(parallelism);
+            final int side = (Math.max(TILE_SIZE, 2 * reach) + CHUNK_SIZE - 1) / CHUNK_SIZE * CHUNK_SIZE;
+            final int[] xStarts = this.tileStarts(xLength, side, reach);
+            final int[] yStarts = this.tileStarts(yLength, side, reach);
+            for (int colour = 0; colour < 9; colour++) {
+                this.tilesByColour.add(new ArrayList<Tile>());
+            }
+            for (int ty = 0; ty < yStarts.length - 1; ty++) {
+                for (int tx = 0; tx < xStarts.length - 1; tx++) {
+                    final int colour = this.tileColour(ty, yStarts.length - 1) * 3
+                            + this.tileColour(tx, xStarts.length - 1);
+                    this.tilesByColour.get(colour).add(new Tile(xStarts[tx], yStarts[ty], xStarts[tx + 1],
+                            yStarts[ty + 1], capacity, random));
+                }
+            }
+            this.tilesByColour.removeIf(List::isEmpty);
+        }
+    }
+
+    /**
+     * tileStarts. Cuts one axis of the grid into Tiles. On a toroidal grid the
+     * last Tile touches the first, so a last Tile narrower than twice the reach
+     * is merged into the one before it.
+     * 
+     * @param length - the number of cells along the axis
+     * @param side   - the side of a Tile
+     * @param reach  - the largest sensory distance, or twice the largest
+     *               counted one if that is more
+     * @return the first cell of each Tile, followed by length
+     */
+    private int[] tileStarts(int length, int side, int reach) {
+        int count = (length + side - 1) / side;
+        if (this.topology == Topology.TOROIDAL && count > 1 && length - (count - 1) * side < 2 * reach) {
+            count--;
+        }
+        final int[] starts = new int[count + 1];
+        for (int t = 0; t < count; t++) {
+            starts[t] = t * side;
+        }
+        starts[count] = length;
+        return starts;
+    }
+
+    /**
+     * tileColour. Gets the checkerboard colour of a Tile along one axis.
+     * Colours alternate 0, 1, 0, ...; on a toroidal grid an odd last Tile, which
+     * would touch the first Tile of its colour, gets colour 2 instead.
+     * 
+     * @param t     - the position of the Tile along the axis
+     * @param count - the number of Tiles along the axis
+     * @return the colour, 0 to 2
+     */
+    private int tileColour(int t, int count) {
+        if (this.topology == Topology.TOROIDAL && count > 1 && count % 2 == 1 && t == count - 1) {
+            return 2;
+        }
+        return t % 2;
+    }
+
+    /**
+     * letThereBeLight. For each cell in the world, generate a random number and if
+     * that number is a certain value, create life in that cell. The type of life is
+     * determined by the number generated.
+     */
+    @Override
+    public void letThereBeLight() {
+        for (int i = 0; i < this.species.length; i++) {
+            int randNum = this.random.nextNumber(Config.SPAWN_DIE);
+            byte kind = this.config.spawn(randNum);
+            if (kind != Species.EMPTY) {
+                this.birth(i, kind, 0, 0, this.wholeGrid);
+                if (this.metrics != null) {
+                    this.wholeGrid.counters.place(kind, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * getConfig. Gets the configuration this world was built from.
+     * 
+     * @return the Config
+     */
+    @Override
+    public Config getConfig() {
+        return this.config;
+    }
+
+    /**
+     * getRows. Get the number of rows in this world's grid.
+     * 
+     * @return number of rows - an int
+     */
+    @Override
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * getCols. Get the number of columns in this world's grid.
+     * 
+     * @return number of cols - an int
+     */
+    @Override
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * getSpecies. Gets the species id at a location in the grid.
+     * 
+     * @param xpos - x position of the cell
+     * @param ypos - y position of the cell
+     * @return the species id at (xpos, ypos)
+     */
+    @Override
+    public byte getSpecies(int xpos, int ypos) {
+        return this.species[ypos * this.cols + xpos];
+    }
+
+    /**
+     * copySpecies. Copies the species id of every cell, row by row, into an
+     * array.
+     * 
+     * @param out - an array of at least getRows() * getCols() entries
+     */
+    @Override
+    public void copySpecies(byte[] out) {
+        System.arraycopy(this.species, 0, out, 0, this.species.length);
+    }
+
+    /**
+     * planesMatch. Checks the bit planes against the species of every cell.
+     * 
+     * @return true if there are no planes or they agree with every cell
+     */
+    boolean planesMatch() {
+        return this.planes == null || this.planes.matches(this.species);
+    }
+
+    /**
+     * getTurn. Gets the number of turns this world has run.
+     * 
+     * @return the turn
+     */
+    @Override
+    public long getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * getRandom. Gets the generator this world draws from.
+     * 
+     * @return the RandomSource of this world
+     */
+    @Override
+    public RandomSource getRandom() {
+        return this.random;
+    }
+
+    /**
+     * forEachOrganism. Visits every organism in the grid, in row-major order.
+     * 
+     * @param visitor - called once per organism
+     */
+    @Override
+    public void forEachOrganism(OrganismVisitor visitor) {
+        for (int i = 0; i < this.species.length; i++) {
+            if (this.species[i] != Species.EMPTY) {
+                visitor.visit(i, this.species[i], this.age[i], this.id[i], this.parentA[i], this.parentB[i]);
+            }
+        }
+    }
+
+    /**
+     * reset. Empties the grid, marks every chunk active, and sets the turn.
+     * 
+     * @param turn - the number of turns the world will have run
+     */
+    @Override
+    public void reset(long turn) {
+        Arrays.fill(this.species, Species.EMPTY);
+        Arrays.fill(this.age, (short) 0);
+        Arrays.fill(this.flags, (byte) 0);
+        Arrays.fill(this.id, 0);
+        Arrays.fill(this.parentA, 0);
+        Arrays.fill(this.parentB, 0);
+        Arrays.fill(this.activeNow, (byte) 1);
+        for (WindowCounts window : this.counted) {
+            window.clear();
+        }
+        if (this.planes != null) {
+            this.planes.clear();
+        }
+        this.nextId = 1;
+        this.turn = turn;
+        if (this.metrics != null) {
+            this.wholeGrid.counters.clear();
+            this.metrics.rebase();
+        }
+    }
+
+    /**
+     * place. Puts an organism with a full state into an empty cell after reset.
+     * 
+     * @param index   - ypos * cols + xpos
+     * @param species - the species id
+     * @param age     - the age of an Animal; ignored for a Plant
+     * @param id      - the lineage id of an Animal; ignored for a Plant
+     * @param mother  - the lineage id of the first parent of an Animal
+     * @param father  - the lineage id of the second parent of an Animal
+     */
+    @Override
+    public void place(long index, byte species, int age, int id, int mother, int father) {
+        final int i = (int) index;
+        this.assign(i, species);
+        if (this.config.isAnimal(species)) {
+            this.age[i] = (short) age;
+            this.id[i] = id;
+            this.parentA[i] = mother;
+            this.parentB[i] = father;
+            this.nextId = Math.max(this.nextId, id + 1);
+        }
+        if (this.metrics != null) {
+            this.wholeGrid.counters.place(species, 1);
+        }
+    }
+
+    /**
+     * setSpecies. Replaces the organism at a location in the grid with a new
+     * organism of a species, or empties the location.
+     * 
+     * @param xpos    - x position of the cell
+     * @param ypos    - y position of the cell
+     * @param species - the species id to place, or Species.EMPTY to clear
+     */
+    @Override
+    public void setSpecies(int xpos, int ypos, byte species) {
+        final int i = ypos * this.cols + xpos;
+        if (this.species[i] != Species.EMPTY) {
+            this.recordPlacement(this.species[i], -1, i);
+        }
+        this.annihilate(i);
+        if (species != Species.EMPTY) {
+            this.birth(i, species, Lineage.PROGENITOR, Lineage.PROGENITOR, this.wholeGrid);
+            this.recordPlacement(species, 1, i);
+        }
+    }
+
+    /**
+     * recordPlacement. Records an organism added to or removed from a cell
+     * other than by the turns, if recording or counting.
+     * 
+     * @param kind  - the species id of the organism
+     * @param delta - 1 if added, -1 if removed
+     * @param i     - index of the cell
+     */
+    private void recordPlacement(byte kind, int delta, int i) {
+        if (this.wholeGrid.events != null) {
+            this.wholeGrid.events.add(delta > 0 ? Events.BIRTH : Events.DEATH, kind, Species.EMPTY, i, i);
+        }
+        if (this.wholeGrid.counters != null) {
+            this.wholeGrid.counters.place(kind, delta);
+        }
+    }
+
+    /**
+     * setTurnListener. Starts or stops recording the changes made to this world.
+     * Each Tile records its own changes, which are gathered after each
+     * checkerboard sub-phase in Tile order.
+     * 
+     * @param listener - the listener, or null to stop recording
+     */
+    @Override
+    public void setTurnListener(TurnListener listener) {
+        this.listener = listener;
+        this.wholeGrid.events = listener == null ? null : new Events();
+        for (List<Tile> tiles : this.tilesByColour) {
+            for (Tile tile : tiles) {
+                tile.events = listener == null ? null : new Events();
+            }
+        }
+    }
+
+    /**
+     * setMetrics. Starts or stops counting what the turns of this world do.
+     * Each Tile counts into its own Counters, which are summed at the end of
+     * each turn.
+     * 
+     * @param metrics - the Metrics, or null to stop counting
+     */
+    @Override
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        this.wholeGrid.counters = metrics == null ? null : new Counters();
+        for (List<Tile> tiles : this.tilesByColour) {
+            for (Tile tile : tiles) {
+                tile.counters = metrics == null ? null : new Counters();
+            }
+        }
+        if (metrics != null) {
+            metrics.census(this);
+        }
+    }
+
+    /**
+     * close. Shuts down the pool of a parallel GridWorld; a sequential one holds
+     * nothing to release. The world may not run turns after.
+     */
+    @Override
+    public void close() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    /**
+     * twentyThreeHoursAndFiftySixMinutes. Runs the turns for the organisms in the
+     * world in the configured turn order, scanning the species array once per
+     * species.
+     */
+    @Override
+    public void twentyThreeHoursAndFiftySixMinutes() {
+        this.startTurn();
+        this.turn++;
+        for (byte phase : this.turnOrder) {
+            final long start = this.metrics != null ? System.nanoTime() : 0;
+            if (this.pool == null) {
+                this.scan(this.wholeGrid, phase);
+            } else {
+                this.runInParallel(phase);
+            }
+            if (this.metrics != null) {
+                this.wholeGrid.counters.time(phase, System.nanoTime() - start);
+            }
+        }
+        if (this.listener != null) {
+            this.listener.turnEnded(this.turn, this.wholeGrid.events);
+            this.wholeGrid.events.clear();
+        }
+        if (this.metrics != null) {
+            for (List<Tile> tiles : this.tilesByColour) {
+                for (Tile tile : tiles) {
+                    tile.counters.addTo(this.wholeGrid.counters);
+                    tile.counters.clear();
+                }
+            }
+            this.metrics.turnEnded(this.turn, this.wholeGrid.counters);
+            this.wholeGrid.counters.clear();
+        }
+    }
+
+    /**
+     * startTurn. Clears the flags of every chunk active last turn, the only
+     * chunks where flags can be set, and moves on the active chunk sets.
+     */
+    private void startTurn() {
+        final byte[] last = this.activeLast;
+        final byte[] now = this.activeNow;
+        for (int chunk = 0; chunk < now.length; chunk++) {
+            if ((last[chunk] | now[chunk]) != 0) {
+                final int x0 = chunk % this.chunkCols << CHUNK_SHIFT;
+                final int y0 = chunk / this.chunkCols << CHUNK_SHIFT;
+                final int x1 = Math.min(x0 + CHUNK_SIZE, this.cols);
+                final int y1 = Math.min(y0 + CHUNK_SIZE, this.rows);
+                for (int row = y0; row < y1; row++) {
+                    Arrays.fill(this.flags, row * this.cols + x0, row * this.cols + x1, (byte) 0);
+                }
+            }
+        }
+        Arrays.fill(last, (byte) 0);
+        this.activeLast = now;
+        this.activeNow = last;
+    }
+
+    /**
+     * isActive. Determines whether a chunk has to be scanned.
+     * 
+     * @param chunk - index of the chunk
+     * @return true if the chunk is active
+     */
+    private boolean isActive(int chunk) {
+        return (this.activeLast[chunk] | this.activeNow[chunk]) != 0;
+    }
+
+    /**
+     * changed. Marks active every chunk holding a Plant which could see a cell.
+     * Called whenever a cell changes species.
+     * 
+     * @param i - index of the cell
+     */
+    private void changed(int i) {
+        final int reach = this.plantReach;
+        final int y = i / this.cols;
+        final int x = i - y * this.cols;
+        if (this.topology == Topology.TOROIDAL
+                && (x < reach || y < reach || x + reach >= this.cols || y + reach >= this.rows)) {
+            for (int row = y - reach; row <= y + reach; row++) {
+                final int cy = Math.floorMod(row, this.rows) >> CHUNK_SHIFT;
+                for (int col = x - reach; col <= x + reach; col++) {
+                    this.activeNow[cy * this.chunkCols + (Math.floorMod(col, this.cols) >> CHUNK_SHIFT)] = 1;
+                }
+            }
+            return;
+        }
+        final int cx0 = Math.max(0, x - reach) >> CHUNK_SHIFT;
+        final int cx1 = Math.min(this.cols - 1, x + reach) >> CHUNK_SHIFT;
+        final int cy0 = Math.max(0, y - reach) >> CHUNK_SHIFT;
+        final int cy1 = Math.min(this.rows - 1, y + reach) >> CHUNK_SHIFT;
+        if (cx0 == cx1 && cy0 == cy1) {
+            this.activeNow[cy0 * this.chunkCols + cx0] = 1;
+            return;
+        }
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                this.activeNow[cy * this.chunkCols + cx] = 1;
+            }
+        }
+    }
+
+    /**
+     * runInParallel. Runs one phase as four checkerboard sub-phases, the Tiles of
+     * each sub-phase running concurrently on the pool.
+     * 
+     * @param phase - the species id taking its turn
+     */
+    private void runInParallel(final byte phase) {
+        for (final List<Tile> tiles : this.tilesByColour) {
+            for (Tile tile : tiles) {
+                tile.reinitialize();
+                tile.phase = phase;
+                tile.random = this.random.split(tileKey(this.turn, phase, tile.x0, tile.y0));
+            }
+            this.pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tiles);
+                }
+            });
+            for (Tile tile : tiles) {
+                this.numberBirths(tile);
+            }
+            if (this.listener != null) {
+                for (Tile tile : tiles) {
+                    this.wholeGrid.events.addAll(tile.events);
+                    tile.events.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * numberBirths. Gives the Animals born in a Tile during a sub-phase their
+     * lineage ids, in order of birth, replacing the provisional ids they and
+     * their children were given. The Tiles of a sub-phase are numbered in a
+     * fixed order, so the ids do not depend on the threads. A provisional id
+     * is only ever seen within its own Tile, since Tiles running at once
+     * neither read nor write a common cell. A cell whose newborn has since
+     * been replaced keeps its new occupant.
+     * 
+     * @param tile - a Tile whose sub-phase has ended
+     */
+    private void numberBirths(Tile tile) {
+        final int base = this.nextId;
+        for (int k = 0; k < tile.bornCount; k++) {
+            final int i = tile.born[k];
+            if (this.id[i] != -(k + 1)) {
+                continue;
+            }
+            this.id[i] = base + k;
+            if (this.parentA[i] < 0) {
+                this.parentA[i] = base - this.parentA[i] - 1;
+            }
+            if (this.parentB[i] < 0) {
+                this.parentB[i] = base - this.parentB[i] - 1;
+            }
+        }
+        this.nextId = base + tile.bornCount;
+        tile.bornCount = 0;
+    }
+
+    /**
+     * tileKey. Packs a turn, a phase and a Tile position into the key of the
+     * Tile's split of the world's generator.
+     * 
+     * @param turn  - the turn number
+     * @param phase - the species id taking its turn
+     * @param x0    - the left column of the Tile
+     * @param y0    - the top row of the Tile
+     * @return the key for the Tile's generator
+     */
+    private static long tileKey(long turn, byte phase, int x0, int y0) {
+        return SplitMix64.mix((turn << 8 | phase) ^ SplitMix64.mix((long) y0 << 32 | x0));
+    }
+
+    /**
+     * scan. Runs the turns of the organisms of one species within a Tile, in
+     * row-major order, skipping the runs of cells in inactive chunks. Whether a
+     * chunk is active is checked as the scan reaches it, so a chunk woken by
+     * an earlier organism of the same phase is scanned.
+     * 
+     * @param tile  - the Tile to scan
+     * @param phase - the species id taking its turn
+     */
+    private void scan(Tile tile, byte phase) {
+        for (int row = tile.y0; row < tile.y1; row++) {
+            final int base = row * this.cols;
+            final int chunkRow = (row >> CHUNK_SHIFT) * this.chunkCols;
+            int x = tile.x0;
+            while (x < tile.x1) {
+                int chunk = chunkRow + (x >> CHUNK_SHIFT);
+                if (!this.isActive(chunk)) {
+                    x += CHUNK_SIZE;
+                    continue;
+                }
+                int runEnd = Math.min(x + CHUNK_SIZE, tile.x1);
+                while (runEnd < tile.x1 && this.isActive(chunkRow + (runEnd >> CHUNK_SHIFT))) {
+                    runEnd = Math.min(runEnd + CHUNK_SIZE, tile.x1);
+                }
+                final int end = base + runEnd;
+                if (this.planar[phase]) {
+                    this.plantRow(tile, phase, row, x, runEnd);
+                    x = runEnd;
+                    continue;
+                }
+                for (int i = base + x; i < end; i++) {
+                    if (this.species[i] == phase && (this.flags[i] & ACTED) == 0) {
+                        chunk = chunkRow + ((i - base) >> CHUNK_SHIFT);
+                        if (this.plant[phase]) {
+                            if (this.plantTurn(i, phase, tile)) {
+                                this.activeNow[chunk] = 1;
+                            }
+                        } else {
+                            this.animalTurn(i, tile);
+                            this.activeNow[chunk] = 1;
+                        }
+                    }
+                }
+                x = runEnd;
+            }
+        }
+    }
+
+    /**
+     * plantTurn. Plant turn actions. If a certain number of neighbours are also
+     * Plants of its species and there are a certain number of empty neighbours,
+     * one of those empty neighbours has a chance to become a Plant of its species.
+     * Where the WindowCounts of the species cover the Plant, the neighbours are
+     * counted from them, and enumerated only if the Plant seeds.
+     * 
+     * @param i    - index of the Plant
+     * @param kind - species id of the Plant
+     * @param tile - the Tile being scanned
+     * @return true if the Plant drew a random number
+     */
+    private boolean plantTurn(int i, byte kind, Tile tile) {
+        final int[] neighbours = tile.neighbours;
+        final int[] validNeighbours = tile.validNeighbours;
+        final WindowCounts window = this.windows[kind];
+        final boolean isCounted = window != null && window.covers(i);
+        int plantNeighbourCount = 0;
+        int emptyCount = 0;
+        if (isCounted) {
+            plantNeighbourCount = window.count(i, kind) - 1;
+            emptyCount = window.count(i, Species.EMPTY);
+        } else {
+            final int count = this.neighbourhoods[kind].collect(i, neighbours);
+            for (int n = 0; n < count; n++) {
+                final int nb = neighbours[n];
+                if (this.species[nb] == kind) {
+                    plantNeighbourCount++;
+                } else if (this.species[nb] == Species.EMPTY) {
+                    validNeighbours[emptyCount++] = nb;
+                }
+            }
+        }
+        if (plantNeighbourCount >= this.likeNb[kind] && emptyCount >= this.emptyNb[kind]) {
+            this.seed(i, kind, tile, isCounted ? -1 : emptyCount);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * seed. Gives a Plant which may seed its chance to: if it does, one of its
+     * empty neighbours becomes a Plant of its species.
+     * 
+     * @param i      - index of the Plant
+     * @param kind   - species id of the Plant
+     * @param tile   - the Tile being scanned
+     * @param listed - the number of empty neighbours already in the Tile's
+     *               validNeighbours, or -1 to list them only if the Plant seeds
+     */
+    private void seed(int i, byte kind, Tile tile, int listed) {
+        int randNum = tile.random.nextNumber(99);
+        if (randNum > this.chance[kind]) {
+            return;
+        }
+        final int[] validNeighbours = tile.validNeighbours;
+        int emptyCount = listed;
+        if (emptyCount < 0) {
+            final int[] neighbours = tile.neighbours;
+            final int count = this.neighbourhoods[kind].collect(i, neighbours);
+            emptyCount = 0;
+            for (int n = 0; n < count; n++) {
+                if (this.species[neighbours[n]] == Species.EMPTY) {
+                    validNeighbours[emptyCount++] = neighbours[n];
+                }
+            }
+        }
+        randNum = tile.random.nextNumber(emptyCount);
+        this.birth(validNeighbours[randNum], kind, 0, 0, tile);
+        tile.record(Events.BIRTH, kind, Species.EMPTY, validNeighbours[randNum], validNeighbours[randNum]);
+        tile.seeded = true;
+    }
+
+    /**
+     * plantRow. Runs the turns of the Plants of one species sensing one cell
+     * within a run of a row, 64 cells at a time. The BitPlanes give the
+     * Plants of each word which may seed, and only those take their turns;
+     * once a Plant seeds, the rest of the word is read again. On a grid which
+     * is not clipped, the cells on its edges take their turns one by one.
+     * 
+     * @param tile - the Tile being scanned
+     * @param kind - species id of the Plants
+     * @param row  - the row
+     * @param x0   - the first column of the run, inclusive
+     * @param x1   - the last column of the run, exclusive
+     */
+    private void plantRow(Tile tile, byte kind, int row, int x0, int x1) {
+        final int base = row * this.cols;
+        final int chunkRow = (row >> CHUNK_SHIFT) * this.chunkCols;
+        final boolean edgeRow = this.topology != Topology.CLIPPED && (row == 0 || row == this.rows - 1);
+        for (int x = x0; x < x1;) {
+            final int w = x >>> 6;
+            final int wordEnd = Math.min(x1, (w + 1) << 6);
+            final int n = wordEnd - x;
+            long span = (n == Long.SIZE ? -1L : (1L << n) - 1) << x;
+            long edges = 0;
+            if (edgeRow) {
+                edges = -1L;
+            } else if (this.topology != Topology.CLIPPED) {
+                edges = (w == 0 ? 1L : 0L) | (w == (this.cols - 1) >>> 6 ? 1L << this.cols - 1 : 0L);
+            }
+            long pending = this.plantsReady(kind, row, w, edges) & span;
+            while (pending != 0) {
+                final int bit = Long.numberOfTrailingZeros(pending);
+                pending &= pending - 1;
+                final int i = base + (w << 6) + bit;
+                if ((this.flags[i] & ACTED) != 0) {
+                    continue;
+                }
+                tile.seeded = false;
+                boolean drew = true;
+                if ((edges >>> bit & 1) != 0) {
+                    drew = this.plantTurn(i, kind, tile);
+                } else {
+                    this.seed(i, kind, tile, -1);
+                }
+                if (drew) {
+                    this.activeNow[chunkRow + ((i - base) >> CHUNK_SHIFT)] = 1;
+                }
+                if (tile.seeded) {
+                    span &= bit == Long.SIZE - 1 ? 0L : -1L << bit + 1;
+                    pending = this.plantsReady(kind, row, w, edges) & span;
+                }
+            }
+            x = wordEnd;
+        }
+    }
+
+    /**
+     * plantsReady. Finds the Plants of a word which may seed, as BitPlanes
+     * count them, together with the Plants on the edges of a grid which is
+     * not clipped, whose neighbours BitPlanes do not count.
+     * 
+     * @param kind  - species id of the Plants
+     * @param row   - the row
+     * @param w     - the word within the row
+     * @param edges - the cells of the word on the edges of the grid
+     * @return bit x is set for a Plant at (64 * w + x, row) to take its turn
+     */
+    private long plantsReady(byte kind, int row, int w, long edges) {
+        final long ready = this.planes.ready(kind, row, w, this.likeNb[kind], this.emptyNb[kind]);
+        return (ready & ~edges | edges) & this.planes.word(kind, row, w);
+    }
+
+    /**
+     * animalTurn. Animal turn actions.
+     * <ol>
+     * <li>Increase age.</li>
+     * <li>Reproduce, if possible.</li>
+     * <li>If has not mated, move. If food is found, age will be set to 0.</li>
+     * <li>If it is time to die, then die.</li>
+     * </ol>
+     * 
+     * @param i    - index of the Animal
+     * @param tile - the Tile being scanned
+     */
+    private void animalTurn(int i, Tile tile) {
+        final byte kind = this.species[i];
+        this.age[i]++;
+        this.reproduce(i, kind, tile);
+        int position = i;
+        if ((this.flags[i] & MATED) == 0) {
+            position = this.move(i, kind, tile);
+        }
+        if (this.age[position] > this.lifespan[kind]) {
+            tile.record(Events.DEATH, kind, Species.EMPTY, position, position);
+            this.annihilate(position);
+        } else {
+            this.flags[position] |= ACTED;
+        }
+    }
+
+    /**
+     * reproduce. If a certain number of neighbours are potential mates, a certain
+     * number are food, and a certain number are empty, one of the empty neighbours
+     * is filled with a baby.
+     * 
+     * @param i    - index of the Animal
+     * @param kind - species id of the Animal
+     * @param tile - the Tile being scanned
+     */
+    private void reproduce(int i, byte kind, Tile tile) {
+        if ((this.flags[i] & MATED) != 0) {
+            return;
+        }
+        final int[] neighbours = tile.neighbours;
+        final int[] validNeighbours = tile.validNeighbours;
+        final int count = this.neighbourhoods[kind].collect(i, neighbours);
+        int neighbourCount = 0;
+        int foodCount = 0;
+        int emptyCount = 0;
+        int partner = -1;
+        for (int n = 0; n < count; n++) {
+            final int nb = neighbours[n];
+            final byte other = this.species[nb];
+            if (other == kind && !this.isIncest(i, nb)) {
+                neighbourCount++;
+                if (partner < 0) {
+                    partner = nb;
+                }
+            }
+            if (this.eats(kind, other)) {
+                foodCount++;
+            }
+            if (other == Species.EMPTY) {
+                validNeighbours[emptyCount++] = nb;
+            }
+        }
+        if (neighbourCount < this.likeNb[kind]) {
+            tile.countFailure(kind, Counters.LIKE_NB);
+        } else if (foodCount < this.foodNb[kind]) {
+            tile.countFailure(kind, Counters.FOOD_NB);
+        } else if (emptyCount < this.emptyNb[kind]) {
+            tile.countFailure(kind, Counters.EMPTY_NB);
+        } else {
+            final int randNum = tile.random.nextNumber(emptyCount);
+            this.birth(validNeighbours[randNum], kind, this.id[i], this.id[partner], tile);
+            tile.record(Events.BIRTH, kind, Species.EMPTY, validNeighbours[randNum], validNeighbours[randNum]);
+            this.flags[partner] |= MATED;
+            this.flags[i] |= MATED;
+        }
+    }
+
+    /**
+     * eats. Determines whether one species eats another.
+     * 
+     * @param kind  - species id of the eater
+     * @param other - species id of the other, possibly Species.EMPTY
+     * @return true if kind eats other
+     */
+    private boolean eats(byte kind, byte other) {
+        return (this.prey[kind] >>> other & 1) != 0;
+    }
+
+    /**
+     * isIncest. Determines whether two Animals are parent and child.
+     * 
+     * @param a - index of one Animal
+     * @param b - index of the other Animal
+     * @return true if mating would be incestuous; false otherwise
+     */
+    private boolean isIncest(int a, int b) {
+        return this.parentA[a] == this.id[b] || this.parentB[a] == this.id[b] || this.parentA[b] == this.id[a]
+                || this.parentB[b] == this.id[a];
+    }
+
+    /**
+     * move. Moves an Animal to a random neighbouring cell which is empty or holds
+     * food. If the cell holds food, the Animal eats it.
+     * 
+     * @param i    - index of the Animal
+     * @param kind - species id of the Animal
+     * @param tile - the Tile being scanned
+     * @return the index the Animal ends up at
+     */
+    private int move(int i, byte kind, Tile tile) {
+        final int[] neighbours = tile.neighbours;
+        final int[] validNeighbours = tile.validNeighbours;
+        final int count = this.neighbourhoods[kind].collect(i, neighbours);
+        int validCount = 0;
+        for (int n = 0; n < count; n++) {
+            final int nb = neighbours[n];
+            final byte other = this.species[nb];
+            if (this.eats(kind, other) || other == Species.EMPTY) {
+                validNeighbours[validCount++] = nb;
+            }
+        }
+        if (validCount == 0) {
+            return i;
+        }
+        final int target = validNeighbours[tile.random.nextNumber(validCount)];
+        final byte prey = this.species[target];
+        tile.record(prey == Species.EMPTY ? Events.MOVE : Events.EAT, kind, prey, i, target);
+        if (this.eats(kind, prey)) {
+            this.age[i] = 0;
+        }
+        this.assign(target, kind);
+        this.changed(target);
+        this.age[target] = this.age[i];
+        this.flags[target] = this.flags[i];
+        this.id[target] = this.id[i];
+        this.parentA[target] = this.parentA[i];
+        this.parentB[target] = this.parentB[i];
+        this.annihilate(i);
+        return target;
+    }
+
+    /**
+     * birth. Puts a new organism in an empty cell. The organism may not act until
+     * the next turn. An Animal born in a Tile of a parallel phase takes a
+     * provisional id until numberBirths gives it its own.
+     * 
+     * @param i         - index of the cell
+     * @param kind      - species id of the organism
+     * @param motherId  - lineage id of the first parent
+     * @param fatherId  - lineage id of the second parent
+     * @param tile      - the Tile being scanned, or the whole grid
+     */
+    private void birth(int i, byte kind, int motherId, int fatherId, Tile tile) {
+        this.assign(i, kind);
+        this.changed(i);
+        this.age[i] = 0;
+        this.flags[i] = ACTED;
+        if (this.plant[kind]) {
+            this.id[i] = 0;
+        } else {
+            this.id[i] = tile == this.wholeGrid ? this.nextId++ : tile.bear(i);
+        }
+        this.parentA[i] = motherId;
+        this.parentB[i] = fatherId;
+    }
+
+    /**
+     * annihilate. Removes the organism in a cell.
+     * 
+     * @param i - index of the cell
+     */
+    private void annihilate(int i) {
+        if (this.species[i] != Species.EMPTY) {
+            this.changed(i);
+        }
+        this.assign(i, Species.EMPTY);
+        this.age[i] = 0;
+        this.flags[i] = 0;
+        this.id[i] = 0;
+        this.parentA[i] = 0;
+        this.parentB[i] = 0;
+    }
+
+    /**
+     * assign. Sets the species id in a cell, updating the WindowCounts and
+     * BitPlanes.
+     * 
+     * @param i    - index of the cell
+     * @param kind - the species id
+     */
+    private void assign(int i, byte kind) {
+        for (WindowCounts window : this.counted) {
+            window.update(i, this.species[i], kind);
+        }
+        if (this.planes != null) {
+            this.planes.update(i, this.species[i], kind);
+        }
+        this.species[i] = kind;
+    }
+
+    /**
+     * Tile.
+     * 
+     * A rectangle of the grid scanned as a unit, with the scratch buffers and
+     * generator used by the organisms acting within it.
+     */
+    private final class Tile extends RecursiveAction {
+
+        /** The serial version; ForkJoinTasks are Serializable. */
+        private static final long serialVersionUID = 1L;
+
+        /** The columns [x0, x1) and rows [y0, y1) this Tile covers. */
+        private final int x0;
+        private final int y0;
+        private final int x1;
+        private final int y1;
+
+        /** Scratch buffer holding the neighbour indices of the acting organism. */
+        private final int[] neighbours;
+
+        /** Scratch buffer holding the subset of neighbours which are valid targets. */
+        private final int[] validNeighbours;
+
+        /** The generator organisms in this Tile draw from. */
+        private RandomSource random;
+
+        /** The species id taking its turn when this Tile runs as a task. */
+        private byte phase;
+
+        /** The changes made within this Tile, or null if not recording. */
+        private Events events;
+
+        /** The counts of this Tile in the turn under way, or null if not counting. */
+        private Counters counters;
+
+        /** Set when a Plant in this Tile seeds, so BitPlanes are read again. */
+        private boolean seeded;
+
+        /** The cells the Animals born in this Tile this sub-phase were born in. */
+        private int[] born = new int[16];
+        private int bornCount;
+
+        /**
+         * Constructor. Creates a Tile.
+         * 
+         * @param x0       - the left column, inclusive
+         * @param y0       - the top row, inclusive
+         * @param x1       - the right column, exclusive
+         * @param y1       - the bottom row, exclusive
+         * @param capacity - the size of the scratch buffers
+         * @param random   - the generator to draw from
+         */
+        private Tile(int x0, int y0, int x1, int y1, int capacity, RandomSource random) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.neighbours = new int[capacity];
+            this.validNeighbours = new int[capacity];
+            this.random = random;
+        }
+
+        /**
+         * compute. Scans this Tile for the current phase.
+         */
+        @Override
+        protected void compute() {
+            scan(this, this.phase);
+        }
+
+        /**
+         * record. Records a change made within this Tile, if recording, and
+         * counts it, if counting.
+         * 
+         * @param type - the Events type
+         * @param kind - the species id of the organism
+         * @param prey - the species id eaten, or Species.EMPTY
+         * @param from - the index of the cell the change starts in
+         * @param to   - the index of the cell the change ends in
+         */
+        private void record(byte type, byte kind, byte prey, int from, int to) {
+            if (this.events != null) {
+                this.events.add(type, kind, prey, from, to);
+            }
+            if (this.counters != null) {
+                this.counters.count(type, kind, prey);
+            }
+        }
+
+        /**
+         * bear. Records an Animal born in this Tile during a parallel
+         * sub-phase.
+         * 
+         * @param i - index of the cell it was born in
+         * @return its provisional id: -1 for the first born, -2 for the next,
+         *         and so on
+         */
+        private int bear(int i) {
+            if (this.bornCount == this.born.length) {
+                this.born = Arrays.copyOf(this.born, 2 * this.bornCount);
+            }
+            this.born[this.bornCount++] = i;
+            return -this.bornCount;
+        }
+
+        /**
+         * countFailure. Counts a reproduction which failed within this Tile, if
+         * counting.
+         * 
+         * @param kind   - the species id of the Animal
+         * @param reason - Counters.LIKE_NB, FOOD_NB or EMPTY_NB
+         */
+        private void countFailure(byte kind, int reason) {
+            if (this.counters != null) {
+                this.counters.failed(kind, reason);
+            }
+        }
+    }
+}
@@ -1,11 +0,0 @@
-
-/**
- * HerbivoreEdible.
- * 
- * Interface to be implemented on classes which are edible by Herbivores.
- * 
- * @author Maxwell Babey
- * @version 2022, 1.0
- */
-public interface HerbivoreEdible {
-}
@@ -0,0 +1,170 @@
+import java.util.Arrays;
+
+/**
+ * Lineage.
+ * 
+ * <p>
+ * An id-based family table for Animals. Every living Animal holds an int id;
+ * the table records the ids of its two parents. No Organism references are
+ * kept, so a dead Animal can be collected as soon as it leaves the grid, and
+ * its row in the table is reclaimed for the next birth.
+ * </p>
+ * 
+ * <p>
+ * An id packs a slot in the table with the generation of that slot. A slot's
+ * generation is bumped each time it is reclaimed, so the stale id of a dead
+ * parent never equals the id of the Animal which now holds the slot, and the
+ * incest check stays exact without tracking children. Generations wrap after
+ * 2^(31 - slot bits) reuses of one slot; a false match then needs the wrapped
+ * slot's new holder to be the same species and a neighbour of the stale
+ * parent's child.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public class Lineage {
+
+    /** The id standing for the parents of the first Animals of a World. */
+    public static final int PROGENITOR = 0;
+
+    /** The number of low bits of an id which hold the slot. */
+    private final int slotBits;
+
+    /** Mask selecting the slot bits of an id. */
+    private final int slotMask;
+
+    /** The parent ids of the Animal in each slot. Slot 0 is never used. */
+    private int[] motherOf;
+    private int[] fatherOf;
+
+    /** The current generation of each slot. */
+    private int[] generation;
+
+    /** Reclaimed slots waiting to be reused. */
+    private int[] free;
+    private int freeCount;
+
+    /** The number of slots ever used, including slot 0. */
+    private int used = 1;
+
+    /**
+     * Constructor. Creates an empty Lineage for a number of living Animals.
+     * 
+     * @param capacity - the most Animals alive at once, usually the number of
+     *                 cells in the World
+     */
+    public Lineage(int capacity) {
+        if ((capacity < 1) || (capacity >= (1 << 30))) {
+            throw new IllegalArgumentException("capacity cannot be " + "< 1 or >= 2^30 - got: " + capacity);
+        }
+        this.slotBits = 32 - Integer.numberOfLeadingZeros(capacity);
+        this.slotMask = (1 << this.slotBits) - 1;
+        final int initial = Math.min(capacity + 1, 1024);
+        this.motherOf = new int[initial];
+        this.fatherOf = new int[initial];
+        this.generation = new int[initial];
+        this.free = new int[initial];
+    }
+
+    /**
+     * register. Records the birth of an Animal.
+     * 
+     * @param mother - the id of the first parent, or PROGENITOR
+     * @param father - the id of the second parent, or PROGENITOR
+     * @return the id of the new Animal
+     */
+    public int register(int mother, int father) {
+        final int slot;
+        if (this.freeCount > 0) {
+            slot = this.free[--this.freeCount];
+        } else {
+            slot = this.used++;
+            if (slot == this.motherOf.length) {
+                this.grow();
+            }
+        }
+        this.motherOf[slot] = mother;
+        this.fatherOf[slot] = father;
+        return (this.generation[slot] << this.slotBits) | slot;
+    }
+
+    /**
+     * release. Records the death of an Animal, reclaiming its slot.
+     * 
+     * @param id - the id of the dead Animal
+     */
+    public void release(int id) {
+        final int slot = id & this.slotMask;
+        this.generation[slot] = (this.generation[slot] + 1) & (Integer.MAX_VALUE >>> this.slotBits);
+        this.motherOf[slot] = PROGENITOR;
+        this.fatherOf[slot] = PROGENITOR;
+        this.free[this.freeCount++] = slot;
+    }
+
+    /**
+     * isIncest. Determines whether two living Animals are parent and child.
+     * 
+     * @param a - the id of one Animal
+     * @param b - the id of the other Animal
+     * @return true if either is a parent of the other; false otherwise
+     */
+    public boolean isIncest(int a, int b) {
+        final int slotA = a & this.slotMask;
+        final int slotB = b & this.slotMask;
+        return this.motherOf[slotA] == b || this.fatherOf[slotA] == b || this.motherOf[slotB] == a
+                || this.fatherOf[slotB] == a;
+    }
+
+    /**
+     * getMother. Gets the first parent of a living Animal.
+     * 
+     * @param id - the id of the Animal
+     * @return the id of its first parent, or PROGENITOR
+     */
+    public int getMother(int id) {
+        return this.motherOf[id & this.slotMask];
+    }
+
+    /**
+     * getFather. Gets the second parent of a living Animal.
+     * 
+     * @param id - the id of the Animal
+     * @return the id of its second parent, or PROGENITOR
+     */
+    public int getFather(int id) {
+        return this.fatherOf[id & this.slotMask];
+    }
+
+    /**
+     * clear. Releases every id at once. The next ids registered are 1, 2, 3
+     * and so on, as in a new Lineage.
+     */
+    public void clear() {
+        Arrays.fill(this.motherOf, PROGENITOR);
+        Arrays.fill(this.fatherOf, PROGENITOR);
+        Arrays.fill(this.generation, 0);
+        this.freeCount = 0;
+        this.used = 1;
+    }
+
+    /**
+     * size. Gets the number of living Animals in this Lineage.
+     * 
+     * @return the number of registered, unreleased ids
+     */
+    public int size() {
+        return this.used - 1 - this.freeCount;
+    }
+
+    /**
+     * grow. Doubles the size of the table.
+     */
+    private void grow() {
+        final int length = this.motherOf.length * 2;
+        this.motherOf = Arrays.copyOf(this.motherOf, length);
+        this.fatherOf = Arrays.copyOf(this.fatherOf, length);
+        this.generation = Arrays.copyOf(this.generation, length);
+        this.free = Arrays.copyOf(this.free, length);
+    }
+}
@@ -1,8 +1,11 @@
+import java.io.IOException;
+
 
 /**
  * Main.
  * 
- * Drives the game.
+ * Drives the game. Arguments configure the World: --config=file reads a
+ * properties file and key=value overrides one setting (see Config).
  * 
  * @author Maxwell Babey
  * @version 2022, 1.0
@@ -12,10 +15,11 @@ public final class Main {
     /**
      * Drives the program.
      * 
-     * @param args
+     * @param args - --config=file and key=value settings
+     * @throws IOException if a config file cannot be read
      */
-    public static void main(final String[] args) {
-        GameLogic GameOfLife = new GameLogic();
+    public static void main(final String[] args) throws IOException {
+        GameLogic GameOfLife = new GameLogic(Config.fromArgs(args));
         GameOfLife.startGameOfLife();
     }
 }
@@ -0,0 +1,1404 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * MappedWorld.
+ * 
+ * <p>
+ * A World backend whose state lives off the Java heap, in a file mapped into
+ * memory, so that grids far larger than the heap can be run and the operating
+ * system pages the grid in and out as the turns sweep over it. The file holds
+ * the same planes as a GridWorld, one after another: the species, flags, age,
+ * id, parentA and parentB of every cell, each in row-major order. A mapping
+ * cannot exceed 2 GB, so each plane is mapped in bands of whole rows, no
+ * band of any plane being larger than MAX_BAND_BYTES; a cell is addressed by
+ * its band and its offset within the band, and grids of more than
+ * Integer.MAX_VALUE cells can be run.
+ * </p>
+ * 
+ * <p>
+ * The turn rules are the same as those of a GridWorld, and cells are visited
+ * in the same row-major order, so a MappedWorld, a SparseWorld and a GridWorld
+ * given identically seeded generators evolve identically. Turns run on one
+ * thread, streaming through the species plane band by band. A census counts
+ * the cells of each species in every chunk of CHUNK_ROWS rows, and a phase
+ * passes over the chunks holding none of its species, without touching their
+ * pages, so memory in use follows the population as in a SparseWorld; within
+ * a chunk, eight cells at a time are passed over when none holds the species.
+ * The flags only hold for the turn under way, so only the chunks in which a
+ * flag was set are cleared before the next.
+ * </p>
+ * 
+ * <p>
+ * The file is also a checkpoint: sync writes the turn, the generator state
+ * and the next lineage id into its header and forces every plane to disk,
+ * after which open resumes the world from the file, as a Checkpoint would,
+ * without copying the grid. The header is marked unsynced as soon as the
+ * world changes again, so a file left by a run which stopped between syncs is
+ * refused rather than resumed from a grid ahead of its header. A world with
+ * no file configured maps a temporary file, deleted on close or at exit. A
+ * world locks its file while it is open, and a second world refuses to map a
+ * locked file rather than overwrite the planes of the first.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public class MappedWorld implements Ecosystem, Closeable {
+
+    /** The first four bytes of every mapped world file: "GOLM". */
+    public static final int MAGIC = 0x474F4C4D;
+
+    /** The version of the format written. */
+    public static final int VERSION = 1;
+
+    /** The most bytes mapped by one band of a plane. */
+    public static final int MAX_BAND_BYTES = 1 << 30;
+
+    /** The number of rows in each chunk of the census. */
+    public static final int CHUNK_ROWS = 64;
+
+    /** The planes start on multiples of this, the common page size. */
+    private static final int PAGE_SIZE = 4096;
+
+    /** The offset of the synced byte in the header. */
+    private static final int SYNCED_AT = 8;
+
+    /** The size of the header before the Config. */
+    private static final int HEADER_SIZE = 4 + 4 + 1 + 8 + 8 + 4 + 4 + 4 + 4 + 4;
+
+    /** Flag set on an organism which has acted, or may not act, this turn. */
+    private static final byte ACTED = 1;
+
+    /** Flag set on an Animal which has mated this turn. */
+    private static final byte MATED = 2;
+
+    /** A byte of 1 in every byte of a long, and of 0x80. */
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    /** Zeroes copied over the bands which are cleared. */
+    private static final byte[] ZEROES = new byte[1 << 16];
+
+    /** The configuration this world was built from. */
+    private final Config config;
+
+    /** Whether each species is a Plant, indexed by species id. */
+    private final boolean[] plant;
+
+    /** The species each species eats as a bit mask, indexed by species id. */
+    private final int[] prey;
+
+    /** The lifespan of each species in turns, indexed by species id. */
+    private final int[] lifespan;
+
+    /** The sensory distance of each species in Cells, indexed by species id. */
+    private final int[] sensor;
+
+    /** Like-species neighbours needed to reproduce, indexed by species id. */
+    private final int[] likeNb;
+
+    /** Food neighbours needed to reproduce, indexed by species id. */
+    private final int[] foodNb;
+
+    /** Empty neighbours needed to reproduce, indexed by species id. */
+    private final int[] emptyNb;
+
+    /** The chance that a Plant which may seed does seed, indexed by species id. */
+    private final int[] chance;
+
+    /** The species ids in the order they take their turns. */
+    private final byte[] turnOrder;
+
+    /**
+     * The offsets, within a band, of the neighbours of each species, in
+     * row-major order, indexed by species id.
+     */
+    private final int[][] bandOffsets;
+
+    /** The number of rows and columns in the grid. */
+    private final int rows;
+    private final int cols;
+
+    /** The number of rows in each band, and of bands; the last may be shorter. */
+    private final int bandRows;
+    private final int bands;
+
+    /** How the edges of the grid behave. */
+    private final Topology topology;
+
+    /** The generator this world draws from. */
+    private final RandomSource random;
+
+    /** The file, and whether it is deleted on close. */
+    private final Path file;
+    private final boolean temporary;
+
+    /** The open file. */
+    private final FileChannel channel;
+
+    /** The size of the header, which the planes follow. */
+    private final int headerSize;
+
+    /** Each band of each plane of the state of the cells, indexed by band. */
+    private final MappedByteBuffer[] species;
+    private final MappedByteBuffer[] flags;
+    private final MappedByteBuffer[] age;
+    private final MappedByteBuffer[] id;
+    private final MappedByteBuffer[] parentA;
+    private final MappedByteBuffer[] parentB;
+
+    /** Whether a flag has been set in each chunk since it was last cleared. */
+    private final boolean[] flagged;
+
+    /** The number of species ids in use, Species.EMPTY included. */
+    private final int kinds;
+
+    /**
+     * The number of cells holding each species id, Species.EMPTY included, in
+     * each chunk of CHUNK_ROWS rows, indexed by chunk * kinds + species id.
+     */
+    private final long[] census;
+
+    /** The next lineage id to hand out. Id 0 stands for the progenitors. */
+    private int nextId = 1;
+
+    /** The number of turns this world has run. */
+    private long turn;
+
+    /** Whether the file holds the state of this world, as of its last sync. */
+    private boolean synced;
+
+    /** Follows the changes made to this world, or null. */
+    private TurnListener listener;
+
+    /** The changes made since the last turn ended, or null if not recording. */
+    private Events events;
+
+    /** Receives the counts of each turn, or null. */
+    private Metrics metrics;
+
+    /** The counts of the turn under way, or null if not counting. */
+    private Counters counters;
+
+    /**
+     * Scratch buffers describing the neighbours of the acting organism: the
+     * band holding each, and its offset within the band.
+     */
+    private final int[] nbBand;
+    private final int[] nbOff;
+
+    /** Scratch buffer holding the positions in the above of valid targets. */
+    private final int[] valid;
+
+    /**
+     * Constructor. Creates a MappedWorld as configured, drawing from the
+     * configured generator.
+     * 
+     * @param config - the configuration of the world
+     */
+    public MappedWorld(Config config) {
+        this(config, config.newRandom());
+    }
+
+    /**
+     * Constructor. Creates a MappedWorld as configured, mapping the file the
+     * Config names, or a temporary file if it names none, in bands as large as
+     * MAX_BAND_BYTES allows.
+     * 
+     * @param config - the configuration of the world
+     * @param random - the generator this world draws from
+     */
+    public MappedWorld(Config config, RandomSource random) {
+        this(config, random, config.getMappedFile().isEmpty() ? null : Paths.get(config.getMappedFile()),
+                defaultBandRows(config.getGridX()));
+    }
+
+    /**
+     * Constructor. Creates a MappedWorld, replacing whatever a file holds.
+     * 
+     * @param config   - the configuration of the world
+     * @param random   - the generator this world draws from
+     * @param file     - the file to map, or null for a temporary file
+     * @param bandRows - the number of rows mapped by each band
+     */
+    public MappedWorld(Config config, RandomSource random, Path file, int bandRows) {
+        this(config, random, file, bandRows, false);
+    }
+
+    /**
+     * Constructor. Creates a MappedWorld on a new or existing file.
+     * 
+     * @param config   - the configuration of the world
+     * @param random   - the generator this world draws from
+     * @param file     - the file to map, or null for a temporary file
+     * @param bandRows - the number of rows mapped by each band
+     * @param resume   - true to map the planes a synced file holds; false to
+     *                 start from an empty grid
+     */
+    private MappedWorld(Config config, RandomSource random, Path file, int bandRows, boolean resume) {
+        this.config = config;
+        this.random = random;
+        this.rows = config.getGridY();
+        this.cols = config.getGridX();
+        this.topology = config.getTopology();
+        if (this.cols > MAX_BAND_BYTES / Integer.BYTES) {
+            throw new IllegalArgumentException("grid.x cannot be > " + MAX_BAND_BYTES / Integer.BYTES + " - got: "
+                    + this.cols);
+        }
+        if (bandRows < 1 || (long) bandRows * this.cols > MAX_BAND_BYTES / Integer.BYTES) {
+            throw new IllegalArgumentException("band rows must be 1 to " + defaultBandRows(this.cols) + " - got: "
+                    + bandRows);
+        }
+        this.bandRows = Math.min(bandRows, this.rows);
+        this.bands = (this.rows + this.bandRows - 1) / this.bandRows;
+        final int kinds = config.getSpeciesCount();
+        this.kinds = kinds;
+        this.census = new long[(this.rows + CHUNK_ROWS - 1) / CHUNK_ROWS * kinds];
+        this.plant = new boolean[kinds];
+        this.prey = new int[kinds];
+        this.lifespan = new int[kinds];
+        this.sensor = new int[kinds];
+        this.likeNb = new int[kinds];
+        this.foodNb = new int[kinds];
+        this.emptyNb = new int[kinds];
+        this.chance = new int[kinds];
+        this.bandOffsets = new int[kinds][];
+        int maxSensor = 0;
+        for (byte kind = 1; kind < kinds; kind++) {
+            final SpeciesRules rules = config.getRules(kind);
+            this.plant[kind] = rules.plant;
+            this.prey[kind] = rules.prey;
+            this.chance[kind] = rules.percentChanceToPropagate;
+            this.lifespan[kind] = rules.lifespan;
+            this.sensor[kind] = rules.sensorDistance;
+            this.likeNb[kind] = rules.likeNbToRep;
+            this.foodNb[kind] = rules.foodNbToRep;
+            this.emptyNb[kind] = rules.emptyNbToRep;
+            maxSensor = Math.max(maxSensor, rules.sensorDistance);
+        }
+        this.turnOrder = config.getTurnOrder();
+        for (int kind = 0; kind < kinds; kind++) {
+            final int d = this.sensor[kind];
+            final int[] offsets = new int[Neighbourhood.capacity(d)];
+            int n = 0;
+            for (int dy = -d; dy <= d; dy++) {
+                for (int dx = -d; dx <= d; dx++) {
+                    if (dx != 0 || dy != 0) {
+                        offsets[n++] = dy * this.cols + dx;
+                    }
+                }
+            }
+            this.bandOffsets[kind] = offsets;
+        }
+        final int capacity = Neighbourhood.capacity(maxSensor);
+        this.nbBand = new int[capacity];
+        this.nbOff = new int[capacity];
+        this.valid = new int[capacity];
+        this.species = new MappedByteBuffer[this.bands];
+        this.flags = new MappedByteBuffer[this.bands];
+        this.age = new MappedByteBuffer[this.bands];
+        this.id = new MappedByteBuffer[this.bands];
+        this.parentA = new MappedByteBuffer[this.bands];
+        this.parentB = new MappedByteBuffer[this.bands];
+        this.flagged = new boolean[(this.rows + CHUNK_ROWS - 1) / CHUNK_ROWS];
+        this.headerSize = HEADER_SIZE + Checkpoint.encode(config).length;
+        try {
+            this.temporary = file == null;
+            this.file = this.temporary ? Files.createTempFile("world", ".mapped") : file;
+            if (this.temporary) {
+                this.file.toFile().deleteOnExit();
+            }
+            this.channel = resume ? FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                            StandardOpenOption.WRITE);
+            lock(this.channel, this.file);
+            if (!resume) {
+                this.channel.truncate(0);
+                this.writeHeader(false);
+            }
+            final long cells = (long) this.rows * this.cols;
+            long start = (this.headerSize + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+            start = this.map(this.species, start, Byte.BYTES, cells);
+            start = this.map(this.flags, start, Byte.BYTES, cells);
+            start = this.map(this.age, start, Short.BYTES, cells);
+            start = this.map(this.id, start, Integer.BYTES, cells);
+            start = this.map(this.parentA, start, Integer.BYTES, cells);
+            this.map(this.parentB, start, Integer.BYTES, cells);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (resume) {
+            Arrays.fill(this.flagged, true);
+        }
+        this.recount(resume);
+    }
+
+    /**
+     * recount. Takes the census of the species plane.
+     * 
+     * @param read - true to count the species plane of a resumed file; false
+     *             to count every cell empty
+     */
+    private void recount(boolean read) {
+        Arrays.fill(this.census, 0);
+        if (!read) {
+            for (int y = 0; y < this.rows; y += CHUNK_ROWS) {
+                this.census[y / CHUNK_ROWS * this.kinds] = (long) Math.min(CHUNK_ROWS, this.rows - y) * this.cols;
+            }
+            return;
+        }
+        for (int band = 0; band < this.bands; band++) {
+            final MappedByteBuffer plane = this.species[band];
+            final int cells = this.bandCells(band);
+            int off = 0;
+            while (off < cells) {
+                if (off + Long.BYTES <= cells && plane.getLong(off) == 0) {
+                    off += Long.BYTES;
+                    continue;
+                }
+                final int stop = Math.min(cells, off + Long.BYTES);
+                for (; off < stop; off++) {
+                    final byte kind = plane.get(off);
+                    if (kind < 0 || kind >= this.kinds) {
+                        throw new IllegalArgumentException("species cannot be outside the config - got: " + kind);
+                    }
+                    this.census[this.chunkOf(band, off) + kind]++;
+                }
+            }
+        }
+    }
+
+    /**
+     * open. Resumes the world a synced file holds, as its Config describes.
+     * 
+     * @param file - the file of a MappedWorld, synced
+     * @return the resumed world, mapping the file
+     * @throws IOException if the file cannot be read, is not a mapped world
+     *                     or was changed after its last sync
+     */
+    public static MappedWorld open(Path file) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        final byte[] text;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            readFully(in, header, 0);
+            header.flip();
+            final int magic = header.getInt();
+            if (magic != MAGIC) {
+                throw new IOException("not a mapped world - got magic: " + Integer.toHexString(magic));
+            }
+            final int version = header.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("unsupported mapped world version - got: " + version);
+            }
+            if (header.get() == 0) {
+                throw new IOException("mapped world was changed after its last sync - got: " + file);
+            }
+            final int configLength = header.getInt(HEADER_SIZE - 4);
+            if (configLength < 0 || configLength > in.size() - HEADER_SIZE) {
+                throw new IOException("corrupt mapped world - config of " + configLength + " bytes");
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate(configLength);
+            readFully(in, buffer, HEADER_SIZE);
+            text = buffer.array();
+        }
+        final Config config = Checkpoint.decode(text);
+        final long turn = header.getLong();
+        final long randomState = header.getLong();
+        final int nextId = header.getInt();
+        final int rows = header.getInt();
+        final int cols = header.getInt();
+        final int bandRows = header.getInt();
+        if (rows != config.getGridY() || cols != config.getGridX() || nextId < 1) {
+            throw new IOException("corrupt mapped world - header does not match its config");
+        }
+        final RandomSource random = config.newRandom();
+        random.setState(randomState);
+        final MappedWorld world = new MappedWorld(config, random, file, bandRows, true);
+        world.turn = turn;
+        world.nextId = nextId;
+        world.synced = true;
+        return world;
+    }
+
+    /**
+     * isMapped. Determines whether a file is the file of a MappedWorld, from
+     * its first four bytes.
+     * 
+     * @param file - the file
+     * @return true if the file starts with MAGIC
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isMapped(Path file) throws IOException {
+        final ByteBuffer magic = ByteBuffer.allocate(4);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (in.size() < magic.capacity()) {
+                return false;
+            }
+            readFully(in, magic, 0);
+        }
+        return magic.getInt(0) == MAGIC;
+    }
+
+    /**
+     * sync. Forces every plane to disk, then records the turn, the generator
+     * state and the next lineage id in the header, so the file may be resumed
+     * with open. Call between turns.
+     * 
+     * @throws IOException if the file cannot be written
+     */
+    public void sync() throws IOException {
+        for (int band = 0; band < this.bands; band++) {
+            this.species[band].force();
+            this.flags[band].force();
+            this.age[band].force();
+            this.id[band].force();
+            this.parentA[band].force();
+            this.parentB[band].force();
+        }
+        this.writeHeader(true);
+        this.channel.force(true);
+        this.synced = true;
+    }
+
+    /**
+     * close. Syncs and closes a file which was named, or deletes a temporary
+     * one. The world may not be used after.
+     * 
+     * @throws IOException if the file cannot be written or deleted
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!this.temporary) {
+                this.sync();
+            }
+        } finally {
+            this.channel.close();
+            if (this.temporary) {
+                Files.deleteIfExists(this.file);
+            }
+        }
+    }
+
+    /**
+     * getFile. Gets the file this world maps.
+     * 
+     * @return the file
+     */
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * getBandRows. Gets the number of rows mapped by each band.
+     * 
+     * @return the rows per band
+     */
+    public int getBandRows() {
+        return this.bandRows;
+    }
+
+    /**
+     * defaultBandRows. Gets the most rows a band of a grid may have.
+     * 
+     * @param cols - the number of columns in the grid
+     * @return the rows per band
+     */
+    private static int defaultBandRows(int cols) {
+        return Math.max(1, MAX_BAND_BYTES / Integer.BYTES / cols);
+    }
+
+    /**
+     * map. Maps one plane of the file, band by band.
+     * 
+     * @param plane - the array to fill with the bands
+     * @param start - the offset of the plane in the file
+     * @param width - the bytes per cell
+     * @param cells - the number of cells in the grid
+     * @return the offset of the next plane
+     * @throws IOException if the file cannot be mapped
+     */
+    private long map(MappedByteBuffer[] plane, long start, int width, long cells) throws IOException {
+        final long bandBytes = (long) this.bandRows * this.cols * width;
+        for (int band = 0; band < this.bands; band++) {
+            final long position = start + band * bandBytes;
+            final long end = Math.min(start + cells * width, position + bandBytes);
+            plane[band] = this.channel.map(FileChannel.MapMode.READ_WRITE, position, end - position);
+        }
+        return (start + cells * width + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+    }
+
+    /**
+     * lock. Takes an exclusive lock on the whole of a file before anything is
+     * written to it, so that no two worlds, in this process or another, map
+     * the same file. The lock is released when the channel is closed.
+     * 
+     * @param channel - the channel of the file, which is closed if it cannot
+     *                be locked
+     * @param file    - the file
+     * @throws IOException if the file cannot be locked
+     */
+    private static void lock(FileChannel channel, Path file) throws IOException {
+        boolean locked = false;
+        try {
+            locked = channel.tryLock() != null;
+        } catch (OverlappingFileLockException e) {
+            locked = false;
+        } finally {
+            if (!locked) {
+                channel.close();
+            }
+        }
+        if (!locked) {
+            throw new IllegalArgumentException("file cannot be mapped by two worlds at once - got: " + file);
+        }
+    }
+
+    /**
+     * writeHeader. Writes the header of the file.
+     * 
+     * @param isSynced - whether the planes hold the state the header describes
+     * @throws IOException if the file cannot be written
+     */
+    private void writeHeader(boolean isSynced) throws IOException {
+        final byte[] text = Checkpoint.encode(this.config);
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + text.length);
+        header.putInt(MAGIC).putInt(VERSION).put((byte) (isSynced ? 1 : 0)).putLong(this.turn)
+                .putLong(this.random.getState()).putInt(this.nextId).putInt(this.rows).putInt(this.cols)
+                .putInt(this.bandRows).putInt(text.length).put(text);
+        header.flip();
+        while (header.hasRemaining()) {
+            this.channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * unsync. Marks the header unsynced before the world first changes after a
+     * sync, and forces the mark to disk ahead of any change to the planes.
+     */
+    private void unsync() {
+        if (!this.synced) {
+            return;
+        }
+        try {
+            this.channel.write(ByteBuffer.wrap(new byte[] { 0 }), SYNCED_AT);
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.synced = false;
+    }
+
+    /**
+     * readFully. Fills a buffer from a file.
+     * 
+     * @param in       - the file
+     * @param buffer   - the buffer
+     * @param position - the offset in the file to read from
+     * @throws IOException if the file cannot be read or ends first
+     */
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("corrupt mapped world - ends at " + (position + buffer.position()));
+            }
+        }
+    }
+
+    /**
+     * letThereBeLight. For each cell in the world, generate a random number and if
+     * that number is a certain value, create life in that cell. The type of life is
+     * determined by the number generated.
+     */
+    @Override
+    public void letThereBeLight() {
+        this.unsync();
+        for (int band = 0; band < this.bands; band++) {
+            final int cells = this.bandCells(band);
+            for (int off = 0; off < cells; off++) {
+                final byte kind = this.config.spawn(this.random.nextNumber(Config.SPAWN_DIE));
+                if (kind != Species.EMPTY) {
+                    this.birth(band, off, kind, Lineage.PROGENITOR, Lineage.PROGENITOR);
+                    if (this.counters != null) {
+                        this.counters.place(kind, 1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * getConfig. Gets the configuration this world was built from.
+     * 
+     * @return the Config
+     */
+    @Override
+    public Config getConfig() {
+        return this.config;
+    }
+
+    /**
+     * getRows. Get the number of rows in this world's grid.
+     * 
+     * @return number of rows - an int
+     */
+    @Override
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * getCols. Get the number of columns in this world's grid.
+     * 
+     * @return number of cols - an int
+     */
+    @Override
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * getSpecies. Gets the species id at a location in the grid.
+     * 
+     * @param xpos - x position of the cell
+     * @param ypos - y position of the cell
+     * @return the species id at (xpos, ypos)
+     */
+    @Override
+    public byte getSpecies(int xpos, int ypos) {
+        final int band = ypos / this.bandRows;
+        return this.species[band].get((ypos - band * this.bandRows) * this.cols + xpos);
+    }
+
+    /**
+     * copySpecies. Copies the species id of every cell, row by row, into an
+     * array.
+     * 
+     * @param out - an array of at least getRows() * getCols() entries
+     */
+    @Override
+    public void copySpecies(byte[] out) {
+        if ((long) this.rows * this.cols > out.length) {
+            throw new IllegalArgumentException("out cannot be shorter than the grid - got: " + out.length);
+        }
+        for (int band = 0; band < this.bands; band++) {
+            this.species[band].get(0, out, band * this.bandRows * this.cols, this.bandCells(band));
+        }
+    }
+
+    /**
+     * setSpecies. Replaces the organism at a location in the grid with a new
+     * organism of a species, or empties the location.
+     * 
+     * @param xpos    - x position of the cell
+     * @param ypos    - y position of the cell
+     * @param species - the species id to place, or Species.EMPTY to clear
+     */
+    @Override
+    public void setSpecies(int xpos, int ypos, byte species) {
+        if (xpos < 0 || xpos >= this.cols || ypos < 0 || ypos >= this.rows) {
+            throw new IllegalArgumentException("location cannot be outside the grid - got: " + xpos + ", " + ypos);
+        }
+        this.unsync();
+        final int band = ypos / this.bandRows;
+        final int off = (ypos - band * this.bandRows) * this.cols + xpos;
+        final byte old = this.species[band].get(off);
+        if (old != Species.EMPTY) {
+            this.recordPlacement(old, -1, band, off);
+            this.annihilate(band, off);
+        }
+        if (species != Species.EMPTY) {
+            this.birth(band, off, species, Lineage.PROGENITOR, Lineage.PROGENITOR);
+            this.recordPlacement(species, 1, band, off);
+        }
+    }
+
+    /**
+     * setTurnListener. Starts or stops recording the changes made to this world.
+     * 
+     * @param listener - the listener, or null to stop recording
+     */
+    @Override
+    public void setTurnListener(TurnListener listener) {
+        this.listener = listener;
+        this.events = listener == null ? null : new Events();
+    }
+
+    /**
+     * setMetrics. Starts or stops counting what the turns of this world do.
+     * 
+     * @param metrics - the Metrics, or null to stop counting
+     */
+    @Override
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        this.counters = metrics == null ? null : new Counters();
+        if (metrics != null) {
+            metrics.census(this);
+        }
+    }
+
+    /**
+     * recordPlacement. Records an organism added to or removed from a cell
+     * other than by the turns, if recording or counting.
+     * 
+     * @param kind  - the species id of the organism
+     * @param delta - 1 if added, -1 if removed
+     * @param band  - the band holding the cell
+     * @param off   - offset of the cell within band
+     */
+    private void recordPlacement(byte kind, int delta, int band, int off) {
+        if (this.events != null) {
+            final long index = this.indexOf(band, off);
+            this.events.add(delta > 0 ? Events.BIRTH : Events.DEATH, kind, Species.EMPTY, index, index);
+        }
+        if (this.counters != null) {
+            this.counters.place(kind, delta);
+        }
+    }
+
+    /**
+     * record. Records a change made during a turn, if recording, and counts
+     * it, if counting. An EAT is told from a MOVE by the species in the cell
+     * moved to, so it must be recorded before the move.
+     * 
+     * @param type - BIRTH, MOVE or DEATH
+     * @param kind - the species id of the organism
+     * @param bf   - the band holding the cell the change starts in
+     * @param of   - offset of that cell within bf
+     * @param bt   - the band holding the cell the change ends in
+     * @param ot   - offset of that cell within bt
+     */
+    private void record(byte type, byte kind, int bf, int of, int bt, int ot) {
+        final byte prey = type == Events.MOVE ? this.species[bt].get(ot) : Species.EMPTY;
+        final byte recorded = prey == Species.EMPTY ? type : Events.EAT;
+        if (this.events != null) {
+            this.events.add(recorded, kind, prey, this.indexOf(bf, of), this.indexOf(bt, ot));
+        }
+        if (this.counters != null) {
+            this.counters.count(recorded, kind, prey);
+        }
+    }
+
+    /**
+     * indexOf. Gets the row-major index of a cell in the grid.
+     * 
+     * @param band - the band holding the cell
+     * @param off  - offset of the cell within band
+     * @return ypos * cols + xpos
+     */
+    private long indexOf(int band, int off) {
+        return (long) band * this.bandRows * this.cols + off;
+    }
+
+    /**
+     * bandCells. Gets the number of cells in a band.
+     * 
+     * @param band - the band
+     * @return its rows times the columns of the grid
+     */
+    private int bandCells(int band) {
+        return (Math.min(this.rows, (band + 1) * this.bandRows) - band * this.bandRows) * this.cols;
+    }
+
+    /**
+     * getTurn. Gets the number of turns this world has run.
+     * 
+     * @return the turn
+     */
+    @Override
+    public long getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * getRandom. Gets the generator this world draws from.
+     * 
+     * @return the RandomSource of this world
+     */
+    @Override
+    public RandomSource getRandom() {
+        return this.random;
+    }
+
+    /**
+     * forEachOrganism. Visits every organism in the grid, in row-major order,
+     * passing over the chunks the census finds empty, and over eight empty
+     * cells at a time.
+     * 
+     * @param visitor - called once per organism
+     */
+    @Override
+    public void forEachOrganism(OrganismVisitor visitor) {
+        for (int band = 0; band < this.bands; band++) {
+            final MappedByteBuffer plane = this.species[band];
+            final long base = this.indexOf(band, 0);
+            final int y0 = band * this.bandRows;
+            final int y1 = Math.min(this.rows, y0 + this.bandRows);
+            for (int y = y0; y < y1; y = this.chunkEnd(y, y1)) {
+                long population = 0;
+                for (int kind = 1; kind < this.kinds; kind++) {
+                    population += this.census[y / CHUNK_ROWS * this.kinds + kind];
+                }
+                if (population == 0) {
+                    continue;
+                }
+                final int end = (this.chunkEnd(y, y1) - y0) * this.cols;
+                int off = (y - y0) * this.cols;
+                while (off < end) {
+                    if (off + Long.BYTES <= end && plane.getLong(off) == 0) {
+                        off += Long.BYTES;
+                        continue;
+                    }
+                    final int stop = Math.min(end, off + Long.BYTES);
+                    for (; off < stop; off++) {
+                        final byte kind = plane.get(off);
+                        if (kind == Species.EMPTY) {
+                            continue;
+                        }
+                        if (this.plant[kind]) {
+                            visitor.visit(base + off, kind, 0, 0, 0, 0);
+                        } else {
+                            visitor.visit(base + off, kind, this.age[band].getShort(off * Short.BYTES),
+                                    this.id[band].getInt(off * Integer.BYTES),
+                                    this.parentA[band].getInt(off * Integer.BYTES),
+                                    this.parentB[band].getInt(off * Integer.BYTES));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * reset. Empties every cell and sets the turn. Only the species and flags
+     * are cleared, as by annihilate, and only in the chunks holding organisms
+     * or flags.
+     * 
+     * @param turn - the number of turns the world will have run
+     */
+    @Override
+    public void reset(long turn) {
+        this.unsync();
+        for (int band = 0; band < this.bands; band++) {
+            final int y0 = band * this.bandRows;
+            final int y1 = Math.min(this.rows, y0 + this.bandRows);
+            for (int y = y0; y < y1; y = this.chunkEnd(y, y1)) {
+                final int from = (y - y0) * this.cols;
+                final int to = (this.chunkEnd(y, y1) - y0) * this.cols;
+                if (this.census[y / CHUNK_ROWS * this.kinds] != to - from) {
+                    zero(this.species[band], from, to);
+                }
+                if (this.flagged[y / CHUNK_ROWS]) {
+                    zero(this.flags[band], from, to);
+                }
+            }
+        }
+        Arrays.fill(this.flagged, false);
+        this.recount(false);
+        this.nextId = 1;
+        this.turn = turn;
+        if (this.metrics != null) {
+            this.counters.clear();
+            this.metrics.rebase();
+        }
+    }
+
+    /**
+     * place. Puts an organism with a full state into an empty cell after reset.
+     * 
+     * @param index   - ypos * cols + xpos
+     * @param species - the species id
+     * @param age     - the age of an Animal; ignored for a Plant
+     * @param id      - the lineage id of an Animal; ignored for a Plant
+     * @param mother  - the lineage id of the first parent of an Animal
+     * @param father  - the lineage id of the second parent of an Animal
+     */
+    @Override
+    public void place(long index, byte species, int age, int id, int mother, int father) {
+        this.unsync();
+        final long bandCells = (long) this.bandRows * this.cols;
+        final int band = (int) (index / bandCells);
+        final int off = (int) (index - band * bandCells);
+        this.assign(band, off, species);
+        if (this.config.isAnimal(species)) {
+            this.age[band].putShort(off * Short.BYTES, (short) age);
+            this.id[band].putInt(off * Integer.BYTES, id);
+            this.parentA[band].putInt(off * Integer.BYTES, mother);
+            this.parentB[band].putInt(off * Integer.BYTES, father);
+            this.nextId = Math.max(this.nextId, id + 1);
+        }
+        if (this.counters != null) {
+            this.counters.place(species, 1);
+        }
+    }
+
+    /**
+     * twentyThreeHoursAndFiftySixMinutes. Runs the turns for the organisms in the
+     * world in the configured turn order, streaming through the bands once per
+     * species, after clearing the flags of the chunks where any were set.
+     */
+    @Override
+    public void twentyThreeHoursAndFiftySixMinutes() {
+        this.unsync();
+        this.turn++;
+        for (int band = 0; band < this.bands; band++) {
+            final int y0 = band * this.bandRows;
+            final int y1 = Math.min(this.rows, y0 + this.bandRows);
+            for (int y = y0; y < y1; y = this.chunkEnd(y, y1)) {
+                if (this.flagged[y / CHUNK_ROWS]) {
+                    zero(this.flags[band], (y - y0) * this.cols, (this.chunkEnd(y, y1) - y0) * this.cols);
+                }
+            }
+        }
+        Arrays.fill(this.flagged, false);
+        for (byte phase : this.turnOrder) {
+            final long start = this.counters != null ? System.nanoTime() : 0;
+            this.scan(phase);
+            if (this.counters != null) {
+                this.counters.time(phase, System.nanoTime() - start);
+            }
+        }
+        if (this.listener != null) {
+            this.listener.turnEnded(this.turn, this.events);
+            this.events.clear();
+        }
+        if (this.metrics != null) {
+            this.metrics.turnEnded(this.turn, this.counters);
+            this.counters.clear();
+        }
+    }
+
+    /**
+     * scan. Runs the turns of the organisms of one species in row-major order,
+     * band by band, passing over the chunks in which the census finds none of
+     * the species. An organism which enters such a chunk during the phase has
+     * acted, so none is missed.
+     * 
+     * @param phase - the species id taking its turn
+     */
+    private void scan(byte phase) {
+        for (int band = 0; band < this.bands; band++) {
+            final int y0 = band * this.bandRows;
+            final int y1 = Math.min(this.rows, y0 + this.bandRows);
+            for (int y = y0; y < y1; y = this.chunkEnd(y, y1)) {
+                if (this.census[y / CHUNK_ROWS * this.kinds + phase] != 0) {
+                    this.scanRows(band, phase, (y - y0) * this.cols, (this.chunkEnd(y, y1) - y0) * this.cols);
+                }
+            }
+        }
+    }
+
+    /**
+     * scanRows. Runs the turns of the organisms of one species within a run of
+     * whole rows of a band. A long of the species plane which holds no byte of
+     * the species passes over eight cells at once; since only an organism which
+     * acts changes the grid, and it has been passed, the cells skipped cannot
+     * have changed since they were read.
+     * 
+     * @param band  - the band
+     * @param phase - the species id taking its turn
+     * @param from  - offset of the first cell of the run within band
+     * @param to    - offset of the cell after the run within band
+     */
+    private void scanRows(int band, byte phase, int from, int to) {
+        final long pattern = (phase & 0xFF) * ONES;
+        final MappedByteBuffer plane = this.species[band];
+        final MappedByteBuffer bandFlags = this.flags[band];
+        final int y0 = band * this.bandRows;
+        int off = from;
+        while (off < to) {
+            if (off + Long.BYTES <= to) {
+                final long v = plane.getLong(off) ^ pattern;
+                if (((v - ONES) & ~v & HIGHS) == 0) {
+                    off += Long.BYTES;
+                    continue;
+                }
+            }
+            final int stop = Math.min(to, off + Long.BYTES);
+            for (; off < stop; off++) {
+                if (plane.get(off) == phase && (bandFlags.get(off) & ACTED) == 0) {
+                    final int ly = off / this.cols;
+                    final int x = off - ly * this.cols;
+                    if (this.plant[phase]) {
+                        this.plantTurn(band, off, phase, x, y0 + ly);
+                    } else {
+                        this.animalTurn(band, off, x, y0 + ly);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * chunkEnd. Gets the row after the last of a chunk of the census within a
+     * band.
+     * 
+     * @param y  - a row of the chunk
+     * @param y1 - the row after the last of the band
+     * @return the first row of the next chunk, or y1
+     */
+    private int chunkEnd(int y, int y1) {
+        return (int) Math.min(y1, (y / CHUNK_ROWS + 1L) * CHUNK_ROWS);
+    }
+
+    /**
+     * chunkOf. Gets the first index into the census of the chunk holding a
+     * cell.
+     * 
+     * @param band - the band holding the cell
+     * @param off  - offset of the cell within band
+     * @return chunk * kinds
+     */
+    private int chunkOf(int band, int off) {
+        return (band * this.bandRows + off / this.cols) / CHUNK_ROWS * this.kinds;
+    }
+
+    /**
+     * assign. Sets the species id in a cell, updating the census.
+     * 
+     * @param band - the band holding the cell
+     * @param off  - offset of the cell within band
+     * @param kind - the species id
+     */
+    private void assign(int band, int off, byte kind) {
+        final MappedByteBuffer plane = this.species[band];
+        final int chunk = this.chunkOf(band, off);
+        this.census[chunk + plane.get(off)]--;
+        this.census[chunk + kind]++;
+        plane.put(off, kind);
+    }
+
+    /**
+     * collect. Fills the neighbour buffers with the neighbours of a cell within
+     * a sensory distance, in row-major order, mapped by the Topology.
+     * 
+     * @param kind - species id whose sensory distance is used
+     * @param band - the band holding the cell
+     * @param off  - offset of the cell within band
+     * @param x    - x position of the cell
+     * @param y    - y position of the cell
+     * @return the number of neighbours
+     */
+    private int collect(byte kind, int band, int off, int x, int y) {
+        final int d = this.sensor[kind];
+        final int y0 = band * this.bandRows;
+        if (x >= d && x < this.cols - d && y - d >= y0 && y + d < y0 + this.bandRows && y + d < this.rows) {
+            final int[] offsets = this.bandOffsets[kind];
+            for (int n = 0; n < offsets.length; n++) {
+                this.nbBand[n] = band;
+                this.nbOff[n] = off + offsets[n];
+            }
+            return offsets.length;
+        }
+        int count = 0;
+        for (int dy = -d; dy <= d; dy++) {
+            final int ny = this.topology.map((long) y + dy, this.rows);
+            if (ny < 0) {
+                continue;
+            }
+            final int nb = ny / this.bandRows;
+            final int rowOff = (ny - nb * this.bandRows) * this.cols;
+            for (int dx = -d; dx <= d; dx++) {
+                final int nx = this.topology.map((long) x + dx, this.cols);
+                if (nx < 0 || (nx == x && ny == y)) {
+                    continue;
+                }
+                this.nbBand[count] = nb;
+                this.nbOff[count] = rowOff + nx;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * speciesOf. Gets the species of a neighbour in the buffers.
+     * 
+     * @param n - position of the neighbour in the buffers
+     * @return the species id of the neighbour
+     */
+    private byte speciesOf(int n) {
+        return this.species[this.nbBand[n]].get(this.nbOff[n]);
+    }
+
+    /**
+     * plantTurn. Plant turn actions. If a certain number of neighbours are also
+     * Plants of its species and there are a certain number of empty neighbours,
+     * one of those empty neighbours has a chance to become a Plant of its species.
+     * 
+     * @param band - the band holding the Plant
+     * @param off  - offset of the Plant within band
+     * @param kind - species id of the Plant
+     * @param x    - x position of the Plant
+     * @param y    - y position of the Plant
+     */
+    private void plantTurn(int band, int off, byte kind, int x, int y) {
+        final int count = this.collect(kind, band, off, x, y);
+        int plantNeighbourCount = 0;
+        int emptyCount = 0;
+        for (int n = 0; n < count; n++) {
+            final byte other = this.speciesOf(n);
+            if (other == kind) {
+                plantNeighbourCount++;
+            } else if (other == Species.EMPTY) {
+                this.valid[emptyCount++] = n;
+            }
+        }
+        if (plantNeighbourCount >= this.likeNb[kind] && emptyCount >= this.emptyNb[kind]) {
+            int randNum = this.random.nextNumber(99);
+            if (randNum <= this.chance[kind]) {
+                randNum = this.random.nextNumber(emptyCount);
+                final int target = this.valid[randNum];
+                this.birth(this.nbBand[target], this.nbOff[target], kind, 0, 0);
+                this.record(Events.BIRTH, kind, this.nbBand[target], this.nbOff[target], this.nbBand[target],
+                        this.nbOff[target]);
+            }
+        }
+    }
+
+    /**
+     * animalTurn. Animal turn actions.
+     * <ol>
+     * <li>Increase age.</li>
+     * <li>Reproduce, if possible.</li>
+     * <li>If has not mated, move. If food is found, age will be set to 0.</li>
+     * <li>If it is time to die, then die.</li>
+     * </ol>
+     * 
+     * @param band - the band holding the Animal
+     * @param off  - offset of the Animal within band
+     * @param x    - x position of the Animal
+     * @param y    - y position of the Animal
+     */
+    private void animalTurn(int band, int off, int x, int y) {
+        final byte kind = this.species[band].get(off);
+        final MappedByteBuffer ages = this.age[band];
+        ages.putShort(off * Short.BYTES, (short) (ages.getShort(off * Short.BYTES) + 1));
+        this.reproduce(band, off, x, y, kind);
+        int atBand = band;
+        int atOff = off;
+        if ((this.flags[band].get(off) & MATED) == 0) {
+            final int target = this.move(band, off, x, y, kind);
+            if (target >= 0) {
+                atBand = this.nbBand[target];
+                atOff = this.nbOff[target];
+            }
+        }
+        if (this.age[atBand].getShort(atOff * Short.BYTES) > this.lifespan[kind]) {
+            this.record(Events.DEATH, kind, atBand, atOff, atBand, atOff);
+            this.annihilate(atBand, atOff);
+        } else {
+            this.setFlags(atBand, atOff, (byte) (this.flags[atBand].get(atOff) | ACTED));
+        }
+    }
+
+    /**
+     * reproduce. If a certain number of neighbours are potential mates, a certain
+     * number are food, and a certain number are empty, one of the empty neighbours
+     * is filled with a baby.
+     * 
+     * @param band - the band holding the Animal
+     * @param off  - offset of the Animal within band
+     * @param x    - x position of the Animal
+     * @param y    - y position of the Animal
+     * @param kind - species id of the Animal
+     */
+    private void reproduce(int band, int off, int x, int y, byte kind) {
+        if ((this.flags[band].get(off) & MATED) != 0) {
+            return;
+        }
+        final int count = this.collect(kind, band, off, x, y);
+        int neighbourCount = 0;
+        int foodCount = 0;
+        int emptyCount = 0;
+        int partner = -1;
+        for (int n = 0; n < count; n++) {
+            final byte other = this.speciesOf(n);
+            if (other == kind && !this.isIncest(band, off, this.nbBand[n], this.nbOff[n])) {
+                neighbourCount++;
+                if (partner < 0) {
+                    partner = n;
+                }
+            }
+            if (this.eats(kind, other)) {
+                foodCount++;
+            }
+            if (other == Species.EMPTY) {
+                this.valid[emptyCount++] = n;
+            }
+        }
+        if (neighbourCount < this.likeNb[kind]) {
+            this.countFailure(kind, Counters.LIKE_NB);
+        } else if (foodCount < this.foodNb[kind]) {
+            this.countFailure(kind, Counters.FOOD_NB);
+        } else if (emptyCount < this.emptyNb[kind]) {
+            this.countFailure(kind, Counters.EMPTY_NB);
+        } else {
+            final int target = this.valid[this.random.nextNumber(emptyCount)];
+            final int mateBand = this.nbBand[partner];
+            final int mateOff = this.nbOff[partner];
+            this.birth(this.nbBand[target], this.nbOff[target], kind, this.id[band].getInt(off * Integer.BYTES),
+                    this.id[mateBand].getInt(mateOff * Integer.BYTES));
+            this.record(Events.BIRTH, kind, this.nbBand[target], this.nbOff[target], this.nbBand[target],
+                    this.nbOff[target]);
+            this.setFlags(mateBand, mateOff, (byte) (this.flags[mateBand].get(mateOff) | MATED));
+            this.setFlags(band, off, (byte) (this.flags[band].get(off) | MATED));
+        }
+    }
+
+    /**
+     * countFailure. Counts a reproduction which failed, if counting.
+     * 
+     * @param kind   - the species id of the Animal
+     * @param reason - Counters.LIKE_NB, FOOD_NB or EMPTY_NB
+     */
+    private void countFailure(byte kind, int reason) {
+        if (this.counters != null) {
+            this.counters.failed(kind, reason);
+        }
+    }
+
+    /**
+     * isIncest. Determines whether two Animals are parent and child.
+     * 
+     * @param ba - the band holding one Animal
+     * @param oa - offset of that Animal within ba
+     * @param bb - the band holding the other Animal
+     * @param ob - offset of that Animal within bb
+     * @return true if mating would be incestuous; false otherwise
+     */
+    private boolean isIncest(int ba, int oa, int bb, int ob) {
+        final int a = this.id[ba].getInt(oa * Integer.BYTES);
+        final int b = this.id[bb].getInt(ob * Integer.BYTES);
+        return this.parentA[ba].getInt(oa * Integer.BYTES) == b || this.parentB[ba].getInt(oa * Integer.BYTES) == b
+                || this.parentA[bb].getInt(ob * Integer.BYTES) == a || this.parentB[bb].getInt(ob * Integer.BYTES) == a;
+    }
+
+    /**
+     * move. Moves an Animal to a random neighbouring cell which is empty or holds
+     * food. If the cell holds food, the Animal eats it.
+     * 
+     * @param band - the band holding the Animal
+     * @param off  - offset of the Animal within band
+     * @param x    - x position of the Animal
+     * @param y    - y position of the Animal
+     * @param kind - species id of the Animal
+     * @return the position in the neighbour buffers the Animal moved to, or -1
+     *         if it did not move
+     */
+    private int move(int band, int off, int x, int y, byte kind) {
+        final int count = this.collect(kind, band, off, x, y);
+        int validCount = 0;
+        for (int n = 0; n < count; n++) {
+            final byte other = this.speciesOf(n);
+            if (this.eats(kind, other) || other == Species.EMPTY) {
+                this.valid[validCount++] = n;
+            }
+        }
+        if (validCount == 0) {
+            return -1;
+        }
+        final int target = this.valid[this.random.nextNumber(validCount)];
+        final int to = this.nbBand[target];
+        final int t = this.nbOff[target];
+        this.record(Events.MOVE, kind, band, off, to, t);
+        if (this.eats(kind, this.species[to].get(t))) {
+            this.age[band].putShort(off * Short.BYTES, (short) 0);
+        }
+        this.assign(to, t, kind);
+        this.age[to].putShort(t * Short.BYTES, this.age[band].getShort(off * Short.BYTES));
+        this.setFlags(to, t, this.flags[band].get(off));
+        this.id[to].putInt(t * Integer.BYTES, this.id[band].getInt(off * Integer.BYTES));
+        this.parentA[to].putInt(t * Integer.BYTES, this.parentA[band].getInt(off * Integer.BYTES));
+        this.parentB[to].putInt(t * Integer.BYTES, this.parentB[band].getInt(off * Integer.BYTES));
+        this.annihilate(band, off);
+        return target;
+    }
+
+    /**
+     * eats. Determines whether one species eats another.
+     * 
+     * @param kind  - species id of the eater
+     * @param other - species id of the other, possibly Species.EMPTY
+     * @return true if kind eats other
+     */
+    private boolean eats(byte kind, byte other) {
+        return (this.prey[kind] >>> other & 1) != 0;
+    }
+
+    /**
+     * birth. Puts a new organism in an empty cell. The organism may not act until
+     * the next turn. A Plant has no age or lineage, so only the species and
+     * flags of its cell are written.
+     * 
+     * @param band     - the band holding the cell
+     * @param off      - offset of the cell within band
+     * @param kind     - species id of the organism
+     * @param motherId - lineage id of the first parent
+     * @param fatherId - lineage id of the second parent
+     */
+    private void birth(int band, int off, byte kind, int motherId, int fatherId) {
+        this.assign(band, off, kind);
+        this.setFlags(band, off, ACTED);
+        if (!this.plant[kind]) {
+            this.age[band].putShort(off * Short.BYTES, (short) 0);
+            this.id[band].putInt(off * Integer.BYTES, this.nextId++);
+            this.parentA[band].putInt(off * Integer.BYTES, motherId);
+            this.parentB[band].putInt(off * Integer.BYTES, fatherId);
+        }
+    }
+
+    /**
+     * annihilate. Removes the organism in a cell. Only the species and flags
+     * are cleared; the age and lineage of a cell are only read while it holds
+     * an Animal, and are written when one is put there.
+     * 
+     * @param band - the band holding the cell
+     * @param off  - offset of the cell within band
+     */
+    private void annihilate(int band, int off) {
+        if (this.species[band].get(off) == Species.EMPTY) {
+            return;
+        }
+        this.assign(band, off, Species.EMPTY);
+        this.flags[band].put(off, (byte) 0);
+    }
+
+    /**
+     * setFlags. Sets the flags of a cell, and notes that its chunk has flags
+     * to clear before the next turn.
+     * 
+     * @param band  - the band holding the cell
+     * @param off   - offset of the cell within band
+     * @param value - the flags
+     */
+    private void setFlags(int band, int off, byte value) {
+        this.flags[band].put(off, value);
+        this.flagged[(band * this.bandRows + off / this.cols) / CHUNK_ROWS] |= value != 0;
+    }
+
+    /**
+     * zero. Clears a run of bytes of a band.
+     * 
+     * @param buffer - the band
+     * @param from   - offset of the first byte
+     * @param to     - offset of the byte after the last
+     */
+    private static void zero(MappedByteBuffer buffer, int from, int to) {
+        for (int at = from; at < to; at += ZEROES.length) {
+            buffer.put(at, ZEROES, 0, Math.min(ZEROES.length, to - at));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * MappedWorldTest.
+ * 
+ * <p>
+ * Checks that a MappedWorld resumed from its own file evolves as if it had
+ * never stopped. Each world runs some turns in a named file and is closed,
+ * which syncs the file; the file is then opened and run for more turns, and
+ * the grid compared with that of a world run for all of the turns at once.
+ * Also checks that a file a world holds open cannot be mapped again. Exits
+ * with status 1 on the first failure.
+ * </p>
+ * 
+ * <p>
+ * Usage: java MappedWorldTest
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class MappedWorldTest {
+
+    /** Grid sizes checked, as columns then rows. */
+    public static final int[][] GRID_SIZES = { { 60, 40 }, { 130, 97 } };
+
+    /** Band rows checked; small bands split the grid into many mappings. */
+    public static final int[] BAND_ROWS = { 3, 1000 };
+
+    /** Turns run before the file is closed, and after it is opened. */
+    public static final int TURNS_BEFORE = 15;
+    public static final int TURNS_AFTER = 25;
+
+    private MappedWorldTest() {
+    }
+
+    /**
+     * Runs the checks.
+     * 
+     * @param args - unused
+     * @throws IOException if a file cannot be written, read or deleted
+     */
+    public static void main(final String[] args) throws IOException {
+        final Path file = Files.createTempFile("resume", ".mapped");
+        try {
+            for (final int[] size : GRID_SIZES) {
+                for (final int bandRows : BAND_ROWS) {
+                    final String name = size[0] + "x" + size[1] + "/bands of " + bandRows;
+                    final Config config = Config.DEFAULT.with("engine", "mapped")
+                            .with("grid.x", Integer.toString(size[0])).with("grid.y", Integer.toString(size[1]));
+                    check(name, config, file, bandRows);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * check. Runs one world straight through, and one which stops and is
+     * resumed from its file, and compares them.
+     * 
+     * @param name     - the name of the check
+     * @param config   - the configuration of both worlds
+     * @param file     - the file of the resumed world
+     * @param bandRows - the rows mapped by each band
+     * @throws IOException if the file cannot be written or read
+     */
+    private static void check(final String name, final Config config, final Path file, final int bandRows)
+            throws IOException {
+        final byte[] expected = new byte[config.getGridX() * config.getGridY()];
+        try (MappedWorld straight = new MappedWorld(config, config.newRandom(), null, bandRows)) {
+            straight.letThereBeLight();
+            for (int turn = 0; turn < TURNS_BEFORE + TURNS_AFTER; turn++) {
+                straight.twentyThreeHoursAndFiftySixMinutes();
+            }
+            straight.copySpecies(expected);
+        }
+        try (MappedWorld first = new MappedWorld(config.with("mapped.file", file.toString()), config.newRandom(),
+                file, bandRows)) {
+            first.letThereBeLight();
+            for (int turn = 0; turn < TURNS_BEFORE; turn++) {
+                first.twentyThreeHoursAndFiftySixMinutes();
+            }
+            try {
+                MappedWorld.open(file).close();
+                fail(name, "a file in use was opened again");
+            } catch (IOException | IllegalArgumentException e) {
+                // Expected: the file is unsynced and locked by the first world.
+            }
+        }
+        final byte[] actual = new byte[expected.length];
+        try (MappedWorld resumed = MappedWorld.open(file)) {
+            if (resumed.getTurn() != TURNS_BEFORE || resumed.getBandRows() != Math.min(bandRows, config.getGridY())) {
+                fail(name, "opened at turn " + resumed.getTurn() + " in bands of " + resumed.getBandRows());
+            }
+            for (int turn = 0; turn < TURNS_AFTER; turn++) {
+                resumed.twentyThreeHoursAndFiftySixMinutes();
+            }
+            resumed.copySpecies(actual);
+        }
+        if (!Arrays.equals(expected, actual)) {
+            fail(name, "resumed grid differs after turn " + (TURNS_BEFORE + TURNS_AFTER));
+        }
+        System.out.println("ok   " + name);
+    }
+
+    /**
+     * fail. Reports a failed check and exits.
+     * 
+     * @param name   - the name of the check
+     * @param reason - what went wrong
+     */
+    private static void fail(final String name, final String reason) {
+        System.out.println("FAIL " + name + " - " + reason);
+        System.exit(1);
+    }
+}
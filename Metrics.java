@@ -0,0 +1,365 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+/**
+ * Metrics.
+ * 
+ * <p>
+ * The running totals of what an Ecosystem has done since they were attached
+ * to it with setMetrics: the population of each species, and the sums of the
+ * Counters the Ecosystem publishes at the end of each turn. The wall time of
+ * each phase is also kept as a histogram of one sample per turn, and the
+ * collections the JVM's garbage collectors have made are read with each
+ * snapshot. The totals may be read from any thread through snapshot.
+ * </p>
+ * 
+ * <p>
+ * The population is counted once when Metrics are attached, then kept up to
+ * date from the births, eats and starvations of each turn. Organisms placed
+ * between turns, by setSpecies or by restoring a Checkpoint, are counted at
+ * the end of the next turn.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class Metrics {
+
+    /** The number of histogram buckets: one per power of two nanoseconds. */
+    public static final int BUCKETS = 64;
+
+    /** The sums of every Counters published. */
+    private final Counters totals = new Counters();
+
+    /** The population of each species, indexed by species id. */
+    private final long[] population = new long[Species.MAX];
+
+    /** The phase times: bucket b counts turns taking [2^(b-1), 2^b) ns. */
+    private final long[][] phaseHistogram = new long[Species.MAX][BUCKETS];
+
+    /** The configuration of the Ecosystem, naming its species. */
+    private Config config = Config.DEFAULT;
+
+    /** The number of turns the Ecosystem had run at the last publish. */
+    private long turn;
+
+    /** The number of turns published. */
+    private long turns;
+
+    /** The garbage collections, and their milliseconds, before the census. */
+    private long gcCountBase;
+    private long gcMillisBase;
+
+    /**
+     * census. Counts the population of a world, as a start for the totals.
+     * Called by the world when the Metrics are attached to it.
+     * 
+     * @param world - the world, between turns
+     */
+    public synchronized void census(final Ecosystem world) {
+        Arrays.fill(this.population, 0);
+        world.forEachOrganism((index, species, age, id, mother, father) -> this.population[species]++);
+        this.config = world.getConfig();
+        this.turn = world.getTurn();
+        final long[] gc = gc();
+        this.gcCountBase = gc[0];
+        this.gcMillisBase = gc[1];
+    }
+
+    /**
+     * rebase. Forgets the population, as when the world is reset before being
+     * restored. The organisms then placed are counted as placements.
+     */
+    public synchronized void rebase() {
+        Arrays.fill(this.population, 0);
+    }
+
+    /**
+     * turnEnded. Adds the counts of a turn to the totals.
+     * 
+     * @param turn   - the number of turns the world has now run
+     * @param counts - the counts of the turn, with those placed since the last
+     */
+    public synchronized void turnEnded(final long turn, final Counters counts) {
+        final long[] values = counts.values;
+        for (byte species = 0; species < Species.MAX; species++) {
+            long eaten = 0;
+            for (byte predator = 0; predator < Species.MAX; predator++) {
+                eaten += values[Counters.EATS + predator * Species.MAX + species];
+            }
+            this.population[species] += values[Counters.BIRTHS + species] + values[Counters.PLACED + species]
+                    - values[Counters.STARVED + species] - eaten;
+            final long nanos = values[Counters.PHASE_NANOS + species];
+            if (nanos > 0) {
+                this.phaseHistogram[species][Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))]++;
+            }
+        }
+        counts.addTo(this.totals);
+        this.turn = turn;
+        this.turns++;
+    }
+
+    /**
+     * snapshot. Copies the totals.
+     * 
+     * @return the Sample
+     */
+    public synchronized Sample snapshot() {
+        final long[][] histogram = new long[Species.MAX][];
+        for (int species = 0; species < Species.MAX; species++) {
+            histogram[species] = this.phaseHistogram[species].clone();
+        }
+        final long[] gc = gc();
+        return new Sample(this.config, this.turn, this.turns, this.population.clone(), this.totals.values.clone(),
+                histogram, gc[0] - this.gcCountBase, gc[1] - this.gcMillisBase);
+    }
+
+    /**
+     * gc. Sums the collections made by every garbage collector of the JVM.
+     * 
+     * @return the number of collections and their total milliseconds
+     */
+    private static long[] gc() {
+        final long[] sum = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sum[0] += Math.max(0, collector.getCollectionCount());
+            sum[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return sum;
+    }
+
+    /**
+     * Sample.
+     * 
+     * An immutable copy of the totals of some Metrics.
+     */
+    public static final class Sample {
+
+        /** The configuration of the world sampled. */
+        private final Config config;
+
+        /** The number of turns the world had run, and the number counted. */
+        private final long turn;
+        private final long turns;
+
+        /** The population of each species. */
+        private final long[] population;
+
+        /** The totals, laid out as in Counters. */
+        private final long[] values;
+
+        /** The phase time histograms. */
+        private final long[][] phaseHistogram;
+
+        /** The garbage collections since the census, and their milliseconds. */
+        private final long gcCount;
+        private final long gcMillis;
+
+        /**
+         * Constructor. Creates a Sample from arrays it takes ownership of.
+         * 
+         * @param config         - the configuration of the world sampled
+         * @param turn           - the number of turns the world had run
+         * @param turns          - the number of turns counted
+         * @param population     - the population of each species
+         * @param values         - the totals, laid out as in Counters
+         * @param phaseHistogram - the phase time histograms
+         * @param gcCount        - the garbage collections since the census
+         * @param gcMillis       - the milliseconds they took
+         */
+        private Sample(final Config config, final long turn, final long turns, final long[] population,
+                final long[] values, final long[][] phaseHistogram, final long gcCount, final long gcMillis) {
+            this.config = config;
+            this.turn = turn;
+            this.turns = turns;
+            this.population = population;
+            this.values = values;
+            this.phaseHistogram = phaseHistogram;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        /**
+         * getConfig. Gets the configuration of the world sampled, which names
+         * its species.
+         * 
+         * @return the Config
+         */
+        public Config getConfig() {
+            return this.config;
+        }
+
+        /**
+         * getTurn. Gets the number of turns the world had run.
+         * 
+         * @return the turn
+         */
+        public long getTurn() {
+            return this.turn;
+        }
+
+        /**
+         * getTurns. Gets the number of turns counted since the Metrics were
+         * attached.
+         * 
+         * @return the number of turns
+         */
+        public long getTurns() {
+            return this.turns;
+        }
+
+        /**
+         * getPopulation. Gets the number of organisms of a species.
+         * 
+         * @param species - the species id
+         * @return the population
+         */
+        public long getPopulation(final byte species) {
+            return this.population[species];
+        }
+
+        /**
+         * getBirths. Gets the number of organisms of a species born or seeded.
+         * 
+         * @param species - the species id
+         * @return the births
+         */
+        public long getBirths(final byte species) {
+            return this.values[Counters.BIRTHS + species];
+        }
+
+        /**
+         * getMoves. Gets the number of moves made by Animals of a species,
+         * including those onto food.
+         * 
+         * @param species - the species id
+         * @return the moves
+         */
+        public long getMoves(final byte species) {
+            return this.values[Counters.MOVES + species];
+        }
+
+        /**
+         * getStarved. Gets the number of Animals of a species which died of
+         * old age without eating.
+         * 
+         * @param species - the species id
+         * @return the starvations
+         */
+        public long getStarved(final byte species) {
+            return this.values[Counters.STARVED + species];
+        }
+
+        /**
+         * getEats. Gets the number of times an Animal of one species ate an
+         * organism of another.
+         * 
+         * @param predator - the species id of the eater
+         * @param prey     - the species id of the eaten
+         * @return the eats
+         */
+        public long getEats(final byte predator, final byte prey) {
+            return this.values[Counters.EATS + predator * Species.MAX + prey];
+        }
+
+        /**
+         * getFailures. Gets the number of reproductions of a species which
+         * failed for a reason.
+         * 
+         * @param species - the species id
+         * @param reason  - Counters.LIKE_NB, FOOD_NB or EMPTY_NB
+         * @return the failures
+         */
+        public long getFailures(final byte species, final int reason) {
+            return this.values[Counters.FAILURES + species * Counters.REASONS + reason];
+        }
+
+        /**
+         * getAllocated. Gets the number of Organism objects of a species newly
+         * allocated for births and placements. Only a World has Organisms.
+         * 
+         * @param species - the species id
+         * @return the allocations
+         */
+        public long getAllocated(final byte species) {
+            return this.values[Counters.ALLOCATED + species];
+        }
+
+        /**
+         * getReused. Gets the number of Organism objects of a species reused
+         * from a pool instead of allocated.
+         * 
+         * @param species - the species id
+         * @return the reuses
+         */
+        public long getReused(final byte species) {
+            return this.values[Counters.REUSED + species];
+        }
+
+        /**
+         * getGcCount. Gets the number of garbage collections the JVM made
+         * since the Metrics were attached, by every thread.
+         * 
+         * @return the collections
+         */
+        public long getGcCount() {
+            return this.gcCount;
+        }
+
+        /**
+         * getGcMillis. Gets the milliseconds the JVM spent collecting garbage
+         * since the Metrics were attached.
+         * 
+         * @return the milliseconds
+         */
+        public long getGcMillis() {
+            return this.gcMillis;
+        }
+
+        /**
+         * getPhaseNanos. Gets the total wall time of a phase.
+         * 
+         * @param phase - the species id taking its turn
+         * @return the nanoseconds
+         */
+        public long getPhaseNanos(final byte phase) {
+            return this.values[Counters.PHASE_NANOS + phase];
+        }
+
+        /**
+         * getPhaseHistogram. Gets the histogram of the wall time of a phase.
+         * 
+         * @param phase - the species id taking its turn
+         * @return bucket b counts turns taking [2^(b-1), 2^b) nanoseconds
+         */
+        public long[] getPhaseHistogram(final byte phase) {
+            return this.phaseHistogram[phase].clone();
+        }
+
+        /**
+         * getPhasePercentile. Estimates a percentile of the wall time of a
+         * phase, as the upper bound of the bucket it falls in.
+         * 
+         * @param phase    - the species id taking its turn
+         * @param fraction - the fraction of turns, 0 to 1
+         * @return the nanoseconds, within a factor of two; 0 if never timed
+         */
+        public long getPhasePercentile(final byte phase, final double fraction) {
+            final long[] buckets = this.phaseHistogram[phase];
+            long count = 0;
+            for (long n : buckets) {
+                count += n;
+            }
+            final long rank = (long) Math.ceil(fraction * count);
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += buckets[b];
+                if (seen >= rank && seen > 0) {
+                    return b == BUCKETS - 1 ? Long.MAX_VALUE : 1L << b;
+                }
+            }
+            return 0;
+        }
+    }
+}
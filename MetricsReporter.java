@@ -0,0 +1,116 @@
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MetricsReporter.
+ * 
+ * <p>
+ * Prints a snapshot of some Metrics at a fixed period on a thread of its own,
+ * so that a long run can be watched without a Display: the population of each
+ * species, what each species did since the last report, how long each phase
+ * takes, and how much garbage was made. A species which has died out is
+ * flagged as extinct.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class MetricsReporter implements Closeable {
+
+    /** The Metrics reported. */
+    private final Metrics metrics;
+
+    /** Where reports are printed. */
+    private final PrintStream out;
+
+    /** Runs the reports. */
+    private final ScheduledExecutorService timer;
+
+    /** The Sample printed last, or null. */
+    private Metrics.Sample last;
+
+    /**
+     * Constructor. Starts reporting some Metrics.
+     * 
+     * @param metrics       - the Metrics to report
+     * @param out           - where to print reports
+     * @param periodSeconds - the seconds between reports
+     */
+    public MetricsReporter(final Metrics metrics, final PrintStream out, final double periodSeconds) {
+        if (periodSeconds <= 0) {
+            throw new IllegalArgumentException("period cannot be <= 0 - got: " + periodSeconds);
+        }
+        this.metrics = metrics;
+        this.out = out;
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            final Thread thread = new Thread(task, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long nanos = (long) (periodSeconds * 1e9);
+        this.timer.scheduleAtFixedRate(this::report, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * report. Prints the current totals, and the change since the last report.
+     */
+    public synchronized void report() {
+        final Metrics.Sample now = this.metrics.snapshot();
+        print(this.out, now, this.last);
+        this.last = now;
+    }
+
+    /**
+     * close. Stops reporting.
+     */
+    @Override
+    public void close() {
+        this.timer.shutdownNow();
+    }
+
+    /**
+     * print. Prints a Sample: one line per species with its population and,
+     * since an earlier Sample, its births, starvations, prey eaten, failed
+     * reproductions, Organisms allocated and reused, and mean phase time;
+     * then the garbage collections since the earlier Sample.
+     * 
+     * @param out   - where to print
+     * @param now   - the Sample to print
+     * @param since - the earlier Sample, or null to print totals
+     */
+    public static void print(final PrintStream out, final Metrics.Sample now, final Metrics.Sample since) {
+        final long turns = now.getTurns() - (since == null ? 0 : since.getTurns());
+        out.printf("metrics at turn %d (%d turns)%n", now.getTurn(), turns);
+        out.printf("%-10s %12s %10s %10s %10s %10s %10s %10s %10s %10s %10s %10s%n", "species", "population",
+                "births", "starved", "ate", "eaten", "no mates", "no food", "no room", "allocated", "reused",
+                "ms/turn");
+        final Config config = now.getConfig();
+        for (byte species = 1; species < config.getSpeciesCount(); species++) {
+            long ate = 0;
+            long eaten = 0;
+            for (byte other = 0; other < config.getSpeciesCount(); other++) {
+                ate += now.getEats(species, other) - (since == null ? 0 : since.getEats(species, other));
+                eaten += now.getEats(other, species) - (since == null ? 0 : since.getEats(other, species));
+            }
+            final long births = now.getBirths(species) - (since == null ? 0 : since.getBirths(species));
+            final long starved = now.getStarved(species) - (since == null ? 0 : since.getStarved(species));
+            final long[] failures = new long[Counters.REASONS];
+            for (int reason = 0; reason < Counters.REASONS; reason++) {
+                failures[reason] = now.getFailures(species, reason)
+                        - (since == null ? 0 : since.getFailures(species, reason));
+            }
+            final long allocated = now.getAllocated(species) - (since == null ? 0 : since.getAllocated(species));
+            final long reused = now.getReused(species) - (since == null ? 0 : since.getReused(species));
+            final long nanos = now.getPhaseNanos(species) - (since == null ? 0 : since.getPhaseNanos(species));
+            out.printf("%-10s %12d %10d %10d %10d %10d %10d %10d %10d %10d %10d %10.3f%s%n", config.getName(species),
+                    now.getPopulation(species), births, starved, ate, eaten, failures[Counters.LIKE_NB],
+                    failures[Counters.FOOD_NB], failures[Counters.EMPTY_NB], allocated, reused,
+                    turns > 0 ? nanos / 1e6 / turns : 0.0, now.getPopulation(species) == 0 ? "  extinct" : "");
+        }
+        out.printf("gc: %d collections, %d ms%n", now.getGcCount() - (since == null ? 0 : since.getGcCount()),
+                now.getGcMillis() - (since == null ? 0 : since.getGcMillis()));
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * Neighbourhood.
+ * 
+ * <p>
+ * A precomputed table of the neighbour offsets within a sensory distance of a
+ * cell in a grid of a certain size and Topology. Neighbours are written as
+ * row-major cell indices into a buffer owned by the caller, in the same order
+ * as Cell.getNeighbours, so looking around a cell allocates nothing.
+ * </p>
+ * 
+ * <p>
+ * Along each axis a cell is in one of at most 2 * distance + 1 classes: one of
+ * the distance columns nearest each edge, or the interior. Every cell of a
+ * class pair has the same neighbour offsets, wherever the Topology sends
+ * them, so one offset table is built per class pair. collect looks up the
+ * classes of a cell and adds its table to the cell's index, with no bounds
+ * checks at all.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public class Neighbourhood {
+
+    /** The number of rows and columns in the grid. */
+    private final int rows;
+    private final int cols;
+
+    /** The sensory distance this Neighbourhood covers. */
+    private final int distance;
+
+    /** How the grid behaves past its edges. */
+    private final Topology topology;
+
+    /** The class of each column and of each row. */
+    private final int[] colClass;
+    private final int[] rowClass;
+
+    /** The number of column classes. */
+    private final int colClasses;
+
+    /**
+     * The index offsets of the neighbours of a cell, in row-major order of the
+     * unmapped offsets, indexed by rowClass * colClasses + colClass.
+     */
+    private final int[][] offsets;
+
+    /**
+     * Constructor. Creates the clipped Neighbourhood of a distance in a grid.
+     * 
+     * @param rows     - the number of rows in the grid
+     * @param cols     - the number of columns in the grid
+     * @param distance - the sensory distance
+     */
+    public Neighbourhood(int rows, int cols, int distance) {
+        this(rows, cols, distance, Topology.CLIPPED);
+    }
+
+    /**
+     * Constructor. Creates the Neighbourhood of a distance in a grid.
+     * 
+     * @param rows     - the number of rows in the grid
+     * @param cols     - the number of columns in the grid
+     * @param distance - the sensory distance
+     * @param topology - how the grid behaves past its edges
+     */
+    public Neighbourhood(int rows, int cols, int distance, Topology topology) {
+        this.rows = rows;
+        this.cols = cols;
+        this.distance = distance;
+        this.topology = topology;
+        this.colClass = new int[cols];
+        this.rowClass = new int[rows];
+        final int[] colSample = classify(cols, distance, this.colClass);
+        final int[] rowSample = classify(rows, distance, this.rowClass);
+        this.colClasses = colSample.length;
+        this.offsets = new int[rowSample.length * colSample.length][];
+        final int[] scratch = new int[capacity(distance)];
+        for (int rc = 0; rc < rowSample.length; rc++) {
+            for (int cc = 0; cc < colSample.length; cc++) {
+                final int ypos = rowSample[rc];
+                final int xpos = colSample[cc];
+                final int index = ypos * cols + xpos;
+                int count = 0;
+                for (int row = -1 * distance; row <= distance; row++) {
+                    for (int col = -1 * distance; col <= distance; col++) {
+                        final int y = topology.map(ypos + row, rows);
+                        final int x = topology.map(xpos + col, cols);
+                        if (y >= 0 && x >= 0 && (y != ypos || x != xpos)) {
+                            scratch[count++] = y * cols + x - index;
+                        }
+                    }
+                }
+                final int[] table = new int[count];
+                System.arraycopy(scratch, 0, table, 0, count);
+                this.offsets[rc * this.colClasses + cc] = table;
+            }
+        }
+    }
+
+    /**
+     * classify. Sorts the positions along one axis into classes: one for each
+     * of the distance positions nearest each edge, and one for the interior.
+     * 
+     * @param size     - the number of positions along the axis
+     * @param distance - the sensory distance
+     * @param classes  - filled with the class of each position
+     * @return a sample position of each class
+     */
+    private static int[] classify(int size, int distance, int[] classes) {
+        if (size <= 2 * distance + 1) {
+            final int[] sample = new int[size];
+            for (int pos = 0; pos < size; pos++) {
+                classes[pos] = pos;
+                sample[pos] = pos;
+            }
+            return sample;
+        }
+        final int[] sample = new int[2 * distance + 1];
+        for (int pos = 0; pos < size; pos++) {
+            final int c;
+            if (pos < distance) {
+                c = pos;
+            } else if (pos >= size - distance) {
+                c = pos - (size - distance) + distance + 1;
+            } else {
+                c = distance;
+            }
+            classes[pos] = c;
+            sample[c] = pos;
+        }
+        return sample;
+    }
+
+    /**
+     * capacity. Gets the largest number of neighbours a cell can have at a
+     * distance, which is the buffer size needed by collect.
+     * 
+     * @param distance - the sensory distance
+     * @return the number of cells within distance, excluding the centre
+     */
+    public static int capacity(int distance) {
+        final int side = 2 * distance + 1;
+        return side * side - 1;
+    }
+
+    /**
+     * getDistance. Gets the sensory distance of this Neighbourhood.
+     * 
+     * @return the distance - an int
+     */
+    public int getDistance() {
+        return this.distance;
+    }
+
+    /**
+     * getTopology. Gets how the grid of this Neighbourhood behaves past its
+     * edges.
+     * 
+     * @return the Topology
+     */
+    public Topology getTopology() {
+        return this.topology;
+    }
+
+    /**
+     * collect. Writes the indices of the neighbours of a cell into a buffer.
+     * 
+     * @param index - the row-major index of the cell
+     * @param out   - the buffer to fill, of at least capacity(distance) entries
+     * @return the number of neighbours written
+     */
+    public int collect(int index, int[] out) {
+        final int ypos = index / this.cols;
+        final int xpos = index - ypos * this.cols;
+        final int[] table = this.offsets[this.rowClass[ypos] * this.colClasses + this.colClass[xpos]];
+        for (int n = 0; n < table.length; n++) {
+            out[n] = index + table[n];
+        }
+        return table.length;
+    }
+}
@@ -1,11 +0,0 @@
-
-/**
- * OmnivoreEdible.
- * 
- * Interface to be implemented on classes which are edible by Omnivores.
- * 
- * @author Maxwell Babey
- * @version 2022, 1.0
- */
-public interface OmnivoreEdible {
-}
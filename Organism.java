@@ -1,7 +1,5 @@
 
 import java.awt.Color;
-import java.util.LinkedList;
-import java.util.List;
 
 /**
  * Organism.
@@ -14,30 +12,18 @@ import java.util.List;
  */
 public class Organism {
 
-    /** Defines the sensory distance of an organism. */
-    protected int sensorDistance;
+    /** The species id of this Organism; Species.EMPTY for a bare Organism. */
+    protected byte species = Species.EMPTY;
+
+    /** The rules of this Organism's species, shared with its World. */
+    protected SpeciesRules rules;
 
     /** Holds the current cell of this organism. */
     protected Cell currentCell;
 
-    /** Array containing the progenitors of all Organisms. */
-    public static final Organism[] NULL_PARENTS = { new Organism(), new Organism() };
-
-    /** The parents of this Organism. */
-    protected Organism[] parents;
-
-    /** The children of this Organism. */
-    protected List<Organism> children = new LinkedList<Organism>();
+    /** The id of this Organism in its World's Lineage, if it has one. */
+    protected int lineageId = Lineage.PROGENITOR;
 
-    /** The number of like-species neighbours for this Organism to reproduce. */
-    protected int likeNbToRep;
-    
-    /** The number of -Edible implementing neighbours for this Organism to reproduce. */
-    protected int foodNbToRep;
-    
-    /** The number of empty neighbours for this Organism to reproduce. */
-    protected int emptyNbToRep;
-    
     /** Flags whether this Organism has mated in a turn. */
     protected boolean hasMated = false;
 
@@ -75,25 +61,34 @@ public class Organism {
     }
 
     /**
-     * isEdible. Determines whether an Organism is edible by another Organism.
-     * Overridden by subclasses.
+     * getSpecies. Gets the species id of this Organism.
      * 
-     * @param org - the organism to be tested against.
-     * @return false - default
+     * @return the species id
      */
-    protected boolean isEdible(Organism org) {
-        return false;
+    public byte getSpecies() {
+        return this.species;
     }
 
     /**
-     * isSpecies. Determines whether an Organism is the same species as another
-     * Organism. Overridden by subclasses.
+     * isEdible. Determines whether an Organism is edible by this Organism, by
+     * looking its species up in the prey of this Organism's SpeciesRules.
      * 
-     * @param org - the organism to be tested against.
-     * @return false - default
+     * @param org - the organism to be tested against, or null.
+     * @return true if this Organism can eat org
      */
-    protected boolean isSpecies(Organism org) {
-        return false;
+    protected final boolean isEdible(Organism org) {
+        return org != null && this.rules.eats(org.species);
+    }
+
+    /**
+     * isSpecies. Determines whether an Organism is the same species as this
+     * Organism.
+     * 
+     * @param org - the organism to be tested against, or null.
+     * @return true if org has this Organism's species id
+     */
+    protected final boolean isSpecies(Organism org) {
+        return org != null && org.species == this.species && this.species != Species.EMPTY;
     }
 
     /**
@@ -103,12 +98,35 @@ public class Organism {
     }
 
     /**
-     * addChild. Adds a child to this Organism's list of children.
+     * getLineageId. Gets the id of this Organism in its World's Lineage.
+     * 
+     * @return the lineage id, or Lineage.PROGENITOR if it has none
+     */
+    public int getLineageId() {
+        return this.lineageId;
+    }
+
+    /**
+     * perish. Called when this Organism leaves the World, by dying or by being
+     * eaten. Hands this Organism back to its World for reuse; nothing may use it
+     * afterwards. Overridden by subclasses which hold World resources.
+     */
+    protected void perish() {
+        this.currentCell.getWorld().recycle(this);
+    }
+
+    /**
+     * reuse. Resets a recycled Organism as if it were newly created in a Cell.
+     * Overridden by subclasses with more state.
      * 
-     * @param child - the child to add
+     * @param location - the Cell this Organism will occupy
+     * @param mother   - the lineage id of the first parent of an Animal
+     * @param father   - the lineage id of the second parent of an Animal
      */
-    protected void addChild(Organism child) {
-        this.children.add(child);
+    protected void reuse(Cell location, int mother, int father) {
+        this.currentCell = location;
+        this.hasMated = false;
+        this.canAct = false;
     }
 
     /**
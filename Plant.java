@@ -1,8 +1,4 @@
 
-import java.awt.Color;
-import java.util.LinkedList;
-import java.util.List;
-
 /**
  * Plant.
  * 
@@ -13,103 +9,107 @@ import java.util.List;
  * <li>A Plant cannot die, and</li>
  * <li>A Plant can seed a neighbouring empty cell.</li>
  * </ul>
+ * How far a Plant senses and how readily it seeds are the SpeciesRules of its
+ * species.
  * </p>
  * 
  * @author Maxwell Babey
  * @version 2022, 1.1
  */
-public class Plant extends Organism implements HerbivoreEdible, OmnivoreEdible {
-
-    /** The sensory distance of a Plant in Cells. */
-    public static final int PLANT_SENSORY_DISTANCE = 1;
-
-    /**
-     * The number of neighbours for this plant to seed an empty cell nearby.
-     */
-    public static final int PLANT_NB_TO_PROPAGATE = 2;
+public class Plant extends Organism {
 
     /**
-     * The number of empty neighbours for this plant to seed an empty cell nearby.
-     */
-    public static final int EMPTY_PLANT_NB_TO_PROPAGATE = 3;
-
-    /** The percent chance a Plant has to seed an empty cell. */
-    public static final int PERCENT_CHANCE_TO_PROPAGATE = 100;
-
-    /** The colour of a Plant. */
-    public static final Color PLANT_COLOUR = Color.GREEN;
-
-    /**
-     * Constructor. Creates a plant at the specified Cell.
+     * Constructor. Creates a plant of a species at the specified Cell.
      * 
-     * @param currentCell - the Cell to create a Plant at.
+     * @param location - the Cell to create a Plant at.
+     * @param species  - the species id, which must be a plant
      */
-    public Plant(Cell location) {
+    public Plant(Cell location, byte species) {
         this.currentCell = location;
-        this.sensorDistance = PLANT_SENSORY_DISTANCE;
-        this.likeNbToRep = PLANT_NB_TO_PROPAGATE;
-        this.foodNbToRep = 0;
-        this.emptyNbToRep = EMPTY_PLANT_NB_TO_PROPAGATE;
-        this.orgColour = PLANT_COLOUR;
-    }
-    
-    /**
-     * Null constructor.
-     */
-    public Plant() {
-        this.currentCell = null;
-        this.sensorDistance = 0;
-        this.likeNbToRep = 0;
-        this.foodNbToRep = 0;
-        this.emptyNbToRep = 0;
-        this.orgColour = null;
+        this.rules = location.getWorld().getRules(species);
+        this.orgColour = this.rules.colour;
+        this.species = species;
     }
 
     /**
      * reproduce. Calls on this Plant to check its neighbouring cells. If a certain
-     * number of neighbours are also Plants and this Plant has a certain number of
-     * empty neighbours, those empty neighbours have a chance to become Plants.
+     * number of neighbours are also Plants of its species and this Plant has a
+     * certain number of empty neighbours, those empty neighbours have a chance to
+     * become Plants of its species. Where the World counts the neighbours of
+     * the species, they are enumerated only if this Plant seeds.
      */
     @Override
     protected void reproduce() {
-        List<Cell> neighbours = this.currentCell.getNeighbours(this.sensorDistance);
-        List<Cell> validNeighbours = new LinkedList<Cell>();
+        final World world = this.currentCell.getWorld();
+        final int index = this.currentCell.getIndex();
+        final WindowCounts window = world.getWindowCounts(this.species);
+        if (window != null && window.covers(index)) {
+            final int validCount = window.count(index, Species.EMPTY);
+            if (window.count(index, this.species) - 1 >= this.rules.likeNbToRep
+                    && validCount >= this.rules.emptyNbToRep) {
+                seed(null, validCount);
+            }
+            return;
+        }
+        final int[] neighbours = world.getNeighbourBuffer(this.rules.sensorDistance);
+        final int[] validNeighbours = world.getValidBuffer(this.rules.sensorDistance);
+        final int count = this.currentCell.getNeighbours(this.rules.sensorDistance, neighbours);
+        int validCount = 0;
         int plantNeighbourCount = 0;
-        for (Cell neighbour : neighbours) {
-            if (isSpecies(neighbour.getOrganism())) {
+        for (int n = 0; n < count; n++) {
+            Organism neighbour = world.getCell(neighbours[n]).getOrganism();
+            if (isSpecies(neighbour)) {
                 plantNeighbourCount++;
             }
-            if (neighbour.getOrganism() == null) {
-                validNeighbours.add(neighbour);
+            if (neighbour == null) {
+                validNeighbours[validCount++] = neighbours[n];
             }
         }
-        if (plantNeighbourCount >= likeNbToRep && validNeighbours.size() >= emptyNbToRep) {
-            seed(validNeighbours);
+        if (plantNeighbourCount >= this.rules.likeNbToRep && validCount >= this.rules.emptyNbToRep) {
+            seed(validNeighbours, validCount);
         }
     }
 
     /**
-     * isSpecies.
+     * seed. Helper method for reproduce. Seeds a random valid neighbouring Cell.
      * 
-     * @param org - Organism to check against.
-     * @return true if Organism is a Plant, false otherwise.
+     * @param validNeighbours - indices of valid neighbour Cells, or null to
+     *                        enumerate them only if seeding
+     * @param validCount      - the number of valid neighbour Cells
      */
-    @Override
-    protected boolean isSpecies(Organism org) {
-        return (org instanceof Plant);
+    private void seed(int[] validNeighbours, int validCount) {
+        int randNum = this.currentCell.getWorld().getRandom().nextNumber(99);
+        if (randNum <= this.rules.percentChanceToPropagate) {
+            if (validNeighbours == null) {
+                validNeighbours = this.emptyNeighbours();
+            }
+            randNum = this.currentCell.getWorld().getRandom().nextNumber(validCount);
+            Cell target = this.currentCell.getWorld().getCell(validNeighbours[randNum]);
+            target.setOrganism(this.currentCell.getWorld().create(target, this.species, Lineage.PROGENITOR,
+                    Lineage.PROGENITOR));
+            this.currentCell.getWorld().record(Events.BIRTH, this.species, Species.EMPTY, target.getIndex(),
+                    target.getIndex());
+        }
     }
 
     /**
-     * seed. Helper method for reproduce. Seeds a random valid neighbouring Cell.
+     * emptyNeighbours. Helper method for seed. Enumerates the empty neighbouring
+     * Cells.
      * 
-     * @param validNeighbours - List of valid neighbour Cells
+     * @return indices of the empty neighbour Cells, in neighbour order
      */
-    private void seed(List<Cell> validNeighbours) {
-        int randNum = RandomGenerator.nextNumber(99);
-        if (randNum <= PERCENT_CHANCE_TO_PROPAGATE) {
-            randNum = RandomGenerator.nextNumber(validNeighbours.size());
-            validNeighbours.get(randNum).setOrganism(new Plant(validNeighbours.get(randNum)));
+    private int[] emptyNeighbours() {
+        final World world = this.currentCell.getWorld();
+        final int[] neighbours = world.getNeighbourBuffer(this.rules.sensorDistance);
+        final int[] validNeighbours = world.getValidBuffer(this.rules.sensorDistance);
+        final int count = this.currentCell.getNeighbours(this.rules.sensorDistance, neighbours);
+        int validCount = 0;
+        for (int n = 0; n < count; n++) {
+            if (world.getCell(neighbours[n]).getOrganism() == null) {
+                validNeighbours[validCount++] = neighbours[n];
+            }
         }
+        return validNeighbours;
     }
 
     /**
@@ -3,12 +3,13 @@
 /**
  * RandomGenerator.
  * 
- * A pseudo-random number generator.
+ * A pseudo-random number generator which walks a fixed table of 256 numbers.
+ * Kept so that older runs can be reproduced; SplitMix64 is the default.
  * 
  * @author Dennis Richards
- * @version 2022, 1.0
+ * @version 2022, 2.0
  */
-public final class RandomGenerator {
+public final class RandomGenerator implements RandomSource {
     private static final int[] NUMBERS;
 
     static {
@@ -46,24 +47,73 @@ public final class RandomGenerator {
                 -1660688399, -115501757, 86156176, };
     }
 
-    private static int next;
+    /** The starting position of this generator in NUMBERS. */
+    private final int start;
 
-    private RandomGenerator() {
+    /** The position of this generator in NUMBERS. */
+    private int next;
+
+    /**
+     * Constructor. Creates a generator which starts at a position in the
+     * sequence.
+     * 
+     * @param start - the starting position, taken modulo the sequence length
+     */
+    public RandomGenerator(final int start) {
+        this.start = Math.floorMod(start, NUMBERS.length);
+        this.next = this.start;
     }
 
-    public static void reset() {
-        next = 0;
+    /**
+     * reset. Returns this generator to its starting position.
+     */
+    public void reset() {
+        this.next = this.start;
     }
 
-    public static int nextNumber(final int max) {
+    @Override
+    public int nextNumber(final int max) {
         try {
-            return (Math.abs(NUMBERS[next]) % max);
+            return (Math.abs(NUMBERS[this.next]) % max);
         } finally {
-            next++;
+            this.next++;
 
-            if (next >= NUMBERS.length) {
-                next = 0;
+            if (this.next >= NUMBERS.length) {
+                this.next = 0;
             }
         }
     }
+
+    /**
+     * getState. Gets the position of this generator in the sequence.
+     * 
+     * @return the position
+     */
+    @Override
+    public long getState() {
+        return this.next;
+    }
+
+    /**
+     * setState. Moves this generator to a position in the sequence.
+     * 
+     * @param state - the position, taken modulo the sequence length
+     */
+    @Override
+    public void setState(final long state) {
+        this.next = (int) Math.floorMod(state, (long) NUMBERS.length);
+    }
+
+    /**
+     * split. Creates a generator starting at a position derived from this
+     * generator's start and a key. The sequence is only 256 numbers long, so
+     * split streams overlap; prefer SplitMix64 where that matters.
+     * 
+     * @param key - distinguishes the new stream from other splits
+     * @return a new RandomGenerator
+     */
+    @Override
+    public RandomSource split(final long key) {
+        return new RandomGenerator((int) SplitMix64.mix(this.start ^ SplitMix64.mix(key)));
+    }
 }
@@ -0,0 +1,46 @@
+/**
+ * RandomSource.
+ * 
+ * Interface to be implemented by pseudo-random number generators. Each World
+ * owns its own RandomSource, and engines which run on several threads split
+ * it into independent, reproducible streams instead of sharing one.
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public interface RandomSource {
+
+    /**
+     * nextNumber. Draws the next number of this generator.
+     * 
+     * @param max - the exclusive upper bound, greater than 0
+     * @return a number from 0 to max - 1
+     */
+    int nextNumber(int max);
+
+    /**
+     * split. Creates a generator whose stream is determined only by the seed of
+     * this generator and a key. Does not advance this generator, so the same key
+     * always gives the same stream.
+     * 
+     * @param key - distinguishes the new stream from other splits
+     * @return a new, independent generator
+     */
+    RandomSource split(long key);
+
+    /**
+     * getState. Gets the position of this generator in its stream, from which
+     * setState resumes it.
+     * 
+     * @return the state
+     */
+    long getState();
+
+    /**
+     * setState. Moves this generator to a position got from getState of a
+     * generator with the same seed.
+     * 
+     * @param state - the state
+     */
+    void setState(long state);
+}
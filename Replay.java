@@ -0,0 +1,83 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Replay.
+ * 
+ * <p>
+ * Reconstructs the species of every cell after any turn of a logged run, from
+ * the nearest Checkpoint at or before that turn and the DeltaLog of the turns
+ * since. Only species are logged, so a replayed turn has no ages or lineage;
+ * to resume a run from a turn, restore a Checkpoint instead.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class Replay {
+
+    private Replay() {
+    }
+
+    /**
+     * replay. Reconstructs the species of every cell after a turn.
+     * 
+     * @param log         - the DeltaLog of the run
+     * @param checkpoints - Checkpoints saved during the run, in any order
+     * @param turn        - the turn to reconstruct
+     * @return the species of every cell after turn
+     * @throws IOException if a file cannot be read, or the log does not cover
+     *                     the turns from the nearest Checkpoint to turn
+     */
+    public static Snapshot replay(final Path log, final List<Path> checkpoints, final long turn)
+            throws IOException {
+        Path nearest = null;
+        long from = -1;
+        for (Path checkpoint : checkpoints) {
+            final long saved = Checkpoint.turnOf(checkpoint);
+            if (saved <= turn && saved > from) {
+                nearest = checkpoint;
+                from = saved;
+            }
+        }
+        if (nearest == null) {
+            throw new IllegalArgumentException("checkpoints cannot all be after the turn - got: " + turn);
+        }
+        final Ecosystem world = Checkpoint.load(nearest);
+        final int rows = world.getRows();
+        final int cols = world.getCols();
+        final byte[] species = new byte[rows * cols];
+        try {
+            world.copySpecies(species);
+        } finally {
+            if (world instanceof Closeable) {
+                ((Closeable) world).close();
+            }
+        }
+        long applied = from;
+        try (DeltaReader reader = new DeltaReader(log)) {
+            if (reader.getRows() != rows || reader.getCols() != cols) {
+                throw new IllegalArgumentException("log grid cannot differ from the checkpoint's - got: "
+                        + reader.getCols() + "x" + reader.getRows());
+            }
+            while (applied < turn && reader.next()) {
+                final long next = reader.getTurn();
+                if (next <= applied) {
+                    // A turn repeated by a run resumed from an earlier Checkpoint.
+                    continue;
+                }
+                if (next != applied + 1) {
+                    throw new IOException("log cannot skip turns - after " + applied + " got: " + next);
+                }
+                reader.getEvents().applyTo(species);
+                applied = next;
+            }
+        }
+        if (applied != turn) {
+            throw new IOException("log cannot end before the turn - ended at " + applied + ", wanted: " + turn);
+        }
+        return Snapshot.wrap(turn, rows, cols, species);
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Roster.
+ * 
+ * <p>
+ * A per-species index of the occupied cells of a World. For each species id the
+ * Roster keeps one bit per cell, so the cells of a species can be visited in
+ * row-major order without looking at the cells of any other species. The Roster
+ * is kept up to date by the Cells of the World as Organisms are born, move and
+ * die.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public class Roster {
+
+    /** One bit per cell for each species id, in words of 64 cells. */
+    private final long[][] occupied;
+
+    /**
+     * Constructor. Creates an empty Roster for a number of cells.
+     * 
+     * @param cells   - the number of cells in the World
+     * @param species - the number of species ids, including EMPTY
+     */
+    public Roster(int cells, int species) {
+        this.occupied = new long[species][(cells + 63) >>> 6];
+    }
+
+    /**
+     * add. Records that a cell holds an Organism of a species.
+     * 
+     * @param species - the species id; EMPTY is ignored
+     * @param index   - the index of the cell
+     */
+    public void add(byte species, int index) {
+        if (species != Species.EMPTY) {
+            this.occupied[species][index >>> 6] |= 1L << index;
+        }
+    }
+
+    /**
+     * remove. Records that a cell no longer holds an Organism of a species.
+     * 
+     * @param species - the species id; EMPTY is ignored
+     * @param index   - the index of the cell
+     */
+    public void remove(byte species, int index) {
+        if (species != Species.EMPTY) {
+            this.occupied[species][index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * next. Finds the first cell at or after an index which holds an Organism of
+     * a species.
+     * 
+     * @param species - the species id
+     * @param from    - the index to start looking at
+     * @return the index of the next occupied cell, or -1 if there is none
+     */
+    public int next(byte species, int from) {
+        final long[] words = this.occupied[species];
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return -1;
+        }
+        long bits = words[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+}
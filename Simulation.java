@@ -0,0 +1,239 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Simulation.
+ * 
+ * <p>
+ * Runs the turns of an Ecosystem on a dedicated thread, so that a long turn
+ * never holds up the Swing event thread. A Simulation is either paused, when
+ * it runs only the turns asked for by step, or playing, when it runs turns
+ * continuously at a target rate or as fast as it can.
+ * </p>
+ * 
+ * <p>
+ * Only the simulation thread touches the Ecosystem once start has been called.
+ * Other threads see it through immutable Snapshots, polled with pollSnapshot.
+ * A new Snapshot is copied after a turn only if the last one has been polled,
+ * so turns run while the display is still drawing are never copied; the
+ * display skips straight to a newer state. When the Simulation goes idle, the
+ * final state is always copied.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public class Simulation implements Runnable {
+
+    /** The world whose turns this Simulation runs. */
+    private final Ecosystem world;
+
+    /** The thread running the turns. */
+    private final Thread thread;
+
+    /** The newest Snapshot not yet polled, or null. */
+    private final AtomicReference<Snapshot> latest = new AtomicReference<Snapshot>();
+
+    /** Guards the fields below; notified when any of them changes. */
+    private final Object lock = new Object();
+
+    /** Whether turns run continuously. */
+    private boolean playing;
+
+    /** The turns asked for by step and not yet run. */
+    private int pendingSteps;
+
+    /** The nanoseconds between turns while playing; 0 runs flat out. */
+    private long nanosPerTurn;
+
+    /**
+     * Constructor. Creates a paused Simulation of a world.
+     * 
+     * @param world          - the world to run
+     * @param turnsPerSecond - the target rate while playing; 0 for flat out
+     */
+    public Simulation(final Ecosystem world, final int turnsPerSecond) {
+        this.world = world;
+        this.setTurnsPerSecond(turnsPerSecond);
+        this.thread = new Thread(this, "simulation");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * start. Publishes a Snapshot of the populated world and starts the
+     * simulation thread. From here on only that thread touches the world.
+     */
+    public void start() {
+        this.latest.set(Snapshot.of(this.world, this.world.getTurn()));
+        this.thread.start();
+    }
+
+    /**
+     * play. Runs turns continuously.
+     */
+    public void play() {
+        synchronized (this.lock) {
+            this.playing = true;
+            this.lock.notifyAll();
+        }
+    }
+
+    /**
+     * pause. Stops running turns continuously after the current one.
+     */
+    public void pause() {
+        synchronized (this.lock) {
+            this.playing = false;
+            this.lock.notifyAll();
+        }
+    }
+
+    /**
+     * togglePlaying. Plays if paused, and pauses if playing.
+     */
+    public void togglePlaying() {
+        synchronized (this.lock) {
+            this.playing = !this.playing;
+            this.lock.notifyAll();
+        }
+    }
+
+    /**
+     * isPlaying. Gets whether turns run continuously.
+     * 
+     * @return true if playing
+     */
+    public boolean isPlaying() {
+        synchronized (this.lock) {
+            return this.playing;
+        }
+    }
+
+    /**
+     * step. Runs one turn, if paused.
+     */
+    public void step() {
+        synchronized (this.lock) {
+            if (!this.playing) {
+                this.pendingSteps++;
+                this.lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * setTurnsPerSecond. Sets the target rate while playing.
+     * 
+     * @param turnsPerSecond - turns per second; 0 for flat out
+     */
+    public void setTurnsPerSecond(final int turnsPerSecond) {
+        if (turnsPerSecond < 0) {
+            throw new IllegalArgumentException("turnsPerSecond cannot be < 0 - got: " + turnsPerSecond);
+        }
+        synchronized (this.lock) {
+            this.nanosPerTurn = turnsPerSecond == 0 ? 0 : 1_000_000_000L / turnsPerSecond;
+            this.lock.notifyAll();
+        }
+    }
+
+    /**
+     * pollSnapshot. Takes the newest Snapshot, if there is one which has not
+     * been taken.
+     * 
+     * @return the Snapshot, or null if nothing has changed since the last poll
+     */
+    public Snapshot pollSnapshot() {
+        return this.latest.getAndSet(null);
+    }
+
+    /**
+     * getRows. Get the number of rows in the world.
+     * 
+     * @return number of rows - an int
+     */
+    public int getRows() {
+        return this.world.getRows();
+    }
+
+    /**
+     * getCols. Get the number of columns in the world.
+     * 
+     * @return number of cols - an int
+     */
+    public int getCols() {
+        return this.world.getCols();
+    }
+
+    /**
+     * getConfig. Gets the configuration of the world, which names and colours
+     * its species.
+     * 
+     * @return the Config
+     */
+    public Config getConfig() {
+        return this.world.getConfig();
+    }
+
+    /**
+     * run. The simulation thread: waits for play or step, and runs turns.
+     */
+    @Override
+    public void run() {
+        long deadline = System.nanoTime();
+        boolean unpublished = false;
+        try {
+            while (true) {
+                synchronized (this.lock) {
+                    if (!this.playing && this.pendingSteps == 0 && unpublished) {
+                        this.latest.set(Snapshot.of(this.world, this.world.getTurn()));
+                        unpublished = false;
+                    }
+                    while (!this.playing && this.pendingSteps == 0) {
+                        this.lock.wait();
+                    }
+                    if (this.playing) {
+                        this.pendingSteps = 0;
+                        deadline = this.pace(deadline);
+                        if (!this.playing) {
+                            continue;
+                        }
+                    } else {
+                        this.pendingSteps--;
+                    }
+                }
+                this.world.twentyThreeHoursAndFiftySixMinutes();
+                if (this.latest.get() == null) {
+                    this.latest.set(Snapshot.of(this.world, this.world.getTurn()));
+                    unpublished = false;
+                } else {
+                    unpublished = true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * pace. Waits, holding lock, until the next turn is due while playing.
+     * Returns early if the Simulation is paused meanwhile.
+     * 
+     * @param deadline - when the last turn was due
+     * @return when this turn is due
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private long pace(final long deadline) throws InterruptedException {
+        if (this.nanosPerTurn == 0) {
+            return System.nanoTime();
+        }
+        final long now = System.nanoTime();
+        // After a pause or a slow turn, start a fresh schedule rather than
+        // running a burst of turns to catch up.
+        final long due = Math.max(deadline + this.nanosPerTurn, now);
+        long wait = due - now;
+        while (this.playing && wait > 0) {
+            this.lock.wait(wait / 1_000_000, (int) (wait % 1_000_000));
+            wait = due - System.nanoTime();
+        }
+        return due;
+    }
+}
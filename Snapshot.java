@@ -0,0 +1,120 @@
+/**
+ * Snapshot.
+ * 
+ * <p>
+ * An immutable copy of the species in every cell of an Ecosystem after a
+ * turn. A Snapshot may be handed from the thread running the simulation to any
+ * other thread, such as the Swing event thread, and read there while the
+ * simulation moves on.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class Snapshot {
+
+    /** The number of turns the world had run when copied. */
+    private final long turn;
+
+    /** The number of rows and columns in the world. */
+    private final int rows;
+    private final int cols;
+
+    /** The species id of every cell, row by row. */
+    private final byte[] species;
+
+    /**
+     * Constructor. Creates a Snapshot from an array it takes ownership of.
+     * 
+     * @param turn    - the number of turns the world had run
+     * @param rows    - the number of rows in the world
+     * @param cols    - the number of columns in the world
+     * @param species - the species id of every cell, row by row
+     */
+    private Snapshot(final long turn, final int rows, final int cols, final byte[] species) {
+        this.turn = turn;
+        this.rows = rows;
+        this.cols = cols;
+        this.species = species;
+    }
+
+    /**
+     * of. Copies the species of every cell of a world. Must be called on the
+     * thread which runs the world's turns, or while none is running.
+     * 
+     * @param world - the world to copy
+     * @param turn  - the number of turns the world has run
+     * @return the Snapshot
+     */
+    public static Snapshot of(final Ecosystem world, final long turn) {
+        final byte[] species = new byte[world.getRows() * world.getCols()];
+        world.copySpecies(species);
+        return new Snapshot(turn, world.getRows(), world.getCols(), species);
+    }
+
+    /**
+     * wrap. Creates a Snapshot from an array it takes ownership of, which must
+     * not be changed afterwards.
+     * 
+     * @param turn    - the number of turns the world had run
+     * @param rows    - the number of rows in the world
+     * @param cols    - the number of columns in the world
+     * @param species - the species id of every cell, row by row
+     * @return the Snapshot
+     */
+    public static Snapshot wrap(final long turn, final int rows, final int cols, final byte[] species) {
+        if (species.length != rows * cols) {
+            throw new IllegalArgumentException("species cannot differ in size from the grid - got: "
+                    + species.length);
+        }
+        return new Snapshot(turn, rows, cols, species);
+    }
+
+    /**
+     * getTurn. Gets the number of turns the world had run when copied.
+     * 
+     * @return the turn
+     */
+    public long getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * getRows. Get the number of rows in the grid.
+     * 
+     * @return number of rows - an int
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * getCols. Get the number of columns in the grid.
+     * 
+     * @return number of cols - an int
+     */
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * getSpecies. Gets the species id at a location.
+     * 
+     * @param xpos - x position of the cell
+     * @param ypos - y position of the cell
+     * @return the species id at (xpos, ypos)
+     */
+    public byte getSpecies(final int xpos, final int ypos) {
+        return this.species[ypos * this.cols + xpos];
+    }
+
+    /**
+     * getSpecies. Gets the species id at a row-major index.
+     * 
+     * @param index - ypos * cols + xpos
+     * @return the species id at index
+     */
+    public byte getSpecies(final int index) {
+        return this.species[index];
+    }
+}
@@ -0,0 +1,1180 @@
+import java.util.Arrays;
+
+/**
+ * SparseWorld.
+ * 
+ * <p>
+ * A World backend which stores only the parts of the grid holding organisms.
+ * The grid is cut into square Chunks of CHUNK_SIZE cells, each holding the same
+ * primitive arrays as a GridWorld, kept in a hash table keyed by the chunk's
+ * packed coordinates. A Chunk is allocated when an organism is first placed in
+ * it and freed at the end of the turn in which it empties, so memory follows
+ * the population rather than the area, and grids up to Integer.MAX_VALUE cells
+ * on a side can be run. Cells outside every Chunk are empty.
+ * </p>
+ * 
+ * <p>
+ * The turn rules are the same as those of a GridWorld, and cells are visited
+ * in the same row-major order, so a SparseWorld and a GridWorld given
+ * identically seeded generators evolve identically. Turns run on one thread.
+ * letThereBeLight rolls for every cell of the grid, so a very large
+ * SparseWorld is better populated with setSpecies.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public class SparseWorld implements Ecosystem {
+
+    /** The side of a Chunk in cells. */
+    public static final int CHUNK_SIZE = 64;
+
+    /** log2 of CHUNK_SIZE. */
+    private static final int CHUNK_SHIFT = 6;
+
+    /** Masks a coordinate to its offset within a Chunk. */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    /** Flag set on an organism which has acted, or may not act, this turn. */
+    private static final byte ACTED = 1;
+
+    /** Flag set on an Animal which has mated this turn. */
+    private static final byte MATED = 2;
+
+    /** The configuration this world was built from. */
+    private final Config config;
+
+    /** Whether each species is a Plant, indexed by species id. */
+    private final boolean[] plant;
+
+    /** The species each species eats as a bit mask, indexed by species id. */
+    private final int[] prey;
+
+    /** The lifespan of each species in turns, indexed by species id. */
+    private final int[] lifespan;
+
+    /** The sensory distance of each species in Cells, indexed by species id. */
+    private final int[] sensor;
+
+    /** Like-species neighbours needed to reproduce, indexed by species id. */
+    private final int[] likeNb;
+
+    /** Food neighbours needed to reproduce, indexed by species id. */
+    private final int[] foodNb;
+
+    /** Empty neighbours needed to reproduce, indexed by species id. */
+    private final int[] emptyNb;
+
+    /** The chance that a Plant which may seed does seed, indexed by species id. */
+    private final int[] chance;
+
+    /** The species ids in the order they take their turns. */
+    private final byte[] turnOrder;
+
+    /**
+     * The offsets, within a Chunk, of the neighbours of each species, in
+     * row-major order, indexed by species id.
+     */
+    private final int[][] chunkOffsets;
+
+    /** The number of rows and columns in the grid. */
+    private final int rows;
+    private final int cols;
+
+    /** How the edges of the grid behave. */
+    private final Topology topology;
+
+    /** The allocated Chunks. */
+    private final ChunkTable chunks = new ChunkTable();
+
+    /** The generator this world draws from. */
+    private final RandomSource random;
+
+    /** The next lineage id to hand out. Id 0 stands for the progenitors. */
+    private int nextId = 1;
+
+    /** The number of turns this world has run. */
+    private long turn;
+
+    /** Follows the changes made to this world, or null. */
+    private TurnListener listener;
+
+    /** The changes made since the last turn ended, or null if not recording. */
+    private Events events;
+
+    /** Receives the counts of each turn, or null. */
+    private Metrics metrics;
+
+    /** The counts of the turn under way, or null if not counting. */
+    private Counters counters;
+
+    /** The Chunks scanned this turn, in row-major order. */
+    private Chunk[] order = new Chunk[0];
+
+    /**
+     * Scratch buffers describing the neighbours of the acting organism: the
+     * Chunk holding each (null if none is allocated), its index within the
+     * Chunk, and its coordinates, which are only filled in when the Chunk may
+     * be null.
+     */
+    private final Chunk[] nbChunk;
+    private final int[] nbLocal;
+    private final int[] nbX;
+    private final int[] nbY;
+
+    /** Scratch buffer holding the positions in the above of valid targets. */
+    private final int[] valid;
+
+    /**
+     * Constructor. Creates a SparseWorld as configured, drawing from the
+     * configured generator.
+     * 
+     * @param config - the configuration of the world
+     */
+    public SparseWorld(Config config) {
+        this(config, config.newRandom());
+    }
+
+    /**
+     * Constructor. Creates a SparseWorld as configured.
+     * 
+     * @param config - the configuration of the world
+     * @param random - the generator this world draws from
+     */
+    public SparseWorld(Config config, RandomSource random) {
+        this.config = config;
+        this.random = random;
+        this.rows = config.getGridY();
+        this.cols = config.getGridX();
+        this.topology = config.getTopology();
+        final int kinds = config.getSpeciesCount();
+        this.plant = new boolean[kinds];
+        this.prey = new int[kinds];
+        this.lifespan = new int[kinds];
+        this.sensor = new int[kinds];
+        this.likeNb = new int[kinds];
+        this.foodNb = new int[kinds];
+        this.emptyNb = new int[kinds];
+        this.chance = new int[kinds];
+        this.chunkOffsets = new int[kinds][];
+        int maxSensor = 0;
+        for (byte kind = 1; kind < kinds; kind++) {
+            final SpeciesRules rules = config.getRules(kind);
+            this.plant[kind] = rules.plant;
+            this.prey[kind] = rules.prey;
+            this.chance[kind] = rules.percentChanceToPropagate;
+            this.lifespan[kind] = rules.lifespan;
+            this.sensor[kind] = rules.sensorDistance;
+            this.likeNb[kind] = rules.likeNbToRep;
+            this.foodNb[kind] = rules.foodNbToRep;
+            this.emptyNb[kind] = rules.emptyNbToRep;
+            maxSensor = Math.max(maxSensor, rules.sensorDistance);
+        }
+        if (2 * maxSensor >= CHUNK_SIZE) {
+            throw new IllegalArgumentException("sensor distance cannot be >= " + CHUNK_SIZE / 2 + " - got: "
+                    + maxSensor);
+        }
+        this.turnOrder = config.getTurnOrder();
+        for (int kind = 0; kind < kinds; kind++) {
+            final int d = this.sensor[kind];
+            final int[] offsets = new int[Neighbourhood.capacity(d)];
+            int n = 0;
+            for (int dy = -d; dy <= d; dy++) {
+                for (int dx = -d; dx <= d; dx++) {
+                    if (dx != 0 || dy != 0) {
+                        offsets[n++] = (dy << CHUNK_SHIFT) + dx;
+                    }
+                }
+            }
+            this.chunkOffsets[kind] = offsets;
+        }
+        final int capacity = Neighbourhood.capacity(maxSensor);
+        this.nbChunk = new Chunk[capacity];
+        this.nbLocal = new int[capacity];
+        this.nbX = new int[capacity];
+        this.nbY = new int[capacity];
+        this.valid = new int[capacity];
+    }
+
+    /**
+     * letThereBeLight. For each cell in the world, generate a random number and if
+     * that number is a certain value, create life in that cell. The type of life is
+     * determined by the number generated.
+     */
+    @Override
+    public void letThereBeLight() {
+        for (int y = 0; y < this.rows; y++) {
+            for (int x = 0; x < this.cols; x++) {
+                final byte kind = this.config.spawn(this.random.nextNumber(Config.SPAWN_DIE));
+                if (kind != Species.EMPTY) {
+                    final Chunk chunk = this.chunkFor(x, y);
+                    this.birth(chunk, local(x, y), kind, Lineage.PROGENITOR, Lineage.PROGENITOR);
+                    if (this.counters != null) {
+                        this.counters.place(kind, 1);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * getConfig. Gets the configuration this world was built from.
+     * 
+     * @return the Config
+     */
+    @Override
+    public Config getConfig() {
+        return this.config;
+    }
+
+    /**
+     * getRows. Get the number of rows in this world's grid.
+     * 
+     * @return number of rows - an int
+     */
+    @Override
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * getCols. Get the number of columns in this world's grid.
+     * 
+     * @return number of cols - an int
+     */
+    @Override
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * getChunkCount. Gets the number of Chunks allocated.
+     * 
+     * @return the number of Chunks
+     */
+    public int getChunkCount() {
+        return this.chunks.size();
+    }
+
+    /**
+     * getSpecies. Gets the species id at a location in the grid.
+     * 
+     * @param xpos - x position of the cell
+     * @param ypos - y position of the cell
+     * @return the species id at (xpos, ypos)
+     */
+    @Override
+    public byte getSpecies(int xpos, int ypos) {
+        final Chunk chunk = this.chunks.get(key(xpos >> CHUNK_SHIFT, ypos >> CHUNK_SHIFT));
+        return chunk == null ? Species.EMPTY : chunk.species[local(xpos, ypos)];
+    }
+
+    /**
+     * copySpecies. Copies the species id of every cell, row by row, into an
+     * array.
+     * 
+     * @param out - an array of at least getRows() * getCols() entries
+     */
+    @Override
+    public void copySpecies(byte[] out) {
+        if ((long) this.rows * this.cols > out.length) {
+            throw new IllegalArgumentException("out cannot be shorter than the grid - got: " + out.length);
+        }
+        Arrays.fill(out, 0, this.rows * this.cols, Species.EMPTY);
+        for (Chunk chunk : this.chunks.values()) {
+            final int x0 = chunk.cx << CHUNK_SHIFT;
+            final int y0 = chunk.cy << CHUNK_SHIFT;
+            final int width = Math.min(CHUNK_SIZE, this.cols - x0);
+            final int height = Math.min(CHUNK_SIZE, this.rows - y0);
+            for (int ly = 0; ly < height; ly++) {
+                System.arraycopy(chunk.species, ly << CHUNK_SHIFT, out, (y0 + ly) * this.cols + x0, width);
+            }
+        }
+    }
+
+    /**
+     * setSpecies. Replaces the organism at a location in the grid with a new
+     * organism of a species, or empties the location.
+     * 
+     * @param xpos    - x position of the cell
+     * @param ypos    - y position of the cell
+     * @param species - the species id to place, or Species.EMPTY to clear
+     */
+    @Override
+    public void setSpecies(int xpos, int ypos, byte species) {
+        if (xpos < 0 || xpos >= this.cols || ypos < 0 || ypos >= this.rows) {
+            throw new IllegalArgumentException("location cannot be outside the grid - got: " + xpos + ", " + ypos);
+        }
+        final long key = key(xpos >> CHUNK_SHIFT, ypos >> CHUNK_SHIFT);
+        Chunk chunk = this.chunks.get(key);
+        final int l = local(xpos, ypos);
+        if (chunk != null && chunk.species[l] != Species.EMPTY) {
+            this.recordPlacement(chunk.species[l], -1, chunk, l);
+            this.annihilate(chunk, l);
+        }
+        if (species != Species.EMPTY) {
+            chunk = this.chunkFor(xpos, ypos);
+            this.birth(chunk, l, species, Lineage.PROGENITOR, Lineage.PROGENITOR);
+            this.recordPlacement(species, 1, chunk, l);
+        } else if (chunk != null && chunk.population == 0) {
+            this.chunks.remove(key);
+        }
+    }
+
+    /**
+     * setTurnListener. Starts or stops recording the changes made to this world.
+     * 
+     * @param listener - the listener, or null to stop recording
+     */
+    @Override
+    public void setTurnListener(TurnListener listener) {
+        this.listener = listener;
+        this.events = listener == null ? null : new Events();
+    }
+
+    /**
+     * setMetrics. Starts or stops counting what the turns of this world do.
+     * 
+     * @param metrics - the Metrics, or null to stop counting
+     */
+    @Override
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        this.counters = metrics == null ? null : new Counters();
+        if (metrics != null) {
+            metrics.census(this);
+        }
+    }
+
+    /**
+     * recordPlacement. Records an organism added to or removed from a cell
+     * other than by the turns, if recording or counting.
+     * 
+     * @param kind  - the species id of the organism
+     * @param delta - 1 if added, -1 if removed
+     * @param chunk - the Chunk holding the cell
+     * @param l     - index of the cell within chunk
+     */
+    private void recordPlacement(byte kind, int delta, Chunk chunk, int l) {
+        if (this.events != null) {
+            final long index = this.indexOf(chunk, l);
+            this.events.add(delta > 0 ? Events.BIRTH : Events.DEATH, kind, Species.EMPTY, index, index);
+        }
+        if (this.counters != null) {
+            this.counters.place(kind, delta);
+        }
+    }
+
+    /**
+     * record. Records a change made during a turn, if recording, and counts
+     * it, if counting. An EAT is told from a MOVE by the species in the cell
+     * moved to, so it must be recorded before the move.
+     * 
+     * @param type - BIRTH, MOVE or DEATH
+     * @param kind - the species id of the organism
+     * @param from - the Chunk holding the cell the change starts in
+     * @param lf   - index of that cell within from
+     * @param to   - the Chunk holding the cell the change ends in
+     * @param lt   - index of that cell within to
+     */
+    private void record(byte type, byte kind, Chunk from, int lf, Chunk to, int lt) {
+        final byte prey = type == Events.MOVE ? to.species[lt] : Species.EMPTY;
+        final byte recorded = prey == Species.EMPTY ? type : Events.EAT;
+        if (this.events != null) {
+            this.events.add(recorded, kind, prey, this.indexOf(from, lf), this.indexOf(to, lt));
+        }
+        if (this.counters != null) {
+            this.counters.count(recorded, kind, prey);
+        }
+    }
+
+    /**
+     * indexOf. Gets the row-major index of a cell in the grid.
+     * 
+     * @param chunk - the Chunk holding the cell
+     * @param l     - index of the cell within chunk
+     * @return ypos * cols + xpos
+     */
+    private long indexOf(Chunk chunk, int l) {
+        final long y = (chunk.cy << CHUNK_SHIFT) + (l >> CHUNK_SHIFT);
+        return y * this.cols + (chunk.cx << CHUNK_SHIFT) + (l & CHUNK_MASK);
+    }
+
+    /**
+     * getTurn. Gets the number of turns this world has run.
+     * 
+     * @return the turn
+     */
+    @Override
+    public long getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * getRandom. Gets the generator this world draws from.
+     * 
+     * @return the RandomSource of this world
+     */
+    @Override
+    public RandomSource getRandom() {
+        return this.random;
+    }
+
+    /**
+     * forEachOrganism. Visits every organism in the grid, in row-major order,
+     * walking each band of Chunks one row of cells at a time as scan does.
+     * 
+     * @param visitor - called once per organism
+     */
+    @Override
+    public void forEachOrganism(OrganismVisitor visitor) {
+        final Chunk[] sorted = this.chunks.sorted(new Chunk[0]);
+        int bandStart = 0;
+        while (bandStart < sorted.length) {
+            final int cy = sorted[bandStart].cy;
+            int bandEnd = bandStart;
+            while (bandEnd < sorted.length && sorted[bandEnd].cy == cy) {
+                bandEnd++;
+            }
+            final int height = Math.min(CHUNK_SIZE, this.rows - (cy << CHUNK_SHIFT));
+            for (int ly = 0; ly < height; ly++) {
+                final long rowStart = (long) ((cy << CHUNK_SHIFT) + ly) * this.cols;
+                for (int c = bandStart; c < bandEnd; c++) {
+                    final Chunk chunk = sorted[c];
+                    final int x0 = chunk.cx << CHUNK_SHIFT;
+                    final int start = ly << CHUNK_SHIFT;
+                    final int end = start + Math.min(CHUNK_SIZE, this.cols - x0);
+                    for (int l = start; l < end; l++) {
+                        final byte kind = chunk.species[l];
+                        if (kind == Species.EMPTY) {
+                            continue;
+                        }
+                        final long index = rowStart + x0 + l - start;
+                        if (this.plant[kind]) {
+                            visitor.visit(index, kind, 0, 0, 0, 0);
+                        } else {
+                            visitor.visit(index, kind, chunk.age[l], chunk.id[l], chunk.parentA[l],
+                                    chunk.parentB[l]);
+                        }
+                    }
+                }
+            }
+            bandStart = bandEnd;
+        }
+    }
+
+    /**
+     * reset. Frees every Chunk and sets the turn.
+     * 
+     * @param turn - the number of turns the world will have run
+     */
+    @Override
+    public void reset(long turn) {
+        this.chunks.clear();
+        this.nextId = 1;
+        this.turn = turn;
+        if (this.metrics != null) {
+            this.counters.clear();
+            this.metrics.rebase();
+        }
+    }
+
+    /**
+     * place. Puts an organism with a full state into an empty cell after reset.
+     * 
+     * @param index   - ypos * cols + xpos
+     * @param species - the species id
+     * @param age     - the age of an Animal; ignored for a Plant
+     * @param id      - the lineage id of an Animal; ignored for a Plant
+     * @param mother  - the lineage id of the first parent of an Animal
+     * @param father  - the lineage id of the second parent of an Animal
+     */
+    @Override
+    public void place(long index, byte species, int age, int id, int mother, int father) {
+        final int x = (int) (index % this.cols);
+        final int y = (int) (index / this.cols);
+        final Chunk chunk = this.chunkFor(x, y);
+        final int l = local(x, y);
+        chunk.population++;
+        chunk.species[l] = species;
+        if (this.config.isAnimal(species)) {
+            chunk.age[l] = (short) age;
+            chunk.ensureLineage();
+            chunk.id[l] = id;
+            chunk.parentA[l] = mother;
+            chunk.parentB[l] = father;
+            this.nextId = Math.max(this.nextId, id + 1);
+        }
+        if (this.counters != null) {
+            this.counters.place(species, 1);
+        }
+    }
+
+    /**
+     * twentyThreeHoursAndFiftySixMinutes. Runs the turns for the organisms in the
+     * world in the configured turn order, scanning the allocated Chunks once
+     * per species, then frees the Chunks left empty.
+     */
+    @Override
+    public void twentyThreeHoursAndFiftySixMinutes() {
+        this.turn++;
+        this.order = this.chunks.sorted(this.order);
+        for (Chunk chunk : this.order) {
+            if (chunk == null) {
+                break;
+            }
+            Arrays.fill(chunk.flags, (byte) 0);
+        }
+        for (byte phase : this.turnOrder) {
+            final long start = this.counters != null ? System.nanoTime() : 0;
+            this.scan(phase);
+            if (this.counters != null) {
+                this.counters.time(phase, System.nanoTime() - start);
+            }
+        }
+        for (Chunk chunk : this.order) {
+            if (chunk == null) {
+                break;
+            }
+            if (chunk.population == 0) {
+                this.chunks.remove(chunk.key);
+            }
+        }
+        Arrays.fill(this.order, null);
+        if (this.listener != null) {
+            this.listener.turnEnded(this.turn, this.events);
+            this.events.clear();
+        }
+        if (this.metrics != null) {
+            this.metrics.turnEnded(this.turn, this.counters);
+            this.counters.clear();
+        }
+    }
+
+    /**
+     * scan. Runs the turns of the organisms of one species in row-major order.
+     * Each band of Chunks sharing a row of the chunk grid is scanned one row of
+     * cells at a time across all its Chunks. Chunks allocated during the turn
+     * are not scanned; they hold only organisms placed this turn, which may not
+     * act.
+     * 
+     * @param phase - the species id taking its turn
+     */
+    private void scan(byte phase) {
+        int bandStart = 0;
+        while (bandStart < this.order.length && this.order[bandStart] != null) {
+            final int cy = this.order[bandStart].cy;
+            int bandEnd = bandStart;
+            while (bandEnd < this.order.length && this.order[bandEnd] != null && this.order[bandEnd].cy == cy) {
+                bandEnd++;
+            }
+            final int height = Math.min(CHUNK_SIZE, this.rows - (cy << CHUNK_SHIFT));
+            for (int ly = 0; ly < height; ly++) {
+                final int y = (cy << CHUNK_SHIFT) + ly;
+                for (int c = bandStart; c < bandEnd; c++) {
+                    final Chunk chunk = this.order[c];
+                    final int x0 = chunk.cx << CHUNK_SHIFT;
+                    final int start = ly << CHUNK_SHIFT;
+                    final int end = start + Math.min(CHUNK_SIZE, this.cols - x0);
+                    for (int l = start; l < end; l++) {
+                        if (chunk.species[l] == phase && (chunk.flags[l] & ACTED) == 0) {
+                            if (this.plant[phase]) {
+                                this.plantTurn(chunk, l, phase, x0 + l - start, y);
+                            } else {
+                                this.animalTurn(chunk, l, x0 + l - start, y);
+                            }
+                        }
+                    }
+                }
+            }
+            bandStart = bandEnd;
+        }
+    }
+
+    /**
+     * collect. Fills the neighbour buffers with the neighbours of a cell within
+     * a sensory distance, in row-major order, mapped by the Topology.
+     * 
+     * @param kind  - species id whose sensory distance is used
+     * @param chunk - the Chunk holding the cell
+     * @param l     - index of the cell within chunk
+     * @param x     - x position of the cell
+     * @param y     - y position of the cell
+     * @return the number of neighbours
+     */
+    private int collect(byte kind, Chunk chunk, int l, int x, int y) {
+        final int d = this.sensor[kind];
+        final int lx = l & CHUNK_MASK;
+        final int ly = l >> CHUNK_SHIFT;
+        if (lx >= d && lx < CHUNK_SIZE - d && ly >= d && ly < CHUNK_SIZE - d && x < this.cols - d
+                && y < this.rows - d) {
+            final int[] offsets = this.chunkOffsets[kind];
+            for (int n = 0; n < offsets.length; n++) {
+                this.nbChunk[n] = chunk;
+                this.nbLocal[n] = l + offsets[n];
+            }
+            return offsets.length;
+        }
+        int count = 0;
+        long lastKey = chunk.key;
+        Chunk last = chunk;
+        for (int dy = -d; dy <= d; dy++) {
+            final int ny = this.topology.map((long) y + dy, this.rows);
+            if (ny < 0) {
+                continue;
+            }
+            for (int dx = -d; dx <= d; dx++) {
+                final int nx = this.topology.map((long) x + dx, this.cols);
+                if (nx < 0 || (nx == x && ny == y)) {
+                    continue;
+                }
+                final long nk = key(nx >> CHUNK_SHIFT, ny >> CHUNK_SHIFT);
+                if (nk != lastKey) {
+                    lastKey = nk;
+                    last = this.chunks.get(nk);
+                }
+                this.nbChunk[count] = last;
+                this.nbLocal[count] = local(nx, ny);
+                this.nbX[count] = nx;
+                this.nbY[count] = ny;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * speciesOf. Gets the species of a neighbour in the buffers.
+     * 
+     * @param n - position of the neighbour in the buffers
+     * @return the species id of the neighbour
+     */
+    private byte speciesOf(int n) {
+        final Chunk chunk = this.nbChunk[n];
+        return chunk == null ? Species.EMPTY : chunk.species[this.nbLocal[n]];
+    }
+
+    /**
+     * chunkOf. Gets the Chunk holding a neighbour in the buffers, allocating it
+     * if needed.
+     * 
+     * @param n - position of the neighbour in the buffers
+     * @return the Chunk
+     */
+    private Chunk chunkOf(int n) {
+        final Chunk chunk = this.nbChunk[n];
+        return chunk != null ? chunk : this.chunkFor(this.nbX[n], this.nbY[n]);
+    }
+
+    /**
+     * plantTurn. Plant turn actions. If a certain number of neighbours are also
+     * Plants of its species and there are a certain number of empty neighbours,
+     * one of those empty neighbours has a chance to become a Plant of its species.
+     * 
+     * @param chunk - the Chunk holding the Plant
+     * @param l     - index of the Plant within chunk
+     * @param kind  - species id of the Plant
+     * @param x     - x position of the Plant
+     * @param y     - y position of the Plant
+     */
+    private void plantTurn(Chunk chunk, int l, byte kind, int x, int y) {
+        final int count = this.collect(kind, chunk, l, x, y);
+        int plantNeighbourCount = 0;
+        int emptyCount = 0;
+        for (int n = 0; n < count; n++) {
+            final byte other = this.speciesOf(n);
+            if (other == kind) {
+                plantNeighbourCount++;
+            } else if (other == Species.EMPTY) {
+                this.valid[emptyCount++] = n;
+            }
+        }
+        if (plantNeighbourCount >= this.likeNb[kind] && emptyCount >= this.emptyNb[kind]) {
+            int randNum = this.random.nextNumber(99);
+            if (randNum <= this.chance[kind]) {
+                randNum = this.random.nextNumber(emptyCount);
+                final int target = this.valid[randNum];
+                final Chunk at = this.chunkOf(target);
+                this.birth(at, this.nbLocal[target], kind, 0, 0);
+                this.record(Events.BIRTH, kind, at, this.nbLocal[target], at, this.nbLocal[target]);
+            }
+        }
+    }
+
+    /**
+     * animalTurn. Animal turn actions.
+     * <ol>
+     * <li>Increase age.</li>
+     * <li>Reproduce, if possible.</li>
+     * <li>If has not mated, move. If food is found, age will be set to 0.</li>
+     * <li>If it is time to die, then die.</li>
+     * </ol>
+     * 
+     * @param chunk - the Chunk holding the Animal
+     * @param l     - index of the Animal within chunk
+     * @param x     - x position of the Animal
+     * @param y     - y position of the Animal
+     */
+    private void animalTurn(Chunk chunk, int l, int x, int y) {
+        final byte kind = chunk.species[l];
+        chunk.age[l]++;
+        this.reproduce(chunk, l, x, y, kind);
+        Chunk at = chunk;
+        int position = l;
+        if ((chunk.flags[l] & MATED) == 0) {
+            final int target = this.move(chunk, l, x, y, kind);
+            if (target >= 0) {
+                at = this.nbChunk[target];
+                position = this.nbLocal[target];
+            }
+        }
+        if (at.age[position] > this.lifespan[kind]) {
+            this.record(Events.DEATH, kind, at, position, at, position);
+            this.annihilate(at, position);
+        } else {
+            at.flags[position] |= ACTED;
+        }
+    }
+
+    /**
+     * reproduce. If a certain number of neighbours are potential mates, a certain
+     * number are food, and a certain number are empty, one of the empty neighbours
+     * is filled with a baby.
+     * 
+     * @param chunk - the Chunk holding the Animal
+     * @param l     - index of the Animal within chunk
+     * @param x     - x position of the Animal
+     * @param y     - y position of the Animal
+     * @param kind  - species id of the Animal
+     */
+    private void reproduce(Chunk chunk, int l, int x, int y, byte kind) {
+        if ((chunk.flags[l] & MATED) != 0) {
+            return;
+        }
+        final int count = this.collect(kind, chunk, l, x, y);
+        int neighbourCount = 0;
+        int foodCount = 0;
+        int emptyCount = 0;
+        int partner = -1;
+        for (int n = 0; n < count; n++) {
+            final byte other = this.speciesOf(n);
+            if (other == kind && !isIncest(chunk, l, this.nbChunk[n], this.nbLocal[n])) {
+                neighbourCount++;
+                if (partner < 0) {
+                    partner = n;
+                }
+            }
+            if (this.eats(kind, other)) {
+                foodCount++;
+            }
+            if (other == Species.EMPTY) {
+                this.valid[emptyCount++] = n;
+            }
+        }
+        if (neighbourCount < this.likeNb[kind]) {
+            this.countFailure(kind, Counters.LIKE_NB);
+        } else if (foodCount < this.foodNb[kind]) {
+            this.countFailure(kind, Counters.FOOD_NB);
+        } else if (emptyCount < this.emptyNb[kind]) {
+            this.countFailure(kind, Counters.EMPTY_NB);
+        } else {
+            final int target = this.valid[this.random.nextNumber(emptyCount)];
+            final Chunk mate = this.nbChunk[partner];
+            final int mateLocal = this.nbLocal[partner];
+            final Chunk at = this.chunkOf(target);
+            this.birth(at, this.nbLocal[target], kind, chunk.id[l], mate.id[mateLocal]);
+            this.record(Events.BIRTH, kind, at, this.nbLocal[target], at, this.nbLocal[target]);
+            mate.flags[mateLocal] |= MATED;
+            chunk.flags[l] |= MATED;
+        }
+    }
+
+    /**
+     * countFailure. Counts a reproduction which failed, if counting.
+     * 
+     * @param kind   - the species id of the Animal
+     * @param reason - Counters.LIKE_NB, FOOD_NB or EMPTY_NB
+     */
+    private void countFailure(byte kind, int reason) {
+        if (this.counters != null) {
+            this.counters.failed(kind, reason);
+        }
+    }
+
+    /**
+     * isIncest. Determines whether two Animals are parent and child.
+     * 
+     * @param a  - the Chunk holding one Animal
+     * @param la - index of that Animal within a
+     * @param b  - the Chunk holding the other Animal
+     * @param lb - index of that Animal within b
+     * @return true if mating would be incestuous; false otherwise
+     */
+    private static boolean isIncest(Chunk a, int la, Chunk b, int lb) {
+        return a.parentA[la] == b.id[lb] || a.parentB[la] == b.id[lb] || b.parentA[lb] == a.id[la]
+                || b.parentB[lb] == a.id[la];
+    }
+
+    /**
+     * move. Moves an Animal to a random neighbouring cell which is empty or holds
+     * food. If the cell holds food, the Animal eats it.
+     * 
+     * @param chunk - the Chunk holding the Animal
+     * @param l     - index of the Animal within chunk
+     * @param x     - x position of the Animal
+     * @param y     - y position of the Animal
+     * @param kind  - species id of the Animal
+     * @return the position in the neighbour buffers the Animal moved to, or -1
+     *         if it did not move
+     */
+    private int move(Chunk chunk, int l, int x, int y, byte kind) {
+        final int count = this.collect(kind, chunk, l, x, y);
+        int validCount = 0;
+        for (int n = 0; n < count; n++) {
+            final byte other = this.speciesOf(n);
+            if (this.eats(kind, other) || other == Species.EMPTY) {
+                this.valid[validCount++] = n;
+            }
+        }
+        if (validCount == 0) {
+            return -1;
+        }
+        final int target = this.valid[this.random.nextNumber(validCount)];
+        final Chunk to = this.chunkOf(target);
+        final int t = this.nbLocal[target];
+        this.nbChunk[target] = to;
+        this.record(Events.MOVE, kind, chunk, l, to, t);
+        if (this.eats(kind, to.species[t])) {
+            chunk.age[l] = 0;
+        }
+        if (to.species[t] == Species.EMPTY) {
+            to.population++;
+        }
+        to.ensureLineage();
+        to.species[t] = kind;
+        to.age[t] = chunk.age[l];
+        to.flags[t] = chunk.flags[l];
+        to.id[t] = chunk.id[l];
+        to.parentA[t] = chunk.parentA[l];
+        to.parentB[t] = chunk.parentB[l];
+        this.annihilate(chunk, l);
+        return target;
+    }
+
+    /**
+     * eats. Determines whether one species eats another.
+     * 
+     * @param kind  - species id of the eater
+     * @param other - species id of the other, possibly Species.EMPTY
+     * @return true if kind eats other
+     */
+    private boolean eats(byte kind, byte other) {
+        return (this.prey[kind] >>> other & 1) != 0;
+    }
+
+    /**
+     * birth. Puts a new organism in an empty cell. The organism may not act until
+     * the next turn.
+     * 
+     * @param chunk     - the Chunk holding the cell
+     * @param l         - index of the cell within chunk
+     * @param kind      - species id of the organism
+     * @param motherId  - lineage id of the first parent
+     * @param fatherId  - lineage id of the second parent
+     */
+    private void birth(Chunk chunk, int l, byte kind, int motherId, int fatherId) {
+        chunk.population++;
+        chunk.species[l] = kind;
+        chunk.age[l] = 0;
+        chunk.flags[l] = ACTED;
+        if (!this.plant[kind]) {
+            chunk.ensureLineage();
+            chunk.id[l] = this.nextId++;
+            chunk.parentA[l] = motherId;
+            chunk.parentB[l] = fatherId;
+        }
+    }
+
+    /**
+     * annihilate. Removes the organism in a cell. The Chunk is kept until the
+     * end of the turn even if it empties.
+     * 
+     * @param chunk - the Chunk holding the cell
+     * @param l     - index of the cell within chunk
+     */
+    private void annihilate(Chunk chunk, int l) {
+        if (chunk.species[l] == Species.EMPTY) {
+            return;
+        }
+        chunk.population--;
+        chunk.species[l] = Species.EMPTY;
+        chunk.age[l] = 0;
+        chunk.flags[l] = 0;
+        if (chunk.id != null) {
+            chunk.id[l] = 0;
+            chunk.parentA[l] = 0;
+            chunk.parentB[l] = 0;
+        }
+    }
+
+    /**
+     * chunkFor. Gets the Chunk holding a cell, allocating it if needed.
+     * 
+     * @param x - x position of the cell
+     * @param y - y position of the cell
+     * @return the Chunk
+     */
+    private Chunk chunkFor(int x, int y) {
+        final int cx = x >> CHUNK_SHIFT;
+        final int cy = y >> CHUNK_SHIFT;
+        final long key = key(cx, cy);
+        Chunk chunk = this.chunks.get(key);
+        if (chunk == null) {
+            chunk = new Chunk(cx, cy, key);
+            this.chunks.put(chunk);
+        }
+        return chunk;
+    }
+
+    /**
+     * key. Packs the position of a Chunk into its key. Keys sort in row-major
+     * order of the Chunks.
+     * 
+     * @param cx - column of the Chunk
+     * @param cy - row of the Chunk
+     * @return the key
+     */
+    private static long key(int cx, int cy) {
+        return (long) cy << 32 | cx;
+    }
+
+    /**
+     * local. Gets the index of a cell within its Chunk.
+     * 
+     * @param x - x position of the cell
+     * @param y - y position of the cell
+     * @return the index within the Chunk
+     */
+    private static int local(int x, int y) {
+        return (y & CHUNK_MASK) << CHUNK_SHIFT | (x & CHUNK_MASK);
+    }
+
+    /**
+     * Chunk.
+     * 
+     * A CHUNK_SIZE square of the grid, holding the state of its cells as in a
+     * GridWorld, indexed by ly * CHUNK_SIZE + lx. The lineage arrays are only
+     * allocated once an Animal enters.
+     */
+    private static final class Chunk {
+
+        /** The column and row of this Chunk in the chunk grid, and its key. */
+        private final int cx;
+        private final int cy;
+        private final long key;
+
+        /** The species id, age and flags of each cell. */
+        private final byte[] species = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        private final short[] age = new short[CHUNK_SIZE * CHUNK_SIZE];
+        private final byte[] flags = new byte[CHUNK_SIZE * CHUNK_SIZE];
+
+        /** The lineage id of the Animal in each cell and the ids of its parents. */
+        private int[] id;
+        private int[] parentA;
+        private int[] parentB;
+
+        /** The number of occupied cells. */
+        private int population;
+
+        /**
+         * Constructor. Creates an empty Chunk.
+         * 
+         * @param cx  - column of the Chunk
+         * @param cy  - row of the Chunk
+         * @param key - the packed position of the Chunk
+         */
+        private Chunk(int cx, int cy, long key) {
+            this.cx = cx;
+            this.cy = cy;
+            this.key = key;
+        }
+
+        /**
+         * ensureLineage. Allocates the lineage arrays if they are missing.
+         */
+        private void ensureLineage() {
+            if (this.id == null) {
+                this.id = new int[CHUNK_SIZE * CHUNK_SIZE];
+                this.parentA = new int[CHUNK_SIZE * CHUNK_SIZE];
+                this.parentB = new int[CHUNK_SIZE * CHUNK_SIZE];
+            }
+        }
+    }
+
+    /**
+     * ChunkTable.
+     * 
+     * An open-addressing hash table from long keys to Chunks, with linear
+     * probing and no boxing of keys.
+     */
+    private static final class ChunkTable {
+
+        /** The smallest number of slots. */
+        private static final int MIN_CAPACITY = 16;
+
+        /** The Chunk in each slot, or null. */
+        private Chunk[] slots = new Chunk[MIN_CAPACITY];
+
+        /** The number of Chunks held. */
+        private int size;
+
+        /**
+         * size. Gets the number of Chunks held.
+         * 
+         * @return the number of Chunks
+         */
+        private int size() {
+            return this.size;
+        }
+
+        /**
+         * clear. Removes every Chunk.
+         */
+        private void clear() {
+            this.slots = new Chunk[MIN_CAPACITY];
+            this.size = 0;
+        }
+
+        /**
+         * get. Finds a Chunk by key.
+         * 
+         * @param key - the key
+         * @return the Chunk, or null if there is none
+         */
+        private Chunk get(long key) {
+            final int mask = this.slots.length - 1;
+            for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+                final Chunk chunk = this.slots[slot];
+                if (chunk == null || chunk.key == key) {
+                    return chunk;
+                }
+            }
+        }
+
+        /**
+         * put. Adds a Chunk whose key is not held.
+         * 
+         * @param chunk - the Chunk
+         */
+        private void put(Chunk chunk) {
+            if (2 * (this.size + 1) > this.slots.length) {
+                this.resize(this.slots.length * 2);
+            }
+            this.insert(chunk);
+            this.size++;
+        }
+
+        /**
+         * remove. Removes a Chunk by key, shifting back the Chunks which probed
+         * past it.
+         * 
+         * @param key - the key
+         */
+        private void remove(long key) {
+            final int mask = this.slots.length - 1;
+            int slot = hash(key) & mask;
+            while (this.slots[slot] != null && this.slots[slot].key != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (this.slots[slot] == null) {
+                return;
+            }
+            this.slots[slot] = null;
+            this.size--;
+            for (int next = (slot + 1) & mask; this.slots[next] != null; next = (next + 1) & mask) {
+                final int home = hash(this.slots[next].key) & mask;
+                if (((next - home) & mask) >= ((next - slot) & mask)) {
+                    this.slots[slot] = this.slots[next];
+                    this.slots[next] = null;
+                    slot = next;
+                }
+            }
+            if (this.slots.length > MIN_CAPACITY && 8 * this.size < this.slots.length) {
+                this.resize(this.slots.length / 2);
+            }
+        }
+
+        /**
+         * values. Gets the Chunks held, in no order.
+         * 
+         * @return a new array of the Chunks
+         */
+        private Chunk[] values() {
+            final Chunk[] values = new Chunk[this.size];
+            int n = 0;
+            for (Chunk chunk : this.slots) {
+                if (chunk != null) {
+                    values[n++] = chunk;
+                }
+            }
+            return values;
+        }
+
+        /**
+         * sorted. Lists the Chunks held in key order, followed by nulls.
+         * 
+         * @param buffer - an array to reuse if it is large enough
+         * @return the array holding the Chunks
+         */
+        private Chunk[] sorted(Chunk[] buffer) {
+            final Chunk[] out = buffer.length >= this.size ? buffer : new Chunk[this.size];
+            int n = 0;
+            for (Chunk chunk : this.slots) {
+                if (chunk != null) {
+                    out[n++] = chunk;
+                }
+            }
+            Arrays.sort(out, 0, n, (a, b) -> Long.compare(a.key, b.key));
+            return out;
+        }
+
+        /**
+         * resize. Rehashes every Chunk into a new number of slots.
+         * 
+         * @param capacity - the new number of slots, a power of two
+         */
+        private void resize(int capacity) {
+            final Chunk[] old = this.slots;
+            this.slots = new Chunk[capacity];
+            for (Chunk chunk : old) {
+                if (chunk != null) {
+                    this.insert(chunk);
+                }
+            }
+        }
+
+        /**
+         * insert. Puts a Chunk in the first free slot of its probe sequence.
+         * 
+         * @param chunk - the Chunk
+         */
+        private void insert(Chunk chunk) {
+            final int mask = this.slots.length - 1;
+            int slot = hash(chunk.key) & mask;
+            while (this.slots[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            this.slots[slot] = chunk;
+        }
+
+        /**
+         * hash. Spreads the bits of a key.
+         * 
+         * @param key - the key
+         * @return the hash
+         */
+        private static int hash(long key) {
+            return (int) SplitMix64.mix(key);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Species.
+ * 
+ * <p>
+ * Small integer ids for the kinds of Organism, carried by every Organism and
+ * used wherever the world state is stored as primitive data. Id 0 is reserved
+ * for an empty cell; the others are handed out by a Config, in the order its
+ * species key declares them, and what each species is and eats is looked up
+ * in its SpeciesRules. The ids of the built-in species, declared by default,
+ * are kept here as constants.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class Species {
+
+    /** Id of an empty cell. */
+    public static final byte EMPTY = 0;
+
+    /** Id of the built-in plant. */
+    public static final byte PLANT = 1;
+
+    /** Id of the built-in herbivore. */
+    public static final byte HERBIVORE = 2;
+
+    /** Id of the built-in carnivore. */
+    public static final byte CARNIVORE = 3;
+
+    /** Id of the built-in omnivore. */
+    public static final byte OMNIVORE = 4;
+
+    /**
+     * The most ids a Config can hand out, including EMPTY. A DeltaLog stores
+     * a species id in four bits.
+     */
+    public static final int MAX = 16;
+
+    private Species() {
+    }
+
+    /**
+     * of. Gets the species id of an Organism.
+     * 
+     * @param org - the Organism, or null for an empty cell
+     * @return the species id of org
+     */
+    public static byte of(Organism org) {
+        return org == null ? EMPTY : org.getSpecies();
+    }
+}
@@ -0,0 +1,102 @@
+import java.awt.Color;
+
+/**
+ * SpeciesRules.
+ * 
+ * <p>
+ * The resolved rule parameters of one species, shared by every Organism of
+ * that species in a World. Built once from a Config; the turn rules read these
+ * fields instead of keeping a copy in each Organism. What a species is - its
+ * name, colour, kind and diet - is data here too, so every species runs the
+ * same Plant or Animal code.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class SpeciesRules {
+
+    /** The species id these rules apply to. */
+    public final byte species;
+
+    /** The name of the species, capitalised for display. */
+    public final String name;
+
+    /** The colour the species is drawn in. */
+    public final Color colour;
+
+    /** Whether the species is a Plant; otherwise it is an Animal. */
+    public final boolean plant;
+
+    /** The species this species eats: bit s is set if it eats species id s. */
+    public final int prey;
+
+    /** The number of turns an Animal can go without eating. Unused by Plants. */
+    public final int lifespan;
+
+    /** The sensory distance in Cells. */
+    public final int sensorDistance;
+
+    /**
+     * The number of like-species neighbours needed to reproduce; at least 1
+     * for an Animal, since it mates with one of them.
+     */
+    public final int likeNbToRep;
+
+    /** The number of edible neighbours needed to reproduce. */
+    public final int foodNbToRep;
+
+    /**
+     * The number of empty neighbours needed to reproduce; at least 1, since a
+     * baby needs an empty cell to be born in.
+     */
+    public final int emptyNbToRep;
+
+    /**
+     * The chance, against a roll from 0 to 98, that a Plant which may seed does
+     * seed. Unused by Animals.
+     */
+    public final int percentChanceToPropagate;
+
+    /**
+     * Constructor. Creates a SpeciesRules.
+     * 
+     * @param species                  - the species id
+     * @param name                     - the display name
+     * @param colour                   - the display colour
+     * @param plant                    - true for a Plant, false for an Animal
+     * @param prey                     - the bit mask of species ids eaten
+     * @param lifespan                 - turns without eating before death
+     * @param sensorDistance           - sensory distance in Cells
+     * @param likeNbToRep              - like-species neighbours to reproduce; 0
+     *                                 is taken as 1 for an Animal
+     * @param foodNbToRep              - edible neighbours to reproduce
+     * @param emptyNbToRep             - empty neighbours to reproduce; 0 is
+     *                                 taken as 1
+     * @param percentChanceToPropagate - chance a Plant seeds
+     */
+    public SpeciesRules(byte species, String name, Color colour, boolean plant, int prey, int lifespan,
+            int sensorDistance, int likeNbToRep, int foodNbToRep, int emptyNbToRep, int percentChanceToPropagate) {
+        this.species = species;
+        this.name = name;
+        this.colour = colour;
+        this.plant = plant;
+        this.prey = prey;
+        this.lifespan = lifespan;
+        this.sensorDistance = sensorDistance;
+        this.likeNbToRep = plant ? likeNbToRep : Math.max(1, likeNbToRep);
+        this.foodNbToRep = foodNbToRep;
+        this.emptyNbToRep = Math.max(1, emptyNbToRep);
+        this.percentChanceToPropagate = percentChanceToPropagate;
+    }
+
+    /**
+     * eats. Determines whether this species eats another.
+     * 
+     * @param other - the species id of the other, possibly Species.EMPTY
+     * @return true if this species eats other
+     */
+    public boolean eats(byte other) {
+        return (this.prey >>> other & 1) != 0;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Topology.
+ * 
+ * <p>
+ * How the edges of a grid behave when a neighbourhood reaches past them:
+ * <ul>
+ * <li>CLIPPED - cells past an edge do not exist, so cells near an edge have
+ * fewer neighbours,</li>
+ * <li>TOROIDAL - the grid wraps around, so a cell past the right edge is the
+ * cell at the same distance from the left edge, and likewise for rows,
+ * and</li>
+ * <li>REFLECTIVE - the grid is mirrored at its edges, so the cell one past an
+ * edge is the cell one inside it.</li>
+ * </ul>
+ * Every topology gives a cell at least the neighbours it has when clipped, and
+ * never gives a cell itself as a neighbour. A toroidal or reflective
+ * neighbourhood may list a cell twice when the grid is narrower than the
+ * neighbourhood.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public enum Topology {
+
+    /** Cells past an edge do not exist. */
+    CLIPPED,
+
+    /** The grid wraps around at its edges. */
+    TOROIDAL,
+
+    /** The grid is mirrored at its edges. */
+    REFLECTIVE;
+
+    /**
+     * map. Maps a coordinate, possibly past an edge, onto the grid.
+     * 
+     * @param coord - the column or row
+     * @param size  - the number of columns or rows in the grid
+     * @return the column or row on the grid, or -1 if coord is past an edge of
+     *         a clipped grid
+     */
+    public int map(long coord, int size) {
+        if (coord >= 0 && coord < size) {
+            return (int) coord;
+        }
+        switch (this) {
+        case TOROIDAL:
+            return (int) Math.floorMod(coord, (long) size);
+        case REFLECTIVE:
+            if (size == 1) {
+                return 0;
+            }
+            final long period = 2L * (size - 1);
+            final long folded = Math.floorMod(coord, period);
+            return (int) (folded < size ? folded : period - folded);
+        default:
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * TurnListener.
+ * 
+ * Interface to be implemented by anything which follows the changes an
+ * Ecosystem makes to its grid. A listener is called on the thread running the
+ * turns, once at the end of each turn.
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public interface TurnListener {
+
+    /**
+     * turnEnded. Receives the changes made during a turn, and by setSpecies
+     * since the turn before. The Events are reused once this returns.
+     * 
+     * @param turn   - the number of turns the Ecosystem has now run
+     * @param events - the changes, in the order they were made
+     */
+    void turnEnded(long turn, Events events);
+}
@@ -0,0 +1,231 @@
+import java.util.Arrays;
+
+/**
+ * WindowCounts.
+ * 
+ * <p>
+ * Running counts of some species around every cell of a grid, kept up to date
+ * as cells change, so that the number of cells of a species within a sensory
+ * distance of a cell is found without looking at each neighbour. For each
+ * tracked species and each cell, a strip count holds the number of cells of
+ * that species in the cell's column no more than distance rows above or below
+ * it. A change of species adjusts the 2 * distance + 1 strips holding the
+ * cell, and the count of the square window around a cell is the sum of the
+ * 2 * distance + 1 strips of its row nearest it, which lie side by side in
+ * memory. Both cost O(distance) rather than the O(distance^2) of looking at
+ * every neighbour.
+ * </p>
+ * 
+ * <p>
+ * The counts are exact at every moment, in the middle of a phase as much as
+ * between turns, so a rule which reads them decides exactly as one which looks
+ * at each neighbour, and draws the same random numbers. Only windows lying
+ * wholly inside the grid are counted, since every Topology gives such a cell
+ * the same neighbours; covers tells which cells those are. A cell nearer an
+ * edge than the distance, or a rule which has to pick a particular neighbour,
+ * still looks at the neighbours one by one.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public final class WindowCounts {
+
+    /**
+     * The smallest sensory distance counted. Within distance 1, looking at the
+     * eight neighbours is as quick as reading the counts.
+     */
+    public static final int MIN_DISTANCE = 2;
+
+    /** The number of rows and columns in the grid. */
+    private final int rows;
+    private final int cols;
+
+    /** The sensory distance counted. */
+    private final int distance;
+
+    /** The strip counts of each species, indexed by species id; null if not tracked. */
+    private final short[][] strips = new short[Species.MAX][];
+
+    /**
+     * Constructor. Creates the counts of an empty grid.
+     * 
+     * @param rows     - the number of rows in the grid
+     * @param cols     - the number of columns in the grid
+     * @param distance - the sensory distance counted
+     * @param tracked  - the species counted, as a bit mask of species ids
+     */
+    public WindowCounts(int rows, int cols, int distance, int tracked) {
+        if (distance < 1 || distance > Short.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("distance must be 1 to " + Short.MAX_VALUE / 2 + " - got: " + distance);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.distance = distance;
+        for (int species = 0; species < Species.MAX; species++) {
+            if ((tracked >>> species & 1) != 0) {
+                this.strips[species] = new short[rows * cols];
+            }
+        }
+        this.clear();
+    }
+
+    /**
+     * forConfig. Creates the counts the Plants of a configuration read: one
+     * WindowCounts for each sensory distance of at least MIN_DISTANCE, shared by
+     * every species of Plant sensing that far, counting those species and
+     * empty cells. An Animal has to enumerate its neighbours to move every
+     * turn anyway, so counting for it would only add the upkeep of its moves.
+     * 
+     * @param config - the configuration of the world
+     * @return the WindowCounts of each species, indexed by species id; null for
+     *         a species which looks at each neighbour
+     */
+    public static WindowCounts[] forConfig(Config config) {
+        final int kinds = config.getSpeciesCount();
+        final int[] tracked = new int[kinds];
+        for (byte kind = 1; kind < kinds; kind++) {
+            final SpeciesRules rules = config.getRules(kind);
+            if (!rules.plant || rules.sensorDistance < MIN_DISTANCE) {
+                continue;
+            }
+            for (byte other = 1; other < kinds; other++) {
+                if (config.getRules(other).sensorDistance == rules.sensorDistance) {
+                    tracked[other] |= 1 << kind | 1 << Species.EMPTY;
+                }
+            }
+        }
+        final WindowCounts[] windows = new WindowCounts[kinds];
+        for (byte kind = 1; kind < kinds; kind++) {
+            final int distance = config.getRules(kind).sensorDistance;
+            if (!config.getRules(kind).plant || distance < MIN_DISTANCE) {
+                continue;
+            }
+            for (byte other = 1; other < kind && windows[kind] == null; other++) {
+                if (windows[other] != null && windows[other].distance == distance) {
+                    windows[kind] = windows[other];
+                }
+            }
+            if (windows[kind] == null) {
+                windows[kind] = new WindowCounts(config.getGridY(), config.getGridX(), distance, tracked[kind]);
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * distinct. Lists each of the WindowCounts of the species once, as the
+     * ones to update when a cell changes.
+     * 
+     * @param windows - the WindowCounts of each species, as from forConfig
+     * @return the distinct WindowCounts, without nulls
+     */
+    public static WindowCounts[] distinct(WindowCounts[] windows) {
+        final WindowCounts[] found = new WindowCounts[windows.length];
+        int count = 0;
+        for (int kind = 0; kind < windows.length; kind++) {
+            int seen = 0;
+            while (seen < count && found[seen] != windows[kind]) {
+                seen++;
+            }
+            if (windows[kind] != null && seen == count) {
+                found[count++] = windows[kind];
+            }
+        }
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * getDistance. Gets the sensory distance counted.
+     * 
+     * @return the distance
+     */
+    public int getDistance() {
+        return this.distance;
+    }
+
+    /**
+     * covers. Determines whether the window around a cell lies wholly inside
+     * the grid, so that its counts may be read.
+     * 
+     * @param index - ypos * cols + xpos
+     * @return true if count may be called for the cell
+     */
+    public boolean covers(int index) {
+        final int y = index / this.cols;
+        final int x = index - y * this.cols;
+        final int d = this.distance;
+        return y >= d && x >= d && y < this.rows - d && x < this.cols - d;
+    }
+
+    /**
+     * update. Counts a cell changing species.
+     * 
+     * @param index - ypos * cols + xpos
+     * @param from  - the species id the cell held
+     * @param to    - the species id the cell now holds
+     */
+    public void update(int index, byte from, byte to) {
+        if (from == to) {
+            return;
+        }
+        this.adjust(this.strips[from], index, -1);
+        this.adjust(this.strips[to], index, 1);
+    }
+
+    /**
+     * adjust. Adds to every strip holding a cell.
+     * 
+     * @param strip - the strip counts of a species, or null if not tracked
+     * @param index - ypos * cols + xpos
+     * @param delta - the amount to add
+     */
+    private void adjust(short[] strip, int index, int delta) {
+        if (strip == null) {
+            return;
+        }
+        final int y = index / this.cols;
+        final int x = index - y * this.cols;
+        final int end = Math.min(this.rows - 1, y + this.distance) * this.cols + x;
+        for (int i = Math.max(0, y - this.distance) * this.cols + x; i <= end; i += this.cols) {
+            strip[i] += delta;
+        }
+    }
+
+    /**
+     * count. Counts the cells of a species within the sensory distance of a
+     * cell, the cell itself included.
+     * 
+     * @param index   - ypos * cols + xpos, a cell covered by these counts
+     * @param species - a tracked species id
+     * @return the number of cells of the species in the window
+     */
+    public int count(int index, byte species) {
+        final short[] strip = this.strips[species];
+        final int end = index + this.distance;
+        int sum = 0;
+        for (int i = index - this.distance; i <= end; i++) {
+            sum += strip[i];
+        }
+        return sum;
+    }
+
+    /**
+     * clear. Counts every cell as empty, as after a reset.
+     */
+    public void clear() {
+        for (short[] strip : this.strips) {
+            if (strip != null) {
+                Arrays.fill(strip, (short) 0);
+            }
+        }
+        final short[] empty = this.strips[Species.EMPTY];
+        if (empty == null) {
+            return;
+        }
+        for (int y = 0; y < this.rows; y++) {
+            final int height = Math.min(this.rows - 1, y + this.distance) - Math.max(0, y - this.distance) + 1;
+            Arrays.fill(empty, y * this.cols, (y + 1) * this.cols, (short) height);
+        }
+    }
+}
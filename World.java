@@ -1,3 +1,4 @@
+import java.util.Arrays;
 
 /**
  * World.
@@ -8,22 +9,120 @@
  * @author Maxwell Babey
  * @version 2022, 1.0
  */
-public class World { // Added to turn order, wakeUpWorld
-
-    /** The order in which turns are executed during the game. */
-    public static final Organism[] TURN_ORDER = { new Plant(), new Herbivore(), new Carnivore(), new Omnivore() };
+public class World implements Ecosystem { // Added to turn order, wakeUpWorld
 
     /** 2D array storing the Cells which make up this world. */
     private Cell[][] landMass;
 
+    /** The configuration this world was built from. */
+    private final Config config;
+
+    /** The rules of each species, indexed by species id. */
+    private final SpeciesRules[] rules;
+
+    /** The order in which turns are executed during the game, by species id. */
+    private final byte[] turnOrder;
+
+    /** The generator the Organisms of this world draw from. */
+    private final RandomSource random;
+
+    /** The family table of the Animals of this world. */
+    private final Lineage lineage;
+
+    /** Index of the occupied Cells of each species. */
+    private final Roster roster;
+
+    /** The recycled Organisms of each species, or null if not pooling. */
+    private final Organism[][] pool;
+
+    /** The number of recycled Organisms of each species. */
+    private final int[] pooled;
+
+    /** The neighbour counts of each species, indexed by species id; null if not counted. */
+    private final WindowCounts[] windows;
+
+    /** Each of the WindowCounts once, updated whenever a Cell changes species. */
+    private final WindowCounts[] counted;
+
+    /** Neighbourhood tables indexed by sensory distance, created on first use. */
+    private Neighbourhood[] neighbourhoods = new Neighbourhood[0];
+
+    /** The number of turns this world has run. */
+    private long turn;
+
+    /** Follows the changes made to this world, or null. */
+    private TurnListener listener;
+
+    /** The changes made since the last turn ended, or null if not recording. */
+    private Events events;
+
+    /** Receives the counts of each turn, or null. */
+    private Metrics metrics;
+
+    /** The counts of the turn under way, or null if not counting. */
+    private Counters counters;
+
+    /** Scratch buffers lent to Organisms for neighbour indices during a turn. */
+    private int[] neighbourBuffer = new int[0];
+    private int[] validBuffer = new int[0];
+
     /**
-     * Constructor. Creates a World object with a landMass of a certain size.
+     * Constructor. Creates a World object with a landMass of a certain size, drawing
+     * from a SplitMix64 with the default seed.
      * 
      * @param xLength - the x-dimension of the landMass
      * @param yLength - the y-dimension of the landMass
      */
     public World(int xLength, int yLength) {
+        this(xLength, yLength, new SplitMix64(SplitMix64.DEFAULT_SEED));
+    }
+
+    /**
+     * Constructor. Creates a World object with a landMass of a certain size and
+     * the default species rules.
+     * 
+     * @param xLength - the x-dimension of the landMass
+     * @param yLength - the y-dimension of the landMass
+     * @param random  - the generator this world draws from
+     */
+    public World(int xLength, int yLength, RandomSource random) {
+        this(Config.DEFAULT.with("grid.x", Integer.toString(xLength)).with("grid.y", Integer.toString(yLength)),
+                random);
+    }
+
+    /**
+     * Constructor. Creates a World object as configured, drawing from the
+     * configured generator.
+     * 
+     * @param config - the configuration of the world
+     */
+    public World(Config config) {
+        this(config, config.newRandom());
+    }
+
+    /**
+     * Constructor. Creates a World object as configured.
+     * 
+     * @param config - the configuration of the world
+     * @param random - the generator this world draws from
+     */
+    public World(Config config, RandomSource random) {
+        final int xLength = config.getGridX();
+        final int yLength = config.getGridY();
+        this.config = config;
+        this.rules = new SpeciesRules[config.getSpeciesCount()];
+        for (byte species = 1; species < this.rules.length; species++) {
+            this.rules[species] = config.getRules(species);
+        }
+        this.turnOrder = config.getTurnOrder();
+        this.random = random;
         this.landMass = new Cell[yLength][xLength];
+        this.roster = new Roster(xLength * yLength, this.rules.length);
+        this.pool = config.isPooled() ? new Organism[this.rules.length][0] : null;
+        this.pooled = new int[this.rules.length];
+        this.lineage = new Lineage(xLength * yLength);
+        this.windows = WindowCounts.forConfig(config);
+        this.counted = WindowCounts.distinct(this.windows);
     }
 
     /**
@@ -31,19 +130,19 @@ public class World { // Added to turn order, wakeUpWorld
      * that number is a certain value, create life in that cell. The type of life is
      * determined by the number generated.
      */
+    @Override
     public void letThereBeLight() {
         for (int row = 0; row < this.landMass.length; row++) {
             for (int col = 0; col < this.landMass[row].length; col++) {
                 this.landMass[row][col] = new Cell(this, row, col);
-                int randNum = RandomGenerator.nextNumber(99);
-                if (randNum >= 80) {
-                    this.landMass[row][col].setOrganism(new Herbivore(this.landMass[row][col]));
-                } else if (randNum >= 60) {
-                    this.landMass[row][col].setOrganism(new Plant(this.landMass[row][col]));
-                } else if (randNum >= 50) {
-                    this.landMass[row][col].setOrganism(new Carnivore(this.landMass[row][col]));
-                } else if (randNum >= 45) {
-                    this.landMass[row][col].setOrganism(new Omnivore(this.landMass[row][col]));
+                int randNum = this.random.nextNumber(Config.SPAWN_DIE);
+                byte species = this.config.spawn(randNum);
+                if (species != Species.EMPTY) {
+                    this.landMass[row][col].setOrganism(
+                            this.create(this.landMass[row][col], species, Lineage.PROGENITOR, Lineage.PROGENITOR));
+                    if (this.counters != null) {
+                        this.counters.place(species, 1);
+                    }
                 }
             }
         }
@@ -60,11 +159,204 @@ public class World { // Added to turn order, wakeUpWorld
         return this.landMass[ypos][xpos];
     }
 
+    /**
+     * setSpecies. Replaces the Organism at a location in the world array with a
+     * new Organism of a species, or empties the location.
+     * 
+     * @param xpos    - x position of the cell
+     * @param ypos    - y position of the cell
+     * @param species - the species id to place, or Species.EMPTY to clear
+     */
+    @Override
+    public void setSpecies(int xpos, int ypos, byte species) {
+        final Cell cell = this.landMass[ypos][xpos];
+        if (cell.getOrganism() != null) {
+            this.recordPlacement(Species.of(cell.getOrganism()), -1, cell.getIndex());
+            cell.getOrganism().perish();
+        }
+        if (species == Species.EMPTY) {
+            cell.annihilate();
+        } else {
+            cell.setOrganism(this.create(cell, species, Lineage.PROGENITOR, Lineage.PROGENITOR));
+            this.recordPlacement(species, 1, cell.getIndex());
+        }
+    }
+
+    /**
+     * recordPlacement. Records an Organism added to or removed from a Cell
+     * other than by the turns, if recording or counting.
+     * 
+     * @param species - the species id of the Organism
+     * @param delta   - 1 if added, -1 if removed
+     * @param index   - the index of the Cell
+     */
+    private void recordPlacement(byte species, int delta, int index) {
+        if (this.events != null) {
+            this.events.add(delta > 0 ? Events.BIRTH : Events.DEATH, species, Species.EMPTY, index, index);
+        }
+        if (this.counters != null) {
+            this.counters.place(species, delta);
+        }
+    }
+
+    /**
+     * create. Creates an Organism of a species in a Cell, reusing a recycled
+     * one if this world is pooling and has one.
+     * 
+     * @param cell    - the Cell the Organism will occupy
+     * @param species - the species id of the Organism
+     * @param mother  - the lineage id of the first parent of an Animal
+     * @param father  - the lineage id of the second parent of an Animal
+     * @return the new Organism
+     */
+    public Organism create(Cell cell, byte species, int mother, int father) {
+        if (species <= Species.EMPTY || species >= this.rules.length) {
+            throw new IllegalArgumentException("species must be an organism - got: " + species);
+        }
+        final boolean reused = this.pooled[species] > 0;
+        final Organism org;
+        if (reused) {
+            final int top = --this.pooled[species];
+            org = this.pool[species][top];
+            this.pool[species][top] = null;
+            org.reuse(cell, mother, father);
+        } else if (this.rules[species].plant) {
+            org = new Plant(cell, species);
+        } else {
+            org = new Animal(cell, species, mother, father);
+        }
+        if (this.counters != null) {
+            this.counters.created(species, reused);
+        }
+        return org;
+    }
+
+    /**
+     * recycle. Keeps an Organism which has left this world for reuse by
+     * create, if pooling.
+     * 
+     * @param org - the Organism, no longer in any Cell
+     */
+    public void recycle(Organism org) {
+        if (this.pool == null) {
+            return;
+        }
+        final byte species = org.getSpecies();
+        if (this.pooled[species] == this.pool[species].length) {
+            this.pool[species] = Arrays.copyOf(this.pool[species], Math.max(16, 2 * this.pooled[species]));
+        }
+        this.pool[species][this.pooled[species]++] = org;
+    }
+
+    /**
+     * getConfig. Gets the configuration this world was built from.
+     * 
+     * @return the Config
+     */
+    @Override
+    public Config getConfig() {
+        return this.config;
+    }
+
+    /**
+     * getRules. Gets the rules of a species in this world.
+     * 
+     * @param species - the species id
+     * @return the SpeciesRules of the species
+     */
+    public SpeciesRules getRules(byte species) {
+        return this.rules[species];
+    }
+
+    /**
+     * getCell. Gets the cell at a row-major index in the world array.
+     * 
+     * @param index - ypos * cols + xpos
+     * @return Cell at index
+     */
+    public Cell getCell(int index) {
+        final int cols = this.getCols();
+        return this.landMass[index / cols][index % cols];
+    }
+
+    /**
+     * getNeighbourhood. Gets the Neighbourhood table for a sensory distance in
+     * this world, creating it the first time it is asked for.
+     * 
+     * @param distance - the sensory distance
+     * @return the Neighbourhood of that distance
+     */
+    public Neighbourhood getNeighbourhood(int distance) {
+        if (distance >= this.neighbourhoods.length) {
+            this.neighbourhoods = Arrays.copyOf(this.neighbourhoods, distance + 1);
+        }
+        if (this.neighbourhoods[distance] == null) {
+            this.neighbourhoods[distance] = new Neighbourhood(this.getRows(), this.getCols(), distance,
+                    this.config.getTopology());
+        }
+        return this.neighbourhoods[distance];
+    }
+
+    /**
+     * getWindowCounts. Gets the running neighbour counts of a species, which
+     * sensing WindowCounts.MIN_DISTANCE or further need not enumerate its
+     * neighbours to count them.
+     * 
+     * @param species - the species id
+     * @return the WindowCounts read by the species, or null if it has none
+     */
+    public WindowCounts getWindowCounts(byte species) {
+        return this.windows[species];
+    }
+
+    /**
+     * cellChanged. Updates the WindowCounts when a Cell changes species.
+     * Called by the Cell.
+     * 
+     * @param index - the index of the Cell
+     * @param from  - the species id the Cell held
+     * @param to    - the species id the Cell now holds
+     */
+    public void cellChanged(int index, byte from, byte to) {
+        for (WindowCounts window : this.counted) {
+            window.update(index, from, to);
+        }
+    }
+
+    /**
+     * getNeighbourBuffer. Lends out the buffer Organisms collect neighbour indices
+     * into. Only one Organism acts at a time, so the buffer is reused.
+     * 
+     * @param distance - the sensory distance the buffer must hold
+     * @return a buffer of at least Neighbourhood.capacity(distance) entries
+     */
+    public int[] getNeighbourBuffer(int distance) {
+        if (this.neighbourBuffer.length < Neighbourhood.capacity(distance)) {
+            this.neighbourBuffer = new int[Neighbourhood.capacity(distance)];
+        }
+        return this.neighbourBuffer;
+    }
+
+    /**
+     * getValidBuffer. Lends out the buffer Organisms collect the valid subset of
+     * their neighbours into.
+     * 
+     * @param distance - the sensory distance the buffer must hold
+     * @return a buffer of at least Neighbourhood.capacity(distance) entries
+     */
+    public int[] getValidBuffer(int distance) {
+        if (this.validBuffer.length < Neighbourhood.capacity(distance)) {
+            this.validBuffer = new int[Neighbourhood.capacity(distance)];
+        }
+        return this.validBuffer;
+    }
+
     /**
      * getRows. Get the number of rows in this world's landMass array.
      * 
      * @return number of rows - an int
      */
+    @Override
     public int getRows() {
         return this.landMass.length;
     }
@@ -74,26 +366,240 @@ public class World { // Added to turn order, wakeUpWorld
      * 
      * @return number of cols - an int
      */
+    @Override
     public int getCols() {
         return this.landMass[0].length;
     }
 
+    /**
+     * getSpecies. Gets the species id of the Organism at a location in the world
+     * array.
+     * 
+     * @param xpos - x position of the cell
+     * @param ypos - y position of the cell
+     * @return the species id at (xpos, ypos)
+     */
+    @Override
+    public byte getSpecies(int xpos, int ypos) {
+        return Species.of(this.landMass[ypos][xpos].getOrganism());
+    }
+
+    /**
+     * copySpecies. Copies the species id of every Cell, row by row, into an
+     * array.
+     * 
+     * @param out - an array of at least getRows() * getCols() entries
+     */
+    @Override
+    public void copySpecies(byte[] out) {
+        int i = 0;
+        for (Cell[] row : this.landMass) {
+            for (Cell cell : row) {
+                out[i++] = Species.of(cell.getOrganism());
+            }
+        }
+    }
+
+    /**
+     * getTurn. Gets the number of turns this world has run.
+     * 
+     * @return the turn
+     */
+    @Override
+    public long getTurn() {
+        return this.turn;
+    }
+
+    /**
+     * forEachOrganism. Visits every Organism in the world, in row-major order.
+     * 
+     * @param visitor - called once per Organism
+     */
+    @Override
+    public void forEachOrganism(OrganismVisitor visitor) {
+        final int cols = this.getCols();
+        for (int row = 0; row < this.landMass.length; row++) {
+            for (int col = 0; col < cols; col++) {
+                final Organism org = this.landMass[row][col] == null ? null : this.landMass[row][col].getOrganism();
+                final byte species = Species.of(org);
+                if (this.config.isAnimal(species)) {
+                    final int id = org.getLineageId();
+                    visitor.visit((long) row * cols + col, species, ((Animal) org).getAge(), id,
+                            this.lineage.getMother(id), this.lineage.getFather(id));
+                } else if (species != Species.EMPTY) {
+                    visitor.visit((long) row * cols + col, species, 0, 0, 0, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * reset. Empties the world, creating its Cells if letThereBeLight has not,
+     * and sets its turn.
+     * 
+     * @param turn - the number of turns the world will have run
+     */
+    @Override
+    public void reset(long turn) {
+        for (int row = 0; row < this.landMass.length; row++) {
+            for (int col = 0; col < this.landMass[row].length; col++) {
+                if (this.landMass[row][col] == null) {
+                    this.landMass[row][col] = new Cell(this, row, col);
+                } else if (this.landMass[row][col].getOrganism() != null) {
+                    final Organism org = this.landMass[row][col].getOrganism();
+                    this.landMass[row][col].annihilate();
+                    this.recycle(org);
+                }
+            }
+        }
+        this.lineage.clear();
+        this.turn = turn;
+        if (this.metrics != null) {
+            this.counters.clear();
+            this.metrics.rebase();
+        }
+    }
+
+    /**
+     * place. Puts an Organism with a full state into an empty Cell after reset.
+     * The Lineage hands out ids in order after a reset, so an Animal placed in
+     * order gets the id it is given.
+     * 
+     * @param index   - ypos * cols + xpos
+     * @param species - the species id
+     * @param age     - the age of an Animal; ignored for a Plant
+     * @param id      - the lineage id of an Animal; ignored for a Plant
+     * @param mother  - the lineage id of the first parent of an Animal
+     * @param father  - the lineage id of the second parent of an Animal
+     */
+    @Override
+    public void place(long index, byte species, int age, int id, int mother, int father) {
+        final Cell cell = this.getCell((int) index);
+        final Organism org = this.create(cell, species, mother, father);
+        if (this.config.isAnimal(species)) {
+            if (org.getLineageId() != id) {
+                throw new IllegalStateException("animals must be placed in id order - expected: "
+                        + org.getLineageId() + ", got: " + id);
+            }
+            ((Animal) org).setAge(age);
+        }
+        cell.setOrganism(org);
+        if (this.counters != null) {
+            this.counters.place(species, 1);
+        }
+    }
+
+    /**
+     * setTurnListener. Starts or stops recording the changes made to this world.
+     * 
+     * @param listener - the listener, or null to stop recording
+     */
+    @Override
+    public void setTurnListener(TurnListener listener) {
+        this.listener = listener;
+        this.events = listener == null ? null : new Events();
+    }
+
+    /**
+     * setMetrics. Starts or stops counting what the turns of this world do.
+     * 
+     * @param metrics - the Metrics, or null to stop counting
+     */
+    @Override
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        this.counters = metrics == null ? null : new Counters();
+        if (metrics != null) {
+            metrics.census(this);
+        }
+    }
+
+    /**
+     * record. Records a change made to this world, if recording, and counts
+     * it, if counting.
+     * 
+     * @param type    - the Events type
+     * @param species - the species id of the organism
+     * @param prey    - the species id eaten, or Species.EMPTY
+     * @param from    - the index of the Cell the change starts in
+     * @param to      - the index of the Cell the change ends in
+     */
+    public void record(byte type, byte species, byte prey, int from, int to) {
+        if (this.events != null) {
+            this.events.add(type, species, prey, from, to);
+        }
+        if (this.counters != null) {
+            this.counters.count(type, species, prey);
+        }
+    }
+
+    /**
+     * countFailure. Counts a reproduction which failed, if counting.
+     * 
+     * @param org    - the Animal which failed to reproduce
+     * @param reason - Counters.LIKE_NB, FOOD_NB or EMPTY_NB
+     */
+    public void countFailure(Organism org, int reason) {
+        if (this.counters != null) {
+            this.counters.failed(Species.of(org), reason);
+        }
+    }
+
+    /**
+     * getRandom. Gets the generator the Organisms of this world draw from.
+     * 
+     * @return the RandomSource of this world
+     */
+    @Override
+    public RandomSource getRandom() {
+        return this.random;
+    }
+
+    /**
+     * getLineage. Gets the family table of the Animals of this world.
+     * 
+     * @return the Lineage of this world
+     */
+    public Lineage getLineage() {
+        return this.lineage;
+    }
+
+    /**
+     * getRoster. Gets the index of occupied Cells kept by this world.
+     * 
+     * @return the Roster of this world
+     */
+    public Roster getRoster() {
+        return this.roster;
+    }
+
     /**
      * twentyThreeHoursAndFiftySixMinutes. Runs the turns for the Organisms in the
-     * world in order based on TURN_ORDER.
+     * world in order based on the configured turn order. Each phase visits only the Cells the
+     * Roster holds for that species, in row-major order.
      */
+    @Override
     public void twentyThreeHoursAndFiftySixMinutes() {
         this.wakeUpWorld();
-        for (Organism org : TURN_ORDER) {
-            for (int row = 0; row < this.landMass.length; row++) {
-                for (int col = 0; col < this.landMass[row].length; col++) {
-                    if ((this.landMass[row][col].getOrganism() != null)
-                            && ((this.landMass[row][col].getOrganism()).getClass().isInstance(org))) {
-                        this.landMass[row][col].getOrganism().turnAction();
-                    }
-                }
+        this.turn++;
+        final int cols = this.getCols();
+        for (byte species : this.turnOrder) {
+            final long start = this.counters != null ? System.nanoTime() : 0;
+            for (int i = this.roster.next(species, 0); i >= 0; i = this.roster.next(species, i + 1)) {
+                this.landMass[i / cols][i % cols].getOrganism().turnAction();
+            }
+            if (this.counters != null) {
+                this.counters.time(species, System.nanoTime() - start);
             }
         }
+        if (this.listener != null) {
+            this.listener.turnEnded(this.turn, this.events);
+            this.events.clear();
+        }
+        if (this.metrics != null) {
+            this.metrics.turnEnded(this.turn, this.counters);
+            this.counters.clear();
+        }
     }
 
     /**
@@ -101,14 +607,12 @@ public class World { // Added to turn order, wakeUpWorld
      * flag of each Animal to false.
      */
     private void wakeUpWorld() {
-        for (int row = 0; row < this.landMass.length; row++) {
-            for (int col = 0; col < this.landMass[row].length; col++) {
-                if (this.landMass[row][col].getOrganism() != null) {
-                    this.landMass[row][col].getOrganism().setCanAct(true);
-                }
-                if (this.landMass[row][col].getOrganism() instanceof Animal) {
-                    ((Animal) this.landMass[row][col].getOrganism()).setHasMated(false);
-                }
+        final int cols = this.getCols();
+        for (byte species : this.turnOrder) {
+            for (int i = this.roster.next(species, 0); i >= 0; i = this.roster.next(species, i + 1)) {
+                final Organism org = this.landMass[i / cols][i % cols].getOrganism();
+                org.setCanAct(true);
+                org.setHasMated(false);
             }
         }
     }
@@ -0,0 +1,206 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import javax.swing.JPanel;
+import javax.swing.Timer;
+
+/**
+ * WorldView.
+ * 
+ * <p>
+ * A single Swing component which draws an Ecosystem from Snapshots of it. The
+ * view only reads Snapshots; the Ecosystem does not know it is being
+ * displayed. <br>
+ * Empty cells are white and each species is drawn in the colour its Config
+ * gives it. The built-in colours are:
+ * <ul>
+ * <li>Green : Plant</li>
+ * <li>Yellow : Herbivore</li>
+ * <li>Red : Carnivore</li>
+ * <li>Blue : Omnivore</li>
+ * </ul>
+ * </p>
+ * 
+ * <p>
+ * The world is rendered into a BufferedImage holding one pixel per Cell, which
+ * is scaled to fill the view when painted. A frame-rate-capped Timer, running
+ * while the view is showing, asks its source for a Snapshot, writes only the
+ * pixels whose species changed since the last frame, and repaints only the
+ * region of the view covering them. A source with nothing new returns null
+ * and the frame is skipped. A turn therefore costs no Swing work, and a frame
+ * costs one pass over the Snapshot plus the changed cells.
+ * Borders are drawn between Cells once they are large enough to see.
+ * </p>
+ * 
+ * @author Maxwell Babey
+ * @version 2022, 1.0
+ */
+public class WorldView extends JPanel {
+
+    /** The serial version; Swing components are Serializable. */
+    private static final long serialVersionUID = 1L;
+
+    /** The colour of an empty cell. */
+    public static final Color EMPTY_CELL_COLOUR = Color.WHITE;
+
+    /** The colour of the border drawn around each cell. */
+    public static final Color BORDER_COLOUR = Color.BLACK;
+
+    /** The smallest cell, in pixels on screen, drawn with a border. */
+    public static final int MIN_BORDERED_CELL_SIZE = 6;
+
+    /** Marks a cell of drawn as never drawn, so the first frame draws it. */
+    private static final byte NOT_DRAWN = -1;
+
+    /** Gives the newest Snapshot of the world, or null if nothing changed. */
+    private final Supplier<Snapshot> frames;
+
+    /** The number of rows and columns in the world. */
+    private final int rows;
+    private final int cols;
+
+    /** The world rendered at one pixel per Cell. */
+    private final BufferedImage image;
+
+    /** The pixels of image, row by row. */
+    private final int[] pixels;
+
+    /** The RGB value drawn for each species, indexed by species id. */
+    private final int[] palette;
+
+    /** The species of every cell as last drawn into image. */
+    private final byte[] drawn;
+
+    /** Fires refresh at the frame rate while the view is showing. */
+    private final Timer timer;
+
+    /**
+     * Constructor. Creates a WorldView which copies an Ecosystem every frame.
+     * The Ecosystem's turns must run on the Swing event thread.
+     * 
+     * @param w   - the world to draw
+     * @param fps - the most frames drawn per second
+     */
+    public WorldView(final Ecosystem w, final int fps) {
+        this(w.getRows(), w.getCols(), w.getConfig(), () -> Snapshot.of(w, w.getTurn()), fps);
+    }
+
+    /**
+     * Constructor. Creates a WorldView which draws the Snapshots a source gives.
+     * 
+     * @param rows   - the number of rows in the world
+     * @param cols   - the number of columns in the world
+     * @param config - the configuration of the world, colouring its species
+     * @param frames - gives the newest Snapshot, or null if nothing changed
+     * @param fps    - the most frames drawn per second
+     */
+    public WorldView(final int rows, final int cols, final Config config, final Supplier<Snapshot> frames,
+            final int fps) {
+        if (fps < 1) {
+            throw new IllegalArgumentException("fps cannot be < 1 - got: " + fps);
+        }
+        this.frames = frames;
+        this.rows = rows;
+        this.cols = cols;
+        this.image = new BufferedImage(this.cols, this.rows, BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+        this.drawn = new byte[this.rows * this.cols];
+        Arrays.fill(this.drawn, NOT_DRAWN);
+        this.palette = new int[config.getSpeciesCount()];
+        this.palette[Species.EMPTY] = EMPTY_CELL_COLOUR.getRGB();
+        for (byte species = 1; species < this.palette.length; species++) {
+            this.palette[species] = config.getRules(species).colour.getRGB();
+        }
+        this.timer = new Timer(Math.max(1, 1000 / fps), e -> this.refresh());
+        this.timer.setCoalesce(true);
+    }
+
+    /**
+     * addNotify. Starts drawing frames when the view is shown.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        this.timer.start();
+    }
+
+    /**
+     * removeNotify. Stops drawing frames when the view is hidden.
+     */
+    @Override
+    public void removeNotify() {
+        this.timer.stop();
+        super.removeNotify();
+    }
+
+    /**
+     * refresh. Draws the newest Snapshot, if there is one.
+     */
+    public void refresh() {
+        final Snapshot frame = this.frames.get();
+        if (frame != null) {
+            this.draw(frame);
+        }
+    }
+
+    /**
+     * draw. Draws a Snapshot into the image, writing only the pixels which
+     * changed, and repaints the region of the view holding them.
+     * 
+     * @param frame - the Snapshot to draw
+     */
+    protected void draw(final Snapshot frame) {
+        int minX = this.cols;
+        int minY = this.rows;
+        int maxX = -1;
+        int maxY = -1;
+        for (int row = 0, i = 0; row < this.rows; row++) {
+            for (int col = 0; col < this.cols; col++, i++) {
+                final byte species = frame.getSpecies(i);
+                if (species != this.drawn[i]) {
+                    this.drawn[i] = species;
+                    this.pixels[i] = this.palette[species];
+                    minX = Math.min(minX, col);
+                    maxX = Math.max(maxX, col);
+                    minY = Math.min(minY, row);
+                    maxY = row;
+                }
+            }
+        }
+        if (maxY >= 0) {
+            final int width = this.getWidth();
+            final int height = this.getHeight();
+            final int left = minX * width / this.cols;
+            final int top = minY * height / this.rows;
+            final int right = (maxX + 1) * width / this.cols;
+            final int bottom = (maxY + 1) * height / this.rows;
+            this.repaint(left, top, right - left + 1, bottom - top + 1);
+        }
+    }
+
+    /**
+     * paintComponent. Draws the image of the world, scaled to fill this view.
+     */
+    @Override
+    protected void paintComponent(final Graphics g) {
+        super.paintComponent(g);
+        final int width = this.getWidth();
+        final int height = this.getHeight();
+        g.drawImage(this.image, 0, 0, width, height, null);
+        if (width / this.cols >= MIN_BORDERED_CELL_SIZE && height / this.rows >= MIN_BORDERED_CELL_SIZE) {
+            g.setColor(BORDER_COLOUR);
+            for (int row = 0; row <= this.rows; row++) {
+                final int y = Math.min(row * height / this.rows, height - 1);
+                g.drawLine(0, y, width, y);
+            }
+            for (int col = 0; col <= this.cols; col++) {
+                final int x = Math.min(col * width / this.cols, width - 1);
+                g.drawLine(x, 0, x, height);
+            }
+        }
+    }
+}